@@ -14,6 +14,7 @@ import {
   markAllNotificationsRead, // Thunk
   undoMarkAllNotificationsAsRead, // Thunk
   clearReadNotificationsThunk, // Thunk
+  fetchOlderNotifications, // Thunk loading the next older page
   markAllAsReadLocalSetup, // Synchronous action for UI state prep
   undoMarkAllAsReadLocalCleanup, // Synchronous action for UI state cleanup
 } from "@/redux/notificationSlice";
@@ -60,6 +61,8 @@ const NotificationList: React.FC<NotificationListProps> = ({ onClose }) => {
     canUndo,
     lastMarkedAllAsReadIds, // Added for the undo functionality
     status: notificationStatus,
+    hasMoreHistory,
+    olderStatus,
   } = useSelector((state: RootState) => state.notifications);
 
   const [unhoveredIds, setUnhoveredIds] = useState<string[]>([]);
@@ -121,6 +124,18 @@ const NotificationList: React.FC<NotificationListProps> = ({ onClose }) => {
       });
   };
 
+  // Older pages are only requested when the user reaches the end of the list or asks for them
+  const handleLoadOlder = () => {
+    dispatch(fetchOlderNotifications());
+  };
+
+  const handleListScroll = (event: React.UIEvent<HTMLUListElement>) => {
+    const list = event.currentTarget;
+    if (list.scrollHeight - list.scrollTop - list.clientHeight < 40) {
+      handleLoadOlder();
+    }
+  };
+
   const visibleNotifications = showOnlyUnread
     ? sortedUnread
     : [...sortedUnread, ...sortedRead];
@@ -207,7 +222,7 @@ const NotificationList: React.FC<NotificationListProps> = ({ onClose }) => {
         </Stack>
       )}
 
-      <List dense sx={{ maxHeight: 400, overflowY: "auto" }}>
+      <List dense sx={{ maxHeight: 400, overflowY: "auto" }} onScroll={handleListScroll}>
         {notificationStatus === "loading" && (
           <Box
             display="flex"
@@ -323,6 +338,22 @@ const NotificationList: React.FC<NotificationListProps> = ({ onClose }) => {
               </Fade>
             );
           })}
+        {notificationStatus !== "loading" && hasMoreHistory && (
+          <Box display="flex" justifyContent="center" sx={{ p: 1 }}>
+            <Button
+              size="small"
+              onClick={handleLoadOlder}
+              disabled={olderStatus === "loading"}
+              sx={{ textTransform: "none" }}
+            >
+              {olderStatus === "loading" ? (
+                <CircularProgress size={16} />
+              ) : (
+                "Load older notifications"
+              )}
+            </Button>
+          </Box>
+        )}
       </List>
 
       <Dialog
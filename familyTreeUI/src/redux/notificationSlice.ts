@@ -1,13 +1,15 @@
 import { createSlice, PayloadAction, createAsyncThunk } from '@reduxjs/toolkit';
 import { v4 as uuidv4 } from 'uuid';
 import {
-  fetchNotificationsAPI,
+  fetchNotificationsPageAPI,
+  fetchUnreadCountAPI,
   markNotificationReadAPI,
   markNotificationUnreadAPI,
   deleteNotificationAPI,
   markAllNotificationsReadAPI,
   markNotificationsUnreadBatchAPI,
   clearReadNotificationsAPI,
+  NotificationPage,
 } from '@/services/notificationApi'; // Adjust path as necessary
 
 export interface Notification {
@@ -26,6 +28,9 @@ interface NotificationState {
   canUndo: boolean; // For undo mark all as read
   status: 'idle' | 'loading' | 'succeeded' | 'failed';
   error: string | null | undefined;
+  nextCursor: string | null; // Cursor of the next older page, null before the first page or at the end
+  hasMoreHistory: boolean; // Whether older notifications can still be paged in
+  olderStatus: 'idle' | 'loading' | 'failed';
 }
 
 const initialState: NotificationState = {
@@ -36,21 +41,51 @@ const initialState: NotificationState = {
   canUndo: false,
   status: 'idle',
   error: null,
+  nextCursor: null,
+  hasMoreHistory: true,
+  olderStatus: 'idle',
 };
 
+// Page size of the notification list, for the first page and for each older page
+export const NOTIFICATIONS_PAGE_SIZE = 50;
+
 // Async Thunks
-export const fetchNotifications = createAsyncThunk<Notification[], void, { rejectValue: string }>(
+// Loads the newest page of notifications and the server-side unread count, never the whole history
+export const fetchNotifications = createAsyncThunk<NotificationPage & { unreadCount: number }, void, { rejectValue: string }>(
   'notifications/fetchNotifications',
   async (_, { rejectWithValue }) => {
     try {
-      const notifications = await fetchNotificationsAPI();
-      return notifications;
+      const [page, unreadCount] = await Promise.all([
+        fetchNotificationsPageAPI(null, NOTIFICATIONS_PAGE_SIZE),
+        fetchUnreadCountAPI(),
+      ]);
+      return { ...page, unreadCount };
     } catch (error: any) {
       return rejectWithValue(error.message || 'Failed to fetch notifications');
     }
   }
 );
 
+// One page of older notifications after the last loaded one, fetched on demand when the user scrolls to the end of
+// the list or asks for more. Skipped while a page is loading or once the history ended.
+
+export const fetchOlderNotifications = createAsyncThunk<NotificationPage, void, { rejectValue: string; state: { notifications: NotificationState } }>(
+  'notifications/fetchOlderNotifications',
+  async (_, { rejectWithValue, getState }) => {
+    try {
+      return await fetchNotificationsPageAPI(getState().notifications.nextCursor, NOTIFICATIONS_PAGE_SIZE);
+    } catch (error: any) {
+      return rejectWithValue(error.message || 'Failed to fetch older notifications');
+    }
+  },
+  {
+    condition: (_, { getState }) => {
+      const { hasMoreHistory, olderStatus } = getState().notifications;
+      return hasMoreHistory && olderStatus !== 'loading';
+    },
+  }
+);
+
 export const markNotificationRead = createAsyncThunk<string, string, { rejectValue: string }>(
   'notifications/markNotificationRead',
   async (notificationId: string, { rejectWithValue }) => {
@@ -157,9 +192,13 @@ const notificationSlice = createSlice({
             }
         }
     },
+    // Unread count reported by the server, which may include notifications not loaded yet
+    setUnreadCount: (state, action: PayloadAction<number>) => {
+      state.unreadCount = Math.max(0, action.payload);
+    },
+    // Replaces the loaded notifications; the badge keeps the server's unread count, as the list may be partial
     setNotifications: (state, action: PayloadAction<Notification[]>) => {
         state.notifications = action.payload;
-        state.unreadCount = action.payload.filter(n => !n.isRead).length;
         state.status = 'succeeded';
     },
     // Dispatcher for markAllNotificationsRead thunk
@@ -225,21 +264,41 @@ const notificationSlice = createSlice({
       .addCase(fetchNotifications.pending, (state) => {
         state.status = 'loading';
       })
-      .addCase(fetchNotifications.fulfilled, (state, action: PayloadAction<Notification[]>) => {
-        const newNotifications = action.payload;
+      .addCase(fetchNotifications.fulfilled, (state, action: PayloadAction<NotificationPage & { unreadCount: number }>) => {
+        const newNotifications = action.payload.items;
         const existingIds = new Set(state.notifications.map(n => n.id));
         const uniqueNewNotifications = newNotifications.filter(n => !existingIds.has(n.id));
         
         state.notifications = [...uniqueNewNotifications, ...state.notifications]
             .sort((a, b) => new Date(b.timestamp).getTime() - new Date(a.timestamp).getTime());
          
-        state.unreadCount = state.notifications.filter(n => !n.isRead).length;
+        state.unreadCount = action.payload.unreadCount;
+        state.nextCursor = action.payload.nextCursor;
+        state.hasMoreHistory = action.payload.nextCursor !== null;
         state.status = 'succeeded';
       })
       .addCase(fetchNotifications.rejected, (state, action) => {
         state.status = 'failed';
         state.error = action.error.message;
       })
+      .addCase(fetchOlderNotifications.pending, (state) => {
+        state.olderStatus = 'loading';
+      })
+      .addCase(fetchOlderNotifications.fulfilled, (state, action: PayloadAction<NotificationPage>) => {
+        const existingIds = new Set(state.notifications.map(n => n.id));
+        const olderNotifications = action.payload.items.filter(n => !existingIds.has(n.id));
+
+        state.notifications = [...state.notifications, ...olderNotifications]
+            .sort((a, b) => new Date(b.timestamp).getTime() - new Date(a.timestamp).getTime());
+        state.nextCursor = action.payload.nextCursor;
+        state.hasMoreHistory = action.payload.nextCursor !== null;
+        state.olderStatus = 'idle';
+        // unreadCount stays as reported by the server
+      })
+      .addCase(fetchOlderNotifications.rejected, (state, action) => {
+        state.olderStatus = 'failed';
+        console.error("Failed to fetch older notifications:", action.payload || action.error.message);
+      })
       .addCase(markNotificationRead.fulfilled, (state, action: PayloadAction<string>) => {
         const notificationId = action.payload;
         const notification = state.notifications.find(n => n.id === notificationId);
@@ -279,7 +338,8 @@ const notificationSlice = createSlice({
             notification.isRead = true;
           }
         });
-        state.unreadCount = state.notifications.filter(n => !n.isRead).length;
+        // Every unread notification was marked, including those not loaded yet
+        state.unreadCount = 0;
         state.lastMarkedAllAsReadIds = updatedEventIds; // Store for undo
         // state.canUndo is already set by `markAllAsReadLocalSetup`
         state.status = 'succeeded';
@@ -298,7 +358,7 @@ const notificationSlice = createSlice({
             notification.isRead = false;
           }
         });
-        state.unreadCount = state.notifications.filter(n => !n.isRead).length;
+        state.unreadCount += unreadEventIds.length;
         // Cleanup is done by `undoMarkAllAsReadLocalCleanup` dispatched by UI after this thunk
         state.status = 'succeeded';
       })
@@ -342,6 +402,7 @@ const notificationSlice = createSlice({
 export const {
   addNotification,
   addBackendNotification,
+  setUnreadCount,
   setNotifications,
   // The following are now primarily for local state setup/cleanup before/after thunks
   // Components will dispatch these, then the corresponding thunk.
@@ -36,7 +36,7 @@ export default function Home() {
     error: TreeError, // Changed
   } = useGetTreeQuery({ treeId: treeId! }, { skip: !treeId }); // Changed
   const [treesKey, setTreesKey] = useState(0);
-  // useEffect to fetch notifications
+  // useEffect to fetch the newest page of notifications and the unread count
   useEffect(() => {
     if (notificationStatus === 'idle') {
       dispatch(fetchNotifications());
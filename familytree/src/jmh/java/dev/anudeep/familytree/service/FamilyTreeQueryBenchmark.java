@@ -0,0 +1,126 @@
+package dev.anudeep.familytree.service;
+
+import dev.anudeep.familytree.utils.Constants;
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Session;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the old OPTIONAL MATCH chain with {@link GraphService#familyTreeCypher(boolean)} on a generated
+ * 10-generation tree (every person has two children, a spouse and a house). Needs a running Neo4j, configured
+ * with -Dneo4j.uri, -Dneo4j.username and -Dneo4j.password. Row counts are printed during setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class FamilyTreeQueryBenchmark {
+
+    private static final int GENERATIONS = 10;
+    private static final int CHILDREN_PER_PERSON = 2;
+    private static final int HOUSES = 4;
+
+    // The query getFamilyTree used before it became a single-row traversal
+    private static final String LEGACY_CYPHER = String.format("""
+                    MATCH (root:Person)
+                    WHERE elementId(root) = $elementId
+                    OPTIONAL MATCH (root)-[spouseRel:%s]-(spouse:Person)
+                    OPTIONAL MATCH path=(root)-[descendantRel:%s*1..]->(descendant:Person)
+                    OPTIONAL MATCH (descendant)-[descendantSpouseRel:%s]-(descendantSpouse:Person)
+                    OPTIONAL MATCH (root)-[rootHouseRel:%s]-(rootHouse:House)
+                    OPTIONAL MATCH (spouse)-[spouseHouseRel:%s]-(spouseHouse:House)
+                    OPTIONAL MATCH (descendant)-[descendantHouseRel:%s]-(descendantHouse:House)
+                    OPTIONAL MATCH (descendantSpouse)-[descSpouseHouseRel:%s]-(descSpouseHouse:House)
+                    RETURN DISTINCT root, spouse, descendant, descendantSpouse, spouseRel, descendantRel,
+                        descendantSpouseRel, rootHouse, spouseHouse, descendantHouse, descSpouseHouse,
+                        rootHouseRel, spouseHouseRel, descendantHouseRel, descSpouseHouseRel
+                    """,
+            Constants.MARRIED_REL, Constants.PARENT_REL, Constants.MARRIED_REL,
+            Constants.BELONGS_REL, Constants.BELONGS_REL, Constants.BELONGS_REL, Constants.BELONGS_REL);
+
+    private static final String CREATE_GENERATION_CYPHER = String.format("""
+                    MATCH (t:Tree) WHERE elementId(t) = $treeId
+                    MATCH (h:House)-[:%1$s]->(t)
+                    WITH t, collect(h) AS houses
+                    UNWIND $parentIds AS parentId
+                    MATCH (parent:Person) WHERE elementId(parent) = parentId
+                    UNWIND range(1, $children) AS i
+                    CREATE (parent)-[:%2$s]->(child:Person {name: parent.name + '.' + i})-[:%1$s]->(t)
+                    CREATE (child)-[:%3$s]->(spouse:Person {name: 'spouse of ' + child.name})-[:%1$s]->(t)
+                    WITH child, spouse, houses[i %% size(houses)] AS house
+                    CREATE (child)-[:%4$s]->(house)
+                    CREATE (spouse)-[:%4$s]->(house)
+                    RETURN elementId(child) AS childId
+                    """,
+            Constants.PART_OF, Constants.PARENT_REL, Constants.MARRIED_REL, Constants.BELONGS_REL);
+
+    private Driver driver;
+    private String treeId;
+    private String rootId;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        driver = GraphDatabase.driver(
+                System.getProperty("neo4j.uri", "bolt://localhost:7687"),
+                AuthTokens.basic(System.getProperty("neo4j.username", "neo4j"), System.getProperty("neo4j.password", "gameofthrones")));
+        try (Session session = driver.session()) {
+            Record created = session.run(String.format("""
+                    CREATE (t:Tree {name: 'family-tree-benchmark'})
+                    CREATE (root:Person {name: 'root'})-[:%1$s]->(t)
+                    CREATE (root)-[:%2$s]->(:House {name: 'House 0'})-[:%1$s]->(t)
+                    WITH t, root
+                    UNWIND range(1, $houses - 1) AS h
+                    CREATE (:House {name: 'House ' + h})-[:%1$s]->(t)
+                    WITH DISTINCT t, root
+                    RETURN elementId(t) AS treeId, elementId(root) AS rootId
+                    """, Constants.PART_OF, Constants.BELONGS_REL), Map.of("houses", HOUSES)).single();
+            treeId = created.get("treeId").asString();
+            rootId = created.get("rootId").asString();
+
+            List<String> generation = List.of(rootId);
+            for (int g = 1; g < GENERATIONS; g++) {
+                generation = session.run(CREATE_GENERATION_CYPHER,
+                                Map.of("treeId", treeId, "parentIds", generation, "children", CHILDREN_PER_PERSON))
+                        .list(row -> row.get("childId").asString());
+            }
+
+            System.out.printf("%nfamilytree rows: legacy=%d, traversal=%d%n",
+                    session.run(LEGACY_CYPHER, Map.of("elementId", rootId)).list().size(),
+                    session.run(GraphService.familyTreeCypher(false), Map.of("elementId", rootId)).list().size());
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        try (Session session = driver.session()) {
+            session.run(String.format("""
+                    MATCH (t:Tree) WHERE elementId(t) = $treeId
+                    OPTIONAL MATCH (n)-[:%s]->(t)
+                    DETACH DELETE n, t
+                    """, Constants.PART_OF), Map.of("treeId", treeId)).consume();
+        }
+        driver.close();
+    }
+
+    @Benchmark
+    public int legacyOptionalMatchChain() {
+        return fetch(LEGACY_CYPHER);
+    }
+
+    @Benchmark
+    public int singleRowTraversal() {
+        return fetch(GraphService.familyTreeCypher(false));
+    }
+
+    private int fetch(String cypher) {
+        try (Session session = driver.session()) {
+            return session.run(cypher, Map.of("elementId", rootId)).list().size();
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package dev.anudeep.familytree.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.anudeep.familytree.model.Person;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.internal.InternalNode;
+import org.neo4j.driver.types.Node;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-node cost of building the Person data map: the old Person + convertValue round trip against
+ * {@link PersonFlowNodeMapper}. Run with {@code ./gradlew jmh}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class PersonFlowNodeMapperBenchmark {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    private ObjectMapper objectMapper;
+    private PersonFlowNodeMapper mapper;
+    private Node node;
+
+    @Setup
+    public void setup() throws Exception {
+        // Same date handling as the Spring Boot configured ObjectMapper
+        objectMapper = new ObjectMapper()
+                .registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        mapper = new PersonFlowNodeMapper(objectMapper);
+
+        Map<String, Value> properties = new HashMap<>();
+        properties.put("name", Values.value("Anudeep"));
+        properties.put("gender", Values.value("male"));
+        properties.put("nickName", Values.value("Anu"));
+        properties.put("isAlive", Values.value("true"));
+        properties.put("dob", Values.value(ZonedDateTime.of(1990, 4, 12, 0, 0, 0, 0, ZoneId.of("UTC"))));
+        properties.put("currLocation", Values.value("Hyderabad"));
+        properties.put("character", Values.value("Calm"));
+        properties.put("imageUrl", Values.value("https://example.com/a.png"));
+        properties.put("job_jobType", Values.value("Private"));
+        properties.put("job_employer", Values.value("Acme"));
+        properties.put("job_jobTitle", Values.value("Engineer"));
+        properties.put("education_fieldOfStudy", Values.value("Computer Science"));
+        properties.put("education_highestQualification", Values.value("Masters"));
+        properties.put("education_institution", Values.value("University"));
+        properties.put("education_location", Values.value("Hyderabad"));
+        node = new InternalNode(42L, List.of("Person"), properties);
+
+        // Compared as JSON: Map.equals ignores the key order the client sees
+        if (!objectMapper.writeValueAsString(convertValue()).equals(objectMapper.writeValueAsString(directMapping()))) {
+            throw new IllegalStateException("Direct mapping does not match the convertValue shape");
+        }
+    }
+
+    @Benchmark
+    public Map<String, Object> convertValue() {
+        Person person = PersonNodeConverter.flattenedMapToPerson(new HashMap<>(node.asMap()), node.elementId());
+        return objectMapper.convertValue(person, MAP_TYPE);
+    }
+
+    @Benchmark
+    public Map<String, Object> directMapping() {
+        return mapper.toData(node, node.elementId());
+    }
+}
@@ -43,7 +43,7 @@ public class CorsConfig {
         config.setAllowCredentials(true);
 
         // ✅ Optional: expose headers if frontend needs to read them
-        config.setExposedHeaders(List.of("Authorization", "Set-Cookie"));
+        config.setExposedHeaders(List.of("Authorization", "Set-Cookie", "ETag"));
 
         // Register the CORS config to apply to all routes (/**)
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
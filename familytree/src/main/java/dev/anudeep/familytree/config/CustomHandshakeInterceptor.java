@@ -3,7 +3,7 @@ package dev.anudeep.familytree.config;
 import dev.anudeep.familytree.domain.model.AuthenticatedUserClaims;
 import dev.anudeep.familytree.domain.port.out.AuthProviderPort;
 import dev.anudeep.familytree.model.User;
-import dev.anudeep.familytree.repository.UserRepository;
+import dev.anudeep.familytree.service.UserLookupCache;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.http.HttpStatus;
@@ -24,12 +24,12 @@ import java.util.Optional;
 public class CustomHandshakeInterceptor implements HandshakeInterceptor {
 
     private final AuthProviderPort authProviderPort;
-    private final UserRepository userRepository;
+    private final UserLookupCache userLookupCache;
 
     public CustomHandshakeInterceptor(AuthProviderPort authProviderPort,
-                                       @Lazy UserRepository userRepository) {
+                                       @Lazy UserLookupCache userLookupCache) {
         this.authProviderPort = authProviderPort;
-        this.userRepository = userRepository;
+        this.userLookupCache = userLookupCache;
         log.info("CustomHandshakeInterceptor initialized with AuthProviderPort: {}", authProviderPort.getProviderName());
     }
 
@@ -54,7 +54,7 @@ public class CustomHandshakeInterceptor implements HandshakeInterceptor {
             }
 
             String email = claims.getEmail();
-            Optional<User> userOptional = userRepository.findByEmail(email);
+            Optional<User> userOptional = userLookupCache.findByEmail(email);
             if (userOptional.isEmpty()) {
                 log.warn("WebSocket handshake DENIED for URI {}: User with email {} not found in the database.", requestUriString, email);
                 response.setStatusCode(HttpStatus.FORBIDDEN);
@@ -0,0 +1,46 @@
+package dev.anudeep.familytree.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.neo4j.core.Neo4jClient;
+
+import java.util.List;
+
+/**
+ * Creates the range indexes the keyset-paginated lists sort and prefix-search on, the index legacy notifications are
+ * read by and the notification event key constraint, if they are missing. Runs before every other ready listener, so
+ * startup data migrations already find their indexes.
+ */
+@Slf4j
+@Configuration
+public class Neo4jIndexConfig {
+    private static final List<String> INDEXES = List.of(
+            "CREATE INDEX user_name IF NOT EXISTS FOR (u:User) ON (u.name)",
+            "CREATE INDEX user_email IF NOT EXISTS FOR (u:User) ON (u.email)",
+            "CREATE INDEX tree_name IF NOT EXISTS FOR (t:Tree) ON (t.name)",
+            "CREATE INDEX legacy_notification_recipient IF NOT EXISTS FOR (n:Notification) ON (n.recipientUserId)",
+            "CREATE CONSTRAINT notification_event_id IF NOT EXISTS FOR (e:NotificationEvent) REQUIRE e.eventId IS UNIQUE");
+
+    private final Neo4jClient neo4jClient;
+
+    public Neo4jIndexConfig(Neo4jClient neo4jClient) {
+        this.neo4jClient = neo4jClient;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void createIndexes() {
+        for (String index : INDEXES) {
+            try {
+                neo4jClient.query(index).run();
+            } catch (Exception e) {
+                log.warn("Could not ensure index with '{}': {}", index, e.getMessage());
+            }
+        }
+        log.info("Ensured {} Neo4j indexes", INDEXES.size());
+    }
+}
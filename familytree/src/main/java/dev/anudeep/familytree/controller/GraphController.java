@@ -1,23 +1,41 @@
 package dev.anudeep.familytree.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.anudeep.familytree.ErrorHandling.dto.EntityNotFoundException;
 import dev.anudeep.familytree.controller.common.CommonUtils;
+import dev.anudeep.familytree.dto.FlowEdgeDTO;
 import dev.anudeep.familytree.dto.FlowGraphDTO;
+import dev.anudeep.familytree.dto.FlowNodeDTO;
 import dev.anudeep.familytree.dto.GraphDiffDTO;
+import dev.anudeep.familytree.dto.GraphDiffResultDTO;
+import dev.anudeep.familytree.model.Filter;
 import dev.anudeep.familytree.model.Person;
 import dev.anudeep.familytree.model.Role;
+import dev.anudeep.familytree.service.FilterService;
+import dev.anudeep.familytree.service.GraphRecordSink;
 import dev.anudeep.familytree.service.GraphService;
+import dev.anudeep.familytree.service.TreeVersionService;
+import dev.anudeep.familytree.utils.FilterPredicate;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpSession;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.List;
+import java.util.Map;
 
 
 @Slf4j
@@ -29,24 +47,36 @@ public class GraphController {
 
     private final GraphService graphService;
     private final CommonUtils commonUtils;
+    private final TreeVersionService treeVersionService;
+    private final ObjectMapper objectMapper;
+    private final FilterService filterService;
 
-    public GraphController(GraphService graphService, CommonUtils commonUtils) {
+    public GraphController(GraphService graphService, CommonUtils commonUtils, TreeVersionService treeVersionService, ObjectMapper objectMapper, FilterService filterService) {
         this.graphService = graphService;
         this.commonUtils = commonUtils;
+        this.treeVersionService = treeVersionService;
+        this.objectMapper = objectMapper;
+        this.filterService = filterService;
     }
 
     @GetMapping
-    @Operation(summary = "Get full graph")
-    public FlowGraphDTO getGraph(
+    @Operation(summary = "Get full graph", description = "Returns 304 Not Modified when If-None-Match matches the tree's current version.")
+    public ResponseEntity<FlowGraphDTO> getGraph(
             @Parameter(description = "Tree Id of a tree", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:45")
             @PathVariable String treeId,
+            WebRequest webRequest,
             HttpSession session
     ) {
         log.info("GraphController: entered complete graph mode");
         try {
             commonUtils.accessCheck(treeId, new Role[]{Role.VIEWER, Role.ADMIN, Role.EDITOR});
+            String eTag = treeVersionService.eTag(treeId);
+            if (webRequest.checkNotModified(eTag)) {
+                log.info("GraphController: graph of tree {} not modified since {}", treeId, eTag);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
             log.info("GraphController: Fetching the complete graph");
-            return graphService.getGraph(treeId);
+            return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(graphService.getGraph(treeId));
         } catch (Exception e) {
             log.error("Failed to fetch full graph", e);  // log stack trace
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error generating graph", e);
@@ -54,20 +84,65 @@ public class GraphController {
     }
 
 
+    @GetMapping(params = "filterId")
+    @Operation(summary = "Get graph filtered by a saved filter", description = "Only nodes and edges matching the filter are returned. A disabled filter returns the full graph.")
+    public FlowGraphDTO getFilteredGraph(
+            @Parameter(description = "Tree Id of a tree", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:45")
+            @PathVariable String treeId,
+            @Parameter(description = "ElementId of a saved filter of this tree", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:60")
+            @RequestParam("filterId") String filterId) {
+        commonUtils.accessCheck(treeId, new Role[]{Role.VIEWER, Role.ADMIN, Role.EDITOR});
+        try {
+            FilterPredicate filter = filterService.getPredicate(treeId, filterId);
+            log.info("GraphController: Fetching graph of tree {} with filter {}", treeId, filterId);
+            return filter.isEnabled() ? graphService.getFilteredGraph(treeId, filter) : graphService.getGraph(treeId);
+        } catch (EntityNotFoundException e) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            log.error("GraphController: Invalid filter {} for treeId {}: {}", filterId, treeId, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        } catch (Exception e) {
+            log.error("GraphController: Failed to filter graph of tree {} with filter {}: {}", treeId, filterId, e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error generating filtered graph", e);
+        }
+    }
+
+    @PostMapping("/filter")
+    @Operation(summary = "Get graph filtered by ad-hoc criteria", description = "Same filtering as a saved filter, with the criteria in the request body.")
+    public FlowGraphDTO filterGraph(
+            @Parameter(description = "Tree Id of a tree", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:45")
+            @PathVariable String treeId,
+            @RequestBody Filter.FilterBy filterBy) {
+        commonUtils.accessCheck(treeId, new Role[]{Role.VIEWER, Role.ADMIN, Role.EDITOR});
+        log.info("GraphController: Fetching graph of tree {} with ad-hoc filter", treeId);
+        try {
+            return graphService.getFilteredGraph(treeId, filterBy);
+        } catch (IllegalArgumentException e) {
+            log.error("GraphController: Invalid ad-hoc filter for treeId {}: {}", treeId, e.getMessage());
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
+        }
+    }
+
     @PreAuthorize("hasRole('EDITOR') or hasRole('ADMIN') or hasRole('VIEWER')")
     @GetMapping("/{elementId}/familytree")
-    @Operation(summary = "Get Family tree of a person by elementId")
-    public FlowGraphDTO getFamilyTree(
+    @Operation(summary = "Get Family tree of a person by elementId", description = "Returns 304 Not Modified when If-None-Match matches the tree's current version.")
+    public ResponseEntity<FlowGraphDTO> getFamilyTree(
             @Parameter(description = "Tree Id of a tree", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:45")
             @PathVariable String treeId,
             @Parameter(description = "ElementId of the person to retrieve family tree of person", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:45")
             @PathVariable String elementId,
             @Parameter(description = "isImmediate to fetch only immediate family", required = true, example = "true") @RequestParam("isImmediate") boolean isImmediate,
+            WebRequest webRequest,
             HttpSession session) {
         try {
             commonUtils.accessCheck(treeId, new Role[]{Role.VIEWER, Role.ADMIN, Role.EDITOR});
+            String eTag = treeVersionService.eTag(treeId);
+            if (webRequest.checkNotModified(eTag)) {
+                log.info("Family tree for Person {} not modified since {}", elementId, eTag);
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
             log.info("Requesting family tree for Person {} and is immediate {}", elementId, isImmediate);
-            return graphService.getFamilyTree(elementId, isImmediate);
+            return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(graphService.getFamilyTree(treeId, elementId, isImmediate));
         }catch (Exception e) {
             log.error("GraphController: Failed to fetch graph for treeId {} and root {} with :{}", treeId, elementId, e.getMessage(), e); // Log full stack trace
             // Consider a more specific exception if possible, or a generic internal server error.
@@ -75,10 +150,88 @@ public class GraphController {
         }
     }
 
+    @PreAuthorize("hasRole('EDITOR') or hasRole('ADMIN') or hasRole('VIEWER')")
+    @GetMapping("/{elementId}/ancestors")
+    @Operation(summary = "Get ancestors of a person by elementId", description = "Parents, grandparents and further generations up to depth, with their spouses and houses. Returns 304 Not Modified when If-None-Match matches the tree's current version.")
+    public ResponseEntity<FlowGraphDTO> getAncestors(
+            @Parameter(description = "Tree Id of a tree", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:45")
+            @PathVariable String treeId,
+            @Parameter(description = "ElementId of the person to retrieve ancestors of", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:45")
+            @PathVariable String elementId,
+            @Parameter(description = "Number of generations to go up", example = "5") @RequestParam(value = "depth", defaultValue = "5") int depth,
+            WebRequest webRequest) {
+        if (depth < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "depth must be at least 1");
+        }
+        try {
+            commonUtils.accessCheck(treeId, new Role[]{Role.VIEWER, Role.ADMIN, Role.EDITOR});
+            String eTag = treeVersionService.eTag(treeId);
+            if (webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            log.info("Requesting ancestors for Person {} up to depth {}", elementId, depth);
+            return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(graphService.getAncestors(treeId, elementId, depth));
+        } catch (Exception e) {
+            log.error("GraphController: Failed to fetch ancestors for treeId {} and person {} with :{}", treeId, elementId, e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error fetching ancestors: " + e.getMessage(), e);
+        }
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream full graph as NDJSON", description = "Selected with Accept: application/x-ndjson. Writes one {\"node\":...} or {\"edge\":...} object per line as records arrive from the database.")
+    public ResponseEntity<StreamingResponseBody> streamGraph(
+            @Parameter(description = "Tree Id of a tree", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:45")
+            @PathVariable String treeId,
+            WebRequest webRequest) {
+        try {
+            commonUtils.accessCheck(treeId, new Role[]{Role.VIEWER, Role.ADMIN, Role.EDITOR});
+            String eTag = treeVersionService.eTag(treeId, "ndjson");
+            if (webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            log.info("GraphController: Streaming the complete graph of tree {}", treeId);
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache())
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(out -> graphService.streamGraph(treeId, new NdjsonGraphWriter(out, objectMapper)));
+        } catch (Exception e) {
+            log.error("Failed to stream full graph", e);  // log stack trace
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error generating graph", e);
+        }
+    }
+
+    @GetMapping(value = "/{elementId}/familytree", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream Family tree of a person as NDJSON", description = "Selected with Accept: application/x-ndjson. Same line format as the streamed full graph.")
+    public ResponseEntity<StreamingResponseBody> streamFamilyTree(
+            @Parameter(description = "Tree Id of a tree", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:45")
+            @PathVariable String treeId,
+            @Parameter(description = "ElementId of the person to retrieve family tree of person", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:45")
+            @PathVariable String elementId,
+            @Parameter(description = "isImmediate to fetch only immediate family", required = true, example = "true") @RequestParam("isImmediate") boolean isImmediate,
+            WebRequest webRequest) {
+        try {
+            commonUtils.accessCheck(treeId, new Role[]{Role.VIEWER, Role.ADMIN, Role.EDITOR});
+            String eTag = treeVersionService.eTag(treeId, "ndjson");
+            if (webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            log.info("Streaming family tree for Person {} and is immediate {}", elementId, isImmediate);
+            return ResponseEntity.ok()
+                    .eTag(eTag)
+                    .cacheControl(CacheControl.noCache())
+                    .contentType(MediaType.APPLICATION_NDJSON)
+                    .body(out -> graphService.streamFamilyTree(elementId, isImmediate, new NdjsonGraphWriter(out, objectMapper)));
+        } catch (Exception e) {
+            log.error("GraphController: Failed to stream graph for treeId {} and root {} with :{}", treeId, elementId, e.getMessage(), e);
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error fetching familytree: " + e.getMessage(), e);
+        }
+    }
+
     @PostMapping
     @PreAuthorize("hasAnyRole('EDITOR', 'ADMIN')") // Ensure roles are checked correctly based on SecurityConfig
-    @Operation(summary = "Update graph", description = "Applies changes (add, update, delete) to the graph for a given tree.")
-    public ResponseEntity<Void> updateGraph(
+    @Operation(summary = "Update graph", description = "Applies changes (add, update, delete) to the graph for a given tree and returns the dummy-to-actual id mapping of created nodes and edges.")
+    public ResponseEntity<GraphDiffResultDTO> updateGraph(
             @Parameter(description = "Tree Id of a tree", required = true) @PathVariable String treeId,
             @RequestBody GraphDiffDTO diff,
             HttpSession session) { // HttpSession might still be needed if commonUtils.accessCheck uses it implicitly,
@@ -95,9 +248,9 @@ public class GraphController {
         log.info("GraphController: Received request to update graph for treeId: {}", treeId);
         try {
             commonUtils.accessCheck(treeId, new Role[]{Role.EDITOR, Role.ADMIN});
-            graphService.updateGraph(treeId, diff);
+            GraphDiffResultDTO result = graphService.updateGraph(treeId, diff);
             log.info("GraphController: Graph update successful for treeId: {}", treeId);
-            return ResponseEntity.ok().build();
+            return ResponseEntity.ok(result);
         } catch (IllegalArgumentException e) {
             log.error("GraphController: Invalid arguments for graph update for treeId {}: {}", treeId, e.getMessage());
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage(), e);
@@ -107,4 +260,41 @@ public class GraphController {
             throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error updating graph: " + e.getMessage(), e);
         }
     }
+
+    // Writes each record as one JSON line and flushes periodically so the client can render progressively
+    private static class NdjsonGraphWriter implements GraphRecordSink {
+        private static final int FLUSH_EVERY = 256;
+
+        private final OutputStream out;
+        private final ObjectMapper objectMapper;
+        private int pending = 0;
+
+        NdjsonGraphWriter(OutputStream out, ObjectMapper objectMapper) {
+            this.out = out;
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public void node(FlowNodeDTO node) {
+            write(Map.of("node", node));
+        }
+
+        @Override
+        public void edge(FlowEdgeDTO edge) {
+            write(Map.of("edge", edge));
+        }
+
+        private void write(Map<String, Object> line) {
+            try {
+                out.write(objectMapper.writeValueAsBytes(line));
+                out.write('\n');
+                if (++pending >= FLUSH_EVERY) {
+                    out.flush();
+                    pending = 0;
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
 }
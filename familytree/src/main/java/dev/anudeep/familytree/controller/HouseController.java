@@ -4,6 +4,7 @@ import dev.anudeep.familytree.controller.common.CommonUtils;
 import dev.anudeep.familytree.model.House;
 import dev.anudeep.familytree.model.Role;
 import dev.anudeep.familytree.service.HouseService;
+import dev.anudeep.familytree.service.TreeVersionService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -20,10 +21,12 @@ public class HouseController {
 
     private final HouseService houseService;
     private final CommonUtils commonUtils;
+    private final TreeVersionService treeVersionService;
 
-    public HouseController(HouseService houseService, CommonUtils commonUtils) {
+    public HouseController(HouseService houseService, CommonUtils commonUtils, TreeVersionService treeVersionService) {
         this.houseService = houseService;
         this.commonUtils = commonUtils;
+        this.treeVersionService = treeVersionService;
     }
 
     @GetMapping("/{elementId}")
@@ -46,7 +49,9 @@ public class HouseController {
                              @PathVariable String treeId, @RequestBody House house, HttpSession session) {
         commonUtils.accessCheck(treeId, new Role[]{Role.EDITOR, Role.ADMIN});
         log.info("HouseController: Creating house {}", house);
-        return houseService.createHouse(house);
+        House created = houseService.createHouse(house);
+        treeVersionService.bumpVersion(treeId);
+        return created;
     }
 
 
@@ -1,8 +1,10 @@
 package dev.anudeep.familytree.controller;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.anudeep.familytree.controller.common.CommonUtils;
 import dev.anudeep.familytree.model.Notification;
 import dev.anudeep.familytree.service.NotificationManagementService;
+import dev.anudeep.familytree.utils.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.ResponseEntity;
@@ -11,6 +13,7 @@ import org.springframework.web.bind.annotation.*;
 
 import java.security.Principal;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/notifications")
@@ -19,13 +22,28 @@ import java.util.List;
 public class NotificationController {
 
     private final NotificationManagementService notificationManagementService;
+    private final CommonUtils commonUtils;
 
+    // Without cursor and limit the whole history is returned as before; with either, one newest-first page
     @GetMapping
-    public ResponseEntity<?> getAllNotificationsForUser(Principal principal) {
+    public ResponseEntity<?> getAllNotificationsForUser(Principal principal,
+                                                        @RequestParam(required = false) String cursor,
+                                                        @RequestParam(required = false) Integer limit) {
         if (principal == null || principal.getName() == null) {
             return ResponseEntity.status(401).body("User not authenticated.");
         }
         String userElementId = principal.getName();
+        if (cursor != null || limit != null) {
+            log.info("Request received to fetch a page of notifications for user {}", userElementId);
+            PageCursor after;
+            try {
+                after = NotificationManagementService.decodePageCursor(cursor);
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest().body("Invalid cursor.");
+            }
+            return ResponseEntity.ok(notificationManagementService.getNotificationsPageForUser(
+                    userElementId, after, commonUtils.pageSize(limit)));
+        }
         log.info("Request received to fetch all notifications for user {}", userElementId);
         try {
             List<Notification> notifications = notificationManagementService.getNotificationsForUser(userElementId);
@@ -45,6 +63,20 @@ public class NotificationController {
         }
     }
 
+    @GetMapping("/unread-count")
+    public ResponseEntity<?> getUnreadCount(Principal principal) {
+        if (principal == null || principal.getName() == null) {
+            return ResponseEntity.status(401).body("User not authenticated.");
+        }
+        String userElementId = principal.getName();
+        try {
+            return ResponseEntity.ok(Map.of("unreadCount", notificationManagementService.getUnreadCountForUser(userElementId)));
+        } catch (Exception e) {
+            log.error("Error fetching unread notification count for user {}: {}", userElementId, e.getMessage(), e);
+            return ResponseEntity.status(500).body("Error processing request.");
+        }
+    }
+
     @PostMapping("/{eventId}/read")
     public ResponseEntity<?> markNotificationAsRead(@PathVariable String eventId, Principal principal) {
         if (principal == null || principal.getName() == null) {
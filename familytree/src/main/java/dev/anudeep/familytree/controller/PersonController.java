@@ -1,11 +1,13 @@
 package dev.anudeep.familytree.controller;
 
 import dev.anudeep.familytree.controller.common.CommonUtils;
+import dev.anudeep.familytree.dto.RelationPathDTO;
 import dev.anudeep.familytree.model.House;
 import dev.anudeep.familytree.model.Person;
 import dev.anudeep.familytree.model.Role;
 import dev.anudeep.familytree.service.HouseService;
 import dev.anudeep.familytree.service.PersonService;
+import dev.anudeep.familytree.service.RelationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -26,11 +28,13 @@ public class PersonController {
     private final PersonService personService;
     private final HouseService houseService;
     private final CommonUtils commonUtils;
+    private final RelationService relationService;
 
-    public PersonController(PersonService personService, HouseService houseService, CommonUtils commonUtils) {
+    public PersonController(PersonService personService, HouseService houseService, CommonUtils commonUtils, RelationService relationService) {
         this.personService = personService;
         this.houseService = houseService;
         this.commonUtils = commonUtils;
+        this.relationService = relationService;
     }
 
     @GetMapping("/{elementId}")
@@ -68,7 +72,7 @@ public class PersonController {
             HttpSession session) {
         commonUtils.accessCheck(treeId, new Role[]{Role.VIEWER, Role.ADMIN, Role.EDITOR});
         log.info("PersonController: Fetching partners of a person with elementId {}", elementId);
-        return personService.getPartners(elementId);
+        return personService.getPartners(treeId, elementId);
     }
 
     @GetMapping("/{elementId}/children")
@@ -81,7 +85,7 @@ public class PersonController {
             HttpSession session) {
         commonUtils.accessCheck(treeId, new Role[]{Role.VIEWER, Role.ADMIN, Role.EDITOR});
         log.info("PersonController: Fetching children of a person with elementId {}", elementId);
-        return personService.getChildren(elementId);
+        return personService.getChildren(treeId, elementId);
     }
 
     @GetMapping("/{elementId}/siblings")
@@ -93,7 +97,7 @@ public class PersonController {
             @PathVariable String elementId, HttpSession session) {
         commonUtils.accessCheck(treeId, new Role[]{Role.VIEWER, Role.ADMIN, Role.EDITOR});
         log.info("PersonController: Fetching siblings of a person with elementId {}", elementId);
-        return personService.getSiblings(elementId);
+        return personService.getSiblings(treeId, elementId);
     }
 
     @GetMapping("/{elementId}/house")
@@ -109,4 +113,19 @@ public class PersonController {
         return houseService.getHouse(elementId);
     }
 
+    @GetMapping("/{elementId}/relation/{otherElementId}")
+    @Operation(summary = "Get how another person is related to this person", description = "Shortest path over parent and marriage relationships, with a kinship label describing the other person relative to this one.")
+    public RelationPathDTO getRelation(
+            @Parameter(description = "Tree Id of a tree", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:45")
+            @PathVariable String treeId,
+            @Parameter(description = "elementId of the person the relation is described from", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:45")
+            @PathVariable String elementId,
+            @Parameter(description = "elementId of the other person", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:46")
+            @PathVariable String otherElementId,
+            HttpSession session) {
+        commonUtils.accessCheck(treeId, new Role[]{Role.VIEWER, Role.ADMIN, Role.EDITOR});
+        log.info("PersonController: Finding relation between {} and {}", elementId, otherElementId);
+        return relationService.findRelation(treeId, elementId, otherElementId);
+    }
+
 }
@@ -2,21 +2,29 @@ package dev.anudeep.familytree.controller;
 
 import dev.anudeep.familytree.controller.common.CommonUtils;
 import dev.anudeep.familytree.dto.DeleteMultipleTreesRequestDto;
+import dev.anudeep.familytree.dto.PageDTO;
 import dev.anudeep.familytree.dto.RelationChangeSummary;
 import dev.anudeep.familytree.dto.RoleAssignmentRequest;
+import dev.anudeep.familytree.dto.TreeDeletionResultDTO;
+import dev.anudeep.familytree.dto.TreeFacetsDTO;
+import dev.anudeep.familytree.infrastructure.adapter.auth.CachingAuthProviderAdapter;
 import dev.anudeep.familytree.model.Role;
 import dev.anudeep.familytree.model.Tree;
 import dev.anudeep.familytree.model.User;
+import dev.anudeep.familytree.service.FacetService;
+import dev.anudeep.familytree.service.GraphSnapshotCache;
+import dev.anudeep.familytree.service.TreeVersionService;
 import dev.anudeep.familytree.service.UserTreeService;
 import dev.anudeep.familytree.utils.Constants;
-import dev.anudeep.familytree.utils.DateTimeUtil;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.HashMap;
@@ -32,11 +40,20 @@ import java.util.Optional;
 public class TreeController {
     private final UserTreeService userTreeService;
     private final CommonUtils commonUtils;
+    private final FacetService facetService;
+    private final TreeVersionService treeVersionService;
+    private final GraphSnapshotCache graphSnapshotCache;
+    private final CachingAuthProviderAdapter authProvider;
     // If CommonUtils needs UserService (Scenario 1), inject it here and pass to CommonUtils constructor
 
-    public TreeController(UserTreeService userTreeService, CommonUtils commonUtils) {
+    public TreeController(UserTreeService userTreeService, CommonUtils commonUtils, FacetService facetService, TreeVersionService treeVersionService,
+                          GraphSnapshotCache graphSnapshotCache, CachingAuthProviderAdapter authProvider) {
         this.userTreeService = userTreeService;
         this.commonUtils = commonUtils;
+        this.facetService = facetService;
+        this.treeVersionService = treeVersionService;
+        this.graphSnapshotCache = graphSnapshotCache;
+        this.authProvider = authProvider;
     }
 
     @GetMapping("/{elementId}")
@@ -64,38 +81,65 @@ public class TreeController {
         }
     }
 
+    @GetMapping("/{treeId}/facets")
+    @Operation(summary = "Get filter panel facets of a tree", description = "Values and person counts for gender, house, job type, location, qualification, field of study and alive status. Returns 304 Not Modified when If-None-Match matches the tree's current version.")
+    public ResponseEntity<TreeFacetsDTO> getFacets(@Parameter(description = "elementId of the tree", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:72")
+                                                   @PathVariable String treeId,
+                                                   WebRequest webRequest) {
+        commonUtils.accessCheck(treeId, new Role[]{Role.VIEWER, Role.ADMIN, Role.EDITOR});
+        try {
+            String eTag = treeVersionService.eTag(treeId, "facets");
+            if (webRequest.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+            log.info("TreeController: get facets of tree {}", treeId);
+            return ResponseEntity.ok().eTag(eTag).cacheControl(CacheControl.noCache()).body(facetService.getFacets(treeId));
+        } catch (Exception e) {
+            log.error("Failed to fetch facets", e);  // log stack trace
+            throw new ResponseStatusException(HttpStatus.INTERNAL_SERVER_ERROR, "Error getting facets: " + e.getMessage(), e);
+        }
+    }
+
+    @GetMapping("/graph-cache/stats")
+    @Operation(summary = "Get graph snapshot cache statistics of this backend instance", description = "Local and redis hits, misses, evictions, hit ratio and the size of the local tier.")
+    public Map<String, Long> getGraphCacheStats() {
+        return graphSnapshotCache.stats();
+    }
+
+    @GetMapping("/token-cache/stats")
+    @Operation(summary = "Get verified token cache statistics of this backend instance", description = "Hits, misses, hit ratio and the number of cached tokens.")
+    public Map<String, Long> getTokenCacheStats() {
+        return authProvider.stats();
+    }
+
     @GetMapping("/")
     public ResponseEntity<?> getTrees() { // HttpSession removed
         log.info("TreeController: get trees");
         User currentUser = commonUtils.getCurrentAuthenticatedUser(); // Get the authenticated user
         log.info("TreeController: access check passed for user: {}", currentUser.getEmail());
-        List<Tree> allTrees = userTreeService.getAllTreesForUser(currentUser.getElementId());
-        allTrees.forEach((tree) -> {
-            tree.setAccess(Constants.getRoleForRel(tree.getAccess()));
-            tree.setCreatedAt(DateTimeUtil.readableDate(tree.getCreatedAt()));
-            Optional<User> creator = userTreeService.getUserByElementId(tree.getCreatedBy());
-            creator.ifPresent(user -> tree.setCreatedBy(String.format("%s (%s)", user.getName(), user.getEmail())));
-            log.info("Tree  {}", tree);
-        });
+        List<Tree> allTrees = userTreeService.getTreeListForUser(currentUser.getElementId());
         return ResponseEntity.ok().body(allTrees);
     }
 
+    @GetMapping("/page")
+    @Operation(summary = "Get a page of the user's trees", description = "Trees ordered by name, optionally filtered by a name prefix. Pass the returned nextCursor to get the following page.")
+    public PageDTO<Tree> getTreesPage(@Parameter(description = "Tree name prefix") @RequestParam(required = false) String q,
+                                      @Parameter(description = "nextCursor of the previous page") @RequestParam(required = false) String cursor,
+                                      @Parameter(description = "Page size, capped by the server") @RequestParam(required = false) Integer limit) {
+        log.info("TreeController: get trees page");
+        String currentUserId = commonUtils.getCurrentUserElementId();
+        return userTreeService.getTreesPageForUser(currentUserId, q, commonUtils.pageCursor(cursor), commonUtils.pageSize(limit));
+    }
+
     @PostMapping("/create")
     @Operation(summary = "Create a new tree")
     public ResponseEntity<?> createTree(@RequestBody Tree tree) { // HttpSession removed
         User currentUser = commonUtils.getCurrentAuthenticatedUser(); // Get the authenticated user
         // commonUtils.accessCheck(null, new Role[]{Role.ADMIN, Role.EDITOR}); // Example: if creating trees needs a general role
 
-        if (tree.getCreatedBy() == null) {
-            tree.setCreatedBy(currentUser.getElementId());
-        }
         log.info("TreeController: User {} is creating tree {}", currentUser.getEmail(), tree);
-        userTreeService.createTree(tree);
-        Tree newTree = userTreeService.getTreeByDetails(tree.getName(), DateTimeUtil.toIsoUtcString(tree.getCreatedAt()), currentUser.getElementId());
-        log.info("TreeController: created tree {}", newTree);
-        log.info("TreeController: creating {} relation between userId {} and treeId {}", Constants.ADMIN_REL, currentUser.getElementId(), newTree.getElementId());
-        userTreeService.createRelationship(currentUser.getElementId(), newTree.getElementId(), Constants.ADMIN_REL);
-        log.info("TreeController: relation created");
+        Tree newTree = userTreeService.createTree(tree, currentUser.getElementId());
+        log.info("TreeController: created tree {} with {} relation for userId {}", newTree.getElementId(), Constants.ADMIN_REL, currentUser.getElementId());
         return ResponseEntity.ok().body(newTree);
     }
 
@@ -107,8 +151,9 @@ public class TreeController {
         commonUtils.accessCheck(elementId, new Role[]{Role.ADMIN}); // Example: if creating trees needs a general role
         log.info("TreeController: Users count {} adding to tree {}", users.size(), elementId);
         users.forEach((user) -> {
-            userTreeService.createRelationship(user.getElementId(), elementId, Constants.getRelForRole(user.getRole()));
+            user.setRelation(Constants.getRelForRole(user.getRole()));
         });
+        userTreeService.grantAccess(elementId, users);
         return ResponseEntity.ok().body("success");
     }
 
@@ -153,15 +198,15 @@ public class TreeController {
     }
 
     @PostMapping("/delete-multiple")
-    @Operation(summary = "Delete multiple trees by their elementIds")
-    public ResponseEntity<Void> deleteMultipleTrees(
+    @Operation(summary = "Delete multiple trees by their elementIds", description = "Returns the outcome for each requested elementId")
+    public ResponseEntity<List<TreeDeletionResultDTO>> deleteMultipleTrees(
             @Parameter(description = "List of tree elementIds to delete", required = true)
             @RequestBody DeleteMultipleTreesRequestDto request) {
         log.info("TreeController: Request to delete multiple trees. Count: {}", request.getIds() != null ? request.getIds().size() : 0);
         User currentUser = commonUtils.getCurrentAuthenticatedUser();
         // No generic accessCheck here as permissions are per-tree and handled in service
-        userTreeService.deleteMultipleTrees(request.getIds(), currentUser);
+        List<TreeDeletionResultDTO> results = userTreeService.deleteMultipleTrees(request.getIds(), currentUser);
         log.info("TreeController: Multiple trees deletion process completed for user: {}", currentUser.getEmail());
-        return ResponseEntity.ok().build(); // Or return a body with summary if service provides it
+        return ResponseEntity.ok().body(results);
     }
 }
\ No newline at end of file
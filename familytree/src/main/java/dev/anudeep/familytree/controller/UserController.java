@@ -1,10 +1,12 @@
 package dev.anudeep.familytree.controller;
 
 import dev.anudeep.familytree.controller.common.CommonUtils;
+import dev.anudeep.familytree.dto.PageDTO;
 import dev.anudeep.familytree.model.Role;
 import dev.anudeep.familytree.model.User;
 import dev.anudeep.familytree.service.UserTreeService;
 import dev.anudeep.familytree.utils.Constants;
+import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.extern.slf4j.Slf4j;
@@ -36,6 +38,33 @@ public class UserController {
         return userTreeService.getUsers();
     }
 
+    @GetMapping("/page")
+    @Operation(summary = "Get a page of users", description = "Users ordered by name, optionally filtered by a name or email prefix. Pass the returned nextCursor to get the following page.")
+    public PageDTO<User> getUsersPage(@Parameter(description = "Name or email prefix") @RequestParam(required = false) String q,
+                                      @Parameter(description = "nextCursor of the previous page") @RequestParam(required = false) String cursor,
+                                      @Parameter(description = "Page size, capped by the server") @RequestParam(required = false) Integer limit) {
+        log.info("UserController: get users page");
+        commonUtils.accessCheck(null, null); // Perform basic authentication check via commonUtils
+        return userTreeService.getUsersPage(q, commonUtils.pageCursor(cursor), commonUtils.pageSize(limit));
+    }
+
+    @GetMapping("/{treeId}/page")
+    @Operation(summary = "Get a page of users with their access to a tree", description = "Same paging as /page, with each user's role on the tree.")
+    public PageDTO<User> getUsersAccessWithTreePage(@Parameter(description = "elementId of the tree", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:72")
+                                                    @PathVariable String treeId,
+                                                    @Parameter(description = "Name or email prefix") @RequestParam(required = false) String q,
+                                                    @Parameter(description = "nextCursor of the previous page") @RequestParam(required = false) String cursor,
+                                                    @Parameter(description = "Page size, capped by the server") @RequestParam(required = false) Integer limit) {
+        log.info("UserController: get users page including access");
+        try {
+            commonUtils.accessCheck(treeId, new Role[]{Role.VIEWER, Role.ADMIN, Role.EDITOR});
+        } catch (Exception e) {
+            log.error("Don't have access", e);  // log stack trace
+            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "Access denied – you currently don’t have access to this tree.", e);
+        }
+        return userTreeService.getUsersAccessWithTreePage(treeId, q, commonUtils.pageCursor(cursor), commonUtils.pageSize(limit));
+    }
+
     @GetMapping("/{treeId}")
     public List<User> getUsersAccessWithTree(@Parameter(description = "elementId of the tree", required = true, example = "4:12979c35-eb38-4bad-b707-8478b11ae98e:72")
                                              @PathVariable String treeId) { // HttpSession removed
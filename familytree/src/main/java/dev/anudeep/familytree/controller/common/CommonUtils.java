@@ -2,35 +2,95 @@ package dev.anudeep.familytree.controller.common;
 
 import dev.anudeep.familytree.model.Role;
 import dev.anudeep.familytree.model.User;
+import dev.anudeep.familytree.service.TreeRoleCache;
 import dev.anudeep.familytree.service.UserTreeService;
+import dev.anudeep.familytree.utils.PageCursor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
 import org.springframework.web.server.ResponseStatusException;
 
 import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
 import java.util.Optional;
 import java.util.function.Predicate;
 
 @Slf4j
 @Component
 public class CommonUtils {
+    private static final String REQUEST_USER = CommonUtils.class.getName() + ".user";
+    private static final String REQUEST_ROLES = CommonUtils.class.getName() + ".roles";
+
     private final UserTreeService userTreeService;
+    private final TreeRoleCache treeRoleCache;
+    private final int defaultPageSize;
+    private final int maxPageSize;
 
     // Constructor: Inject UserTreeService (and other services if needed here)
-    public CommonUtils(UserTreeService userTreeService) {
+    public CommonUtils(UserTreeService userTreeService, TreeRoleCache treeRoleCache,
+                       @Value("${pagination.default-page-size:50}") int defaultPageSize,
+                       @Value("${pagination.max-page-size:100}") int maxPageSize) {
         this.userTreeService = userTreeService;
+        this.treeRoleCache = treeRoleCache;
+        this.defaultPageSize = defaultPageSize;
+        this.maxPageSize = maxPageSize;
+    }
+
+    /**
+     * Page size to use for a requested limit: the default when absent, capped at the maximum.
+     */
+    public int pageSize(Integer limit) {
+        if (limit == null) {
+            return defaultPageSize;
+        }
+        if (limit < 1) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "limit must be at least 1");
+        }
+        return Math.min(limit, maxPageSize);
+    }
+
+    /**
+     * Decodes the cursor of a page request, 400 Bad Request when it was not issued by the server.
+     */
+    public PageCursor pageCursor(String cursor) {
+        try {
+            return PageCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Invalid cursor", e);
+        }
     }
 
     /**
      * Retrieves the currently authenticated custom User object from Spring Security's context.
      * Throws ResponseStatusException if not authenticated or principal is not the expected User type.
+     * The user is loaded once per request.
      *
      * @return The authenticated User object.
      */
     public User getCurrentAuthenticatedUser() {
+        String userId = getCurrentUserElementId();
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request != null && request.getAttribute(REQUEST_USER, RequestAttributes.SCOPE_REQUEST) instanceof User user
+                && userId.equals(user.getElementId())) {
+            return user;
+        }
+        Optional<User> user = userTreeService.getUserByElementId(userId);
+        if (request != null && user.isPresent()) {
+            request.setAttribute(REQUEST_USER, user.get(), RequestAttributes.SCOPE_REQUEST);
+        }
+        return user.orElse(null);
+    }
+
+    /**
+     * ElementId of the authenticated user, the principal set by the authentication filter.
+     */
+    public String getCurrentUserElementId() {
         Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
         // Check if authentication is null, not authenticated, or principal is anonymousUser string
@@ -38,29 +98,42 @@ public class CommonUtils {
                 (authentication.getPrincipal() instanceof String && "anonymousUser".equals(authentication.getPrincipal()))) {
             throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User not authenticated or session expired");
         }
-        String userId = (String) authentication.getPrincipal();
-        Optional<User> user = userTreeService.getUserByElementId(userId);
-        return user.orElse(null);
+        return (String) authentication.getPrincipal();
+    }
+
+    /**
+     * Role of the user on the tree, memoized for the current request and cached across requests by {@link TreeRoleCache}.
+     */
+    public Optional<Role> getTreeRole(String userElementId, String treeId) {
+        RequestAttributes request = RequestContextHolder.getRequestAttributes();
+        if (request == null) {
+            return treeRoleCache.get(userElementId, treeId, () -> userTreeService.getRelationshipType(userElementId, treeId));
+        }
+        @SuppressWarnings("unchecked")
+        Map<String, Optional<Role>> roles = (Map<String, Optional<Role>>) request.getAttribute(REQUEST_ROLES, RequestAttributes.SCOPE_REQUEST);
+        if (roles == null) {
+            roles = new HashMap<>();
+            request.setAttribute(REQUEST_ROLES, roles, RequestAttributes.SCOPE_REQUEST);
+        }
+        return roles.computeIfAbsent(userElementId + "|" + treeId,
+                key -> treeRoleCache.get(userElementId, treeId, () -> userTreeService.getRelationshipType(userElementId, treeId)));
     }
 
     /**
      * Performs access checks. If treeId and rolesCheck are provided, it verifies tree-specific roles.
-     * Relies on getCurrentAuthenticatedUser() to ensure user is authenticated.
+     * The user is taken from the security principal and the role from {@link #getTreeRole}, so a repeated or
+     * recent check costs no database round trip.
      *
      * @param treeId     The ID of the tree to check against (can be null if not a tree-specific check).
      * @param rolesCheck An array of Roles required for the operation (can be null).
      */
     public void accessCheck(String treeId, Role[] rolesCheck) { // HttpSession parameter removed
-        User currentUser = getCurrentAuthenticatedUser(); // Get user from SecurityContext
-        log.info("accessCheck: currentUser {}, tree {}, roles {}", currentUser, treeId, rolesCheck);
-        // You might want to add a check here if currentUser itself is null, though getCurrentAuthenticatedUser should throw first.
-        if (currentUser.getElementId() == null) { // Or any other essential check on your User object
-            throw new ResponseStatusException(HttpStatus.UNAUTHORIZED, "User details are incomplete or invalid");
-        }
+        String currentUserId = getCurrentUserElementId(); // Get user from SecurityContext
+        log.info("accessCheck: currentUser {}, tree {}, roles {}", currentUserId, treeId, rolesCheck);
 
         // Tree-specific role check
         if (treeId != null && rolesCheck != null && rolesCheck.length > 0) {
-            Role treeRole = userTreeService.getRelationshipType(currentUser.getElementId(), treeId)
+            Role treeRole = getTreeRole(currentUserId, treeId)
                     .orElseThrow(() -> new ResponseStatusException(HttpStatus.FORBIDDEN, "User does not have a defined role for this tree or tree not found."));
             log.info("treeRole: {}", treeRole);
             Predicate<Role> isRoleMatch = requiredRole -> requiredRole == treeRole;
@@ -15,4 +15,5 @@ public class AuthenticatedUserClaims {
     private String picture;
     private String uid;
     private String provider;
+    private Long expiresAt; // Token expiry in epoch seconds, null when unknown
 }
@@ -17,4 +17,11 @@ public interface AuthProviderPort {
      * @return provider name
      */
     String getProviderName();
+
+    /**
+     * Fetches the provider's current token signing keys ahead of time so verification never waits on it.
+     * Providers whose SDK manages its keys internally keep the default no-op.
+     */
+    default void refreshSigningKeys() throws Exception {
+    }
 }
@@ -0,0 +1,16 @@
+package dev.anudeep.familytree.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class GraphDiffResultDTO {
+    private Map<String, String> nodeIdMap = new HashMap<>(); // dummy node id -> persisted elementId
+    private Map<String, String> edgeIdMap = new HashMap<>(); // dummy edge id -> persisted elementId
+}
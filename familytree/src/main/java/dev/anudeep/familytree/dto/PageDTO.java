@@ -0,0 +1,18 @@
+package dev.anudeep.familytree.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "One page of a keyset-paginated list")
+public class PageDTO<T> {
+    private List<T> items;
+    @Schema(description = "Opaque cursor of the next page, null on the last page")
+    private String nextCursor;
+}
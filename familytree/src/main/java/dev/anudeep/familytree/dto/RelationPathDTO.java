@@ -0,0 +1,19 @@
+package dev.anudeep.familytree.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Schema(description = "Shortest kinship path between two persons, nodes and edges in path order")
+@NoArgsConstructor
+@AllArgsConstructor
+public class RelationPathDTO {
+    private String relation; // The second person described relative to the first, e.g. "first cousin"
+    private int hops;
+    private List<FlowNodeDTO> nodes;
+    private List<FlowEdgeDTO> edges;
+}
@@ -0,0 +1,18 @@
+package dev.anudeep.familytree.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Outcome of deleting one tree of a bulk delete request")
+public class TreeDeletionResultDTO {
+    public enum Status {DELETED, NOT_FOUND, ACCESS_DENIED}
+
+    private String elementId;
+    private String treeName; // null when the tree was not found
+    private Status status;
+}
@@ -0,0 +1,28 @@
+package dev.anudeep.familytree.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Schema(description = "Values and person counts for each filter panel facet of a tree")
+public class TreeFacetsDTO {
+    private long version;
+    private int persons;
+    private Map<String, List<FacetValue>> facets;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class FacetValue {
+        private String value;
+        private String label;
+        private int count;
+    }
+}
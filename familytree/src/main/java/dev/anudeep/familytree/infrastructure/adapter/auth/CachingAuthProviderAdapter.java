@@ -0,0 +1,120 @@
+package dev.anudeep.familytree.infrastructure.adapter.auth;
+
+import dev.anudeep.familytree.domain.model.AuthenticatedUserClaims;
+import dev.anudeep.familytree.domain.port.out.AuthProviderPort;
+import lombok.extern.slf4j.Slf4j;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Decorator caching the claims of verified tokens, keyed by the SHA-256 of the raw token and kept until the token
+ * expires. Tokens without a known expiry are not cached and failed verifications are never cached. The cache is an
+ * LRU bounded by entry count. The delegate's signing keys are refreshed on a background thread so a verification
+ * never waits for a key download.
+ */
+@Slf4j
+public class CachingAuthProviderAdapter implements AuthProviderPort, AutoCloseable {
+
+    private final AuthProviderPort delegate;
+    private final Map<String, Entry> verified;
+    private final ScheduledExecutorService keyRefresher;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    public CachingAuthProviderAdapter(AuthProviderPort delegate, int maxEntries, long keyRefreshMinutes) {
+        this.delegate = delegate;
+        this.verified = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        this.keyRefresher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "auth-key-refresh");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.keyRefresher.scheduleWithFixedDelay(this::refreshKeys, 0, keyRefreshMinutes, TimeUnit.MINUTES);
+    }
+
+    @Override
+    public AuthenticatedUserClaims verifyToken(String idToken) {
+        String key = hash(idToken);
+        long now = System.currentTimeMillis();
+        synchronized (verified) {
+            Entry entry = verified.get(key);
+            if (entry != null) {
+                if (entry.expiresAtMillis() > now) {
+                    hits.increment();
+                    return entry.claims();
+                }
+                verified.remove(key);
+            }
+        }
+        misses.increment();
+        AuthenticatedUserClaims claims = delegate.verifyToken(idToken);
+        if (claims.getExpiresAt() != null && claims.getExpiresAt() * 1000 > now) {
+            synchronized (verified) {
+                verified.put(key, new Entry(claims, claims.getExpiresAt() * 1000));
+            }
+        }
+        return claims;
+    }
+
+    @Override
+    public String getProviderName() {
+        return delegate.getProviderName();
+    }
+
+    @Override
+    public void refreshSigningKeys() throws Exception {
+        delegate.refreshSigningKeys();
+    }
+
+    public Map<String, Long> stats() {
+        long total = hits.sum() + misses.sum();
+        synchronized (verified) {
+            return Map.of(
+                    "hits", hits.sum(),
+                    "misses", misses.sum(),
+                    "hitRatioPercent", total == 0 ? 0 : hits.sum() * 100 / total,
+                    "entries", (long) verified.size());
+        }
+    }
+
+    @Override
+    public void close() {
+        keyRefresher.shutdownNow();
+    }
+
+    private void refreshKeys() {
+        try {
+            delegate.refreshSigningKeys();
+            log.info("Refreshed {} signing keys. Token cache {}", delegate.getProviderName(), stats());
+        } catch (Exception e) {
+            log.warn("Failed to refresh {} signing keys: {}", delegate.getProviderName(), e.getMessage());
+        }
+    }
+
+    private static String hash(String token) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Entry(AuthenticatedUserClaims claims, long expiresAtMillis) {
+    }
+}
@@ -51,6 +51,7 @@ public class FirebaseAuthProviderAdapter implements AuthProviderPort {
                     .picture(picture)
                     .uid(uid)
                     .provider(getProviderName())
+                    .expiresAt(decodedToken.getClaims().get("exp") instanceof Number exp ? exp.longValue() : null)
                     .build();
         } catch (Exception e) {
             log.error("Failed to verify Firebase ID token: {}", e.getMessage());
@@ -56,6 +56,7 @@ public class GoogleAuthProviderAdapter implements AuthProviderPort {
                     .picture(picture)
                     .uid(uid)
                     .provider(getProviderName())
+                    .expiresAt(payload.getExpirationTimeSeconds())
                     .build();
         } catch (Exception e) {
             log.error("Failed to verify Google ID token: {}", e.getMessage());
@@ -63,6 +64,11 @@ public class GoogleAuthProviderAdapter implements AuthProviderPort {
         }
     }
 
+    @Override
+    public void refreshSigningKeys() throws Exception {
+        verifier.getPublicKeysManager().refresh();
+    }
+
     @Override
     public String getProviderName() {
         return "GOOGLE";
@@ -1,6 +1,6 @@
 package dev.anudeep.familytree.infrastructure.config;
 
-import dev.anudeep.familytree.domain.port.out.AuthProviderPort;
+import dev.anudeep.familytree.infrastructure.adapter.auth.CachingAuthProviderAdapter;
 import dev.anudeep.familytree.infrastructure.adapter.auth.FirebaseAuthProviderAdapter;
 import dev.anudeep.familytree.infrastructure.adapter.auth.GoogleAuthProviderAdapter;
 import lombok.extern.slf4j.Slf4j;
@@ -15,19 +15,24 @@ public class AuthAdapterConfig {
 
     @Bean
     @Primary
-    public AuthProviderPort activeAuthProviderPort(
+    public CachingAuthProviderAdapter activeAuthProviderPort(
             @Value("${auth.provider:FIREBASE}") String selectedProvider,
+            @Value("${auth.token-cache.max-entries:10000}") int tokenCacheMaxEntries,
+            @Value("${auth.keys.refresh-minutes:30}") long keyRefreshMinutes,
             FirebaseAuthProviderAdapter firebaseAdapter,
             GoogleAuthProviderAdapter googleAdapter) {
 
         log.info("Configuring active AuthProviderPort. Configured provider: {}", selectedProvider);
+        if (keyRefreshMinutes <= 0) {
+            throw new IllegalArgumentException("auth.keys.refresh-minutes must be a positive number of minutes, got " + keyRefreshMinutes);
+        }
 
         if ("GOOGLE".equalsIgnoreCase(selectedProvider)) {
             log.info("--> Selected GoogleAuthProviderAdapter as primary AuthProviderPort");
-            return googleAdapter;
+            return new CachingAuthProviderAdapter(googleAdapter, tokenCacheMaxEntries, keyRefreshMinutes);
         }
 
         log.info("--> Selected FirebaseAuthProviderAdapter as primary AuthProviderPort (DEFAULT)");
-        return firebaseAdapter;
+        return new CachingAuthProviderAdapter(firebaseAdapter, tokenCacheMaxEntries, keyRefreshMinutes);
     }
 }
@@ -8,6 +8,7 @@ import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @Repository
 public interface FilterRepository extends Neo4jRepository<Filter, String> {
@@ -35,6 +36,9 @@ public interface FilterRepository extends Neo4jRepository<Filter, String> {
     @Query("MATCH (f:Filter) WHERE elementId(f) = $filterId RETURN f {.*, elementId: elementId(f) } AS f")
     Map<String, Object> findFilterById(@Param("filterId") String filterId);
 
+    @Query("MATCH (f:Filter)-[:FILTER_FOR]->(t:Tree) WHERE elementId(f) = $filterId AND elementId(t) = $treeId RETURN f {.*, elementId: elementId(f) } AS f")
+    Optional<Map<String, Object>> findFilterByIdAndTreeId(@Param("filterId") String filterId, @Param("treeId") String treeId);
+
 
     @Query("MATCH (f:Filter) WHERE elementId(f) IN $filterIds DETACH DELETE f RETURN count(f) AS deletedCount")
     int deleteFilters(@Param("filterIds") List<String> filterIds);
@@ -1,65 +1,399 @@
 package dev.anudeep.familytree.repository;
 
+import dev.anudeep.familytree.dto.notification.EventType;
 import dev.anudeep.familytree.model.Notification;
 import dev.anudeep.familytree.model.NotificationStatus;
-import org.springframework.data.neo4j.repository.Neo4jRepository;
-import org.springframework.data.neo4j.repository.query.Query;
-import org.springframework.data.repository.query.Param;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
+/**
+ * Notifications stored fan-out-on-read: each event is one {@code NotificationEvent} node holding the tree, actor and
+ * message payload, and each recipient gets a {@code (:User)-[:RECEIVED {status, createdAt, updatedAt}]->} receipt.
+ * Reads join the two back into {@link Notification}. An event is deleted with its last receipt.
+ * <p>
+ * {@code Notification} nodes of the old one-node-per-recipient model are read and updated alongside the receipts
+ * until {@link #migrateLegacyNotifications} converted them; converted nodes are kept, marked {@code migratedAt}.
+ */
 @Repository
-public interface NotificationRepository extends Neo4jRepository<Notification, Long> { // Extending Neo4jRepository, Long is type of @Id field (internalId)
-
-    // Find by properties on the Node. Spring Data Neo4j can derive these.
-    // Assumes properties in Notification node are named recipientUserId, status, eventId, createdAt.
-
-    List<Notification> findByRecipientUserIdAndStatus(String recipientUserId, NotificationStatus status);
-
-    // List<Notification> findByRecipientUserIdAndStatusOrderByCreatedAtDesc(String recipientUserId, NotificationStatus status);
-    @Query("MATCH (n:Notification) WHERE n.recipientUserId = $recipientUserId AND n.status = $status " +
-            "RETURN n ORDER BY n.createdAt DESC")
-    List<Notification> findByRecipientUserIdAndStatusOrderByCreatedAtDesc(String recipientUserId, NotificationStatus status);
-
-    @Query("MATCH (n:Notification) WHERE n.recipientUserId = $recipientUserId " +
-            "RETURN n ORDER BY n.createdAt DESC")
-    List<Notification> findByRecipientUserIdOrderByCreatedAtDesc(String recipientUserId); // For fetching all notifications for a user
-
-    // Finding a single notification by recipient and eventId (logical key)
-    // Optional is generally preferred for single-result finders.
-    Optional<Notification> findByRecipientUserIdAndEventId(String recipientUserId, String eventId);
-
-    @Query("MATCH (n:Notification) WHERE n.recipientUserId = $userElementId AND n.eventId = $eventId " +
-            "SET n.status = $statusValue, n.updatedAt = $updatedAtValue")
-    void updateNotificationStatusAndTimestamp(
-            @Param("userElementId") String userElementId,
-            @Param("eventId") String eventId,
-            @Param("statusValue") String statusValue,
-            @Param("updatedAtValue") LocalDateTime updatedAtValue);
-
-    @Query("MATCH (n:Notification) WHERE n.recipientUserId = $recipientUserId AND n.status = 'UNREAD' " +
-            "SET n.status = 'READ', n.updatedAt = $now " +
-            "RETURN n.eventId")
-    List<String> updateStatusForAllUnreadNotificationsByUser(@Param("recipientUserId") String recipientUserId, @Param("now") LocalDateTime now);
-
-    @Query("MATCH (n:Notification) WHERE n.recipientUserId = $recipientUserId AND n.eventId IN $eventIds " +
-            "SET n.status = 'UNREAD', n.updatedAt = $now")
-    void markNotificationsAsUnreadBatch(@Param("recipientUserId") String recipientUserId, @Param("eventIds") List<String> eventIds, @Param("now") LocalDateTime now);
-
-    @Query("MATCH (n:Notification) WHERE n.recipientUserId = $recipientUserId AND n.status = 'READ' " +
-            "DETACH DELETE n")
-    void deleteAllReadNotificationsByUser(@Param("recipientUserId") String recipientUserId);
-
-    // Example of a custom Cypher query if needed, though the above should work by convention.
-    // @Query("MATCH (n:Notification) WHERE n.recipientUserId = $recipientUserId AND n.eventId = $eventId RETURN n")
-    // Optional<Notification> findNotificationUsingCypher(String recipientUserId, String eventId);
-
-    // For deletion, if we need to delete by logical key directly:
-    // Note: Spring Data Neo4j might not support deleteBy... directly from method name for complex cases.
-    // A custom @Query might be needed, or fetch then delete.
-    // The current service logic (fetch then delete) is fine.
-    // Long deleteByRecipientUserIdAndEventId(String recipientUserId, String eventId);
+@RequiredArgsConstructor
+public class NotificationRepository {
+
+    private static final String NOTIFICATION_FIELDS = """
+            e.eventId AS eventId, elementId(u) AS recipientUserId, e.eventType AS eventType, e.treeId AS treeId,
+            e.treeName AS treeName, e.actorUserId AS actorUserId, e.actorUserName AS actorUserName,
+            e.messagePayload AS messagePayload, r.status AS status, r.createdAt AS createdAt, r.updatedAt AS updatedAt,
+            e.renderedPayload AS renderedPayload
+            """;
+
+    private static final String LEGACY_NOTIFICATION_FIELDS = """
+            n.eventId AS eventId, n.recipientUserId AS recipientUserId, n.eventType AS eventType, n.treeId AS treeId,
+            n.treeName AS treeName, n.actorUserId AS actorUserId, n.actorUserName AS actorUserName,
+            n.messagePayload AS messagePayload, n.status AS status, n.createdAt AS createdAt, n.updatedAt AS updatedAt,
+            null AS renderedPayload
+            """;
+
+    // All notifications of $recipientUserId as rows of the fields above: receipts plus legacy nodes not migrated yet
+    private static final String INBOX = """
+            CALL {
+                MATCH (u:User)-[r:RECEIVED]->(e:NotificationEvent)
+                WHERE elementId(u) = $recipientUserId
+                RETURN %s
+                UNION ALL
+                MATCH (n:Notification)
+                WHERE n.recipientUserId = $recipientUserId AND n.migratedAt IS NULL
+                RETURN %s
+            }
+            """.formatted(NOTIFICATION_FIELDS, LEGACY_NOTIFICATION_FIELDS);
+
+    private static final String DELETE_ORPHANED_EVENTS = """
+            WITH DISTINCT e
+            WHERE NOT ()-[:RECEIVED]->(e)
+            DELETE e
+            """;
+
+    private final Neo4jClient neo4jClient;
+
+    /**
+     * Stores the event once and a receipt for every recipient in a single statement. The event fields are taken from
+     * {@code event}; its recipient and status are ignored. Returns the recipients that got a new receipt.
+     */
+    public List<String> saveForRecipients(Notification event, Collection<String> recipientUserIds, LocalDateTime now) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("recipients", recipientUserIds);
+        params.put("eventId", event.getEventId());
+        params.put("eventType", event.getEventType() != null ? event.getEventType().name() : null);
+        params.put("treeId", event.getTreeId());
+        params.put("treeName", event.getTreeName());
+        params.put("actorUserId", event.getActorUserId());
+        params.put("actorUserName", event.getActorUserName());
+        params.put("messagePayload", event.getMessagePayload());
+        params.put("renderedPayload", event.getRenderedPayload());
+        params.put("status", NotificationStatus.UNREAD.name());
+        params.put("now", now);
+        neo4jClient.query("""
+                    MERGE (e:NotificationEvent {eventId: $eventId})
+                    ON CREATE SET e.eventType = $eventType, e.treeId = $treeId, e.treeName = $treeName,
+                        e.actorUserId = $actorUserId, e.actorUserName = $actorUserName,
+                        e.messagePayload = $messagePayload, e.renderedPayload = $renderedPayload, e.createdAt = $now
+                    WITH e
+                    UNWIND $recipients AS recipientUserId
+                    MATCH (u:User) WHERE elementId(u) = recipientUserId
+                    MERGE (u)-[r:RECEIVED]->(e)
+                    ON CREATE SET r.status = $status, r.createdAt = $now, r.updatedAt = $now
+                    WITH u, r WHERE r.createdAt = $now
+                    RETURN elementId(u)
+                """)
+                .bindAll(params)
+                .fetchAs(String.class)
+                .all()
+                .stream()
+                .toList();
+    }
+
+    public List<Notification> findByRecipientUserIdAndStatus(String recipientUserId, NotificationStatus status) {
+        return findByRecipientUserIdAndStatusOrderByCreatedAtDesc(recipientUserId, status);
+    }
+
+    public List<Notification> findByRecipientUserIdAndStatusOrderByCreatedAtDesc(String recipientUserId, NotificationStatus status) {
+        return neo4jClient.query(INBOX + """
+                    WITH * WHERE status = $status
+                    RETURN *
+                    ORDER BY createdAt DESC
+                """)
+                .bindAll(Map.of("recipientUserId", recipientUserId, "status", status.name()))
+                .fetch()
+                .all()
+                .stream()
+                .map(NotificationRepository::toNotification)
+                .toList();
+    }
+
+    // For fetching all notifications for a user
+    public List<Notification> findByRecipientUserIdOrderByCreatedAtDesc(String recipientUserId) {
+        return neo4jClient.query(INBOX + """
+                    RETURN *
+                    ORDER BY createdAt DESC
+                """)
+                .bind(recipientUserId).to("recipientUserId")
+                .fetch()
+                .all()
+                .stream()
+                .map(NotificationRepository::toNotification)
+                .toList();
+    }
+
+    /**
+     * Keyset page ordered newest first by (receipt createdAt, eventId); pass nulls for the first page.
+     */
+    public List<Notification> findPageByRecipientUserId(String recipientUserId, LocalDateTime beforeCreatedAt,
+                                                        String beforeEventId, int limit) {
+        Map<String, Object> params = new HashMap<>();
+        params.put("recipientUserId", recipientUserId);
+        params.put("beforeCreatedAt", beforeCreatedAt);
+        params.put("beforeEventId", beforeEventId);
+        params.put("limit", limit);
+        return neo4jClient.query(INBOX + """
+                    WITH * WHERE $beforeCreatedAt IS NULL OR createdAt < $beforeCreatedAt
+                                 OR (createdAt = $beforeCreatedAt AND eventId < $beforeEventId)
+                    RETURN *
+                    ORDER BY createdAt DESC, eventId DESC
+                    LIMIT $limit
+                """)
+                .bindAll(params)
+                .fetch()
+                .all()
+                .stream()
+                .map(NotificationRepository::toNotification)
+                .toList();
+    }
+
+    /**
+     * The newest {@code limit} unread notifications with their pre-rendered STOMP payloads, for replay on subscribe.
+     */
+    public List<Notification> findNewestUnreadForReplay(String recipientUserId, int limit) {
+        return neo4jClient.query(INBOX + """
+                    WITH * WHERE status = 'UNREAD'
+                    RETURN *
+                    ORDER BY createdAt DESC, eventId DESC
+                    LIMIT $limit
+                """)
+                .bindAll(Map.of("recipientUserId", recipientUserId, "limit", limit))
+                .fetch()
+                .all()
+                .stream()
+                .map(NotificationRepository::toNotification)
+                .toList();
+    }
+
+    public long countUnreadByRecipientUserId(String recipientUserId) {
+        return neo4jClient.query(INBOX + """
+                    WITH * WHERE status = 'UNREAD'
+                    RETURN count(*)
+                """)
+                .bind(recipientUserId).to("recipientUserId")
+                .fetchAs(Long.class)
+                .one()
+                .orElse(0L);
+    }
+
+    public Optional<Notification> findByRecipientUserIdAndEventId(String recipientUserId, String eventId) {
+        return neo4jClient.query(INBOX + """
+                    WITH * WHERE eventId = $eventId
+                    RETURN *
+                """)
+                .bindAll(Map.of("recipientUserId", recipientUserId, "eventId", eventId))
+                .fetch()
+                .one()
+                .map(NotificationRepository::toNotification);
+    }
+
+    // Returns 1 when the receipt went from fromStatus to toStatus. The lock write makes a concurrent change of the same
+    // receipt wait for this one to commit and then see its status, so only one of them reports the change. Legacy
+    // nodes are locked the same way, which also orders the change against their migration
+    public long updateNotificationStatusAndTimestamp(String userElementId, String eventId, String fromStatus, String toStatus,
+                                                     LocalDateTime updatedAtValue) {
+        return neo4jClient.query("""
+                    CALL {
+                        MATCH (u:User)-[r:RECEIVED]->(e:NotificationEvent {eventId: $eventId})
+                        WHERE elementId(u) = $userElementId
+                        SET r._lock = true
+                        REMOVE r._lock
+                        WITH r WHERE r.status = $fromStatus
+                        SET r.status = $toStatus, r.updatedAt = $updatedAtValue
+                        RETURN count(r) AS changed
+                        UNION ALL
+                        MATCH (n:Notification {eventId: $eventId})
+                        WHERE n.recipientUserId = $userElementId
+                        SET n._lock = true
+                        REMOVE n._lock
+                        WITH n WHERE n.migratedAt IS NULL AND n.status = $fromStatus
+                        SET n.status = $toStatus, n.updatedAt = $updatedAtValue
+                        RETURN count(n) AS changed
+                    }
+                    RETURN sum(changed)
+                """)
+                .bindAll(Map.of("userElementId", userElementId, "eventId", eventId,
+                        "fromStatus", fromStatus, "toStatus", toStatus, "updatedAtValue", updatedAtValue))
+                .fetchAs(Long.class)
+                .one()
+                .orElse(0L);
+    }
+
+    // Event ids of the receipts this call moved to READ, locked the same way as updateNotificationStatusAndTimestamp
+    public List<String> updateStatusForAllUnreadNotificationsByUser(String recipientUserId, LocalDateTime now) {
+        return List.copyOf(neo4jClient.query("""
+                    CALL {
+                        MATCH (u:User)-[r:RECEIVED]->(e:NotificationEvent)
+                        WHERE elementId(u) = $recipientUserId AND r.status = 'UNREAD'
+                        SET r._lock = true
+                        REMOVE r._lock
+                        WITH r, e WHERE r.status = 'UNREAD'
+                        SET r.status = 'READ', r.updatedAt = $now
+                        RETURN e.eventId AS eventId
+                        UNION ALL
+                        MATCH (n:Notification)
+                        WHERE n.recipientUserId = $recipientUserId AND n.status = 'UNREAD' AND n.migratedAt IS NULL
+                        SET n._lock = true
+                        REMOVE n._lock
+                        WITH n WHERE n.migratedAt IS NULL AND n.status = 'UNREAD'
+                        SET n.status = 'READ', n.updatedAt = $now
+                        RETURN n.eventId AS eventId
+                    }
+                    RETURN eventId
+                """)
+                .bindAll(Map.of("recipientUserId", recipientUserId, "now", now))
+                .fetchAs(String.class)
+                .all());
+    }
+
+    // Returns how many receipts went from READ to UNREAD, locked the same way as updateNotificationStatusAndTimestamp
+    public long markNotificationsAsUnreadBatch(String recipientUserId, List<String> eventIds, LocalDateTime now) {
+        return neo4jClient.query("""
+                    CALL {
+                        MATCH (u:User)-[r:RECEIVED]->(e:NotificationEvent)
+                        WHERE elementId(u) = $recipientUserId AND e.eventId IN $eventIds
+                        SET r._lock = true
+                        REMOVE r._lock
+                        WITH r WHERE r.status = 'READ'
+                        SET r.status = 'UNREAD', r.updatedAt = $now
+                        RETURN count(r) AS changed
+                        UNION ALL
+                        MATCH (n:Notification)
+                        WHERE n.recipientUserId = $recipientUserId AND n.eventId IN $eventIds
+                        SET n._lock = true
+                        REMOVE n._lock
+                        WITH n WHERE n.migratedAt IS NULL AND n.status = 'READ'
+                        SET n.status = 'UNREAD', n.updatedAt = $now
+                        RETURN count(n) AS changed
+                    }
+                    RETURN sum(changed)
+                """)
+                .bindAll(Map.of("recipientUserId", recipientUserId, "eventIds", eventIds, "now", now))
+                .fetchAs(Long.class)
+                .one()
+                .orElse(0L);
+    }
+
+    // Returns the status the deleted receipt had, empty when there was none
+    public Optional<NotificationStatus> deleteByRecipientUserIdAndEventId(String recipientUserId, String eventId) {
+        return neo4jClient.query("""
+                    CALL {
+                        MATCH (u:User)-[r:RECEIVED]->(e:NotificationEvent {eventId: $eventId})
+                        WHERE elementId(u) = $recipientUserId
+                        WITH r, e, r.status AS status
+                        DELETE r
+                        WITH e, status
+                        CALL {
+                            WITH e
+                            WITH e WHERE NOT ()-[:RECEIVED]->(e)
+                            DELETE e
+                        }
+                        RETURN status
+                        UNION ALL
+                        MATCH (n:Notification {eventId: $eventId})
+                        WHERE n.recipientUserId = $recipientUserId
+                        SET n._lock = true
+                        REMOVE n._lock
+                        WITH n WHERE n.migratedAt IS NULL
+                        WITH n, n.status AS status
+                        DETACH DELETE n
+                        RETURN status
+                    }
+                    RETURN status
+                """)
+                .bindAll(Map.of("recipientUserId", recipientUserId, "eventId", eventId))
+                .fetchAs(String.class)
+                .one()
+                .map(NotificationStatus::valueOf);
+    }
+
+    // Returns how many notifications were deleted, receipts and legacy nodes together
+    public int deleteAllReadNotificationsByUser(String recipientUserId) {
+        int receipts = neo4jClient.query("""
+                    MATCH (u:User)-[r:RECEIVED]->(e:NotificationEvent)
+                    WHERE elementId(u) = $recipientUserId AND r.status = 'READ'
+                    DELETE r
+                """ + DELETE_ORPHANED_EVENTS)
+                .bind(recipientUserId).to("recipientUserId")
+                .run()
+                .counters()
+                .relationshipsDeleted();
+        int legacy = neo4jClient.query("""
+                    MATCH (n:Notification)
+                    WHERE n.recipientUserId = $recipientUserId AND n.status = 'READ' AND n.migratedAt IS NULL
+                    SET n._lock = true
+                    REMOVE n._lock
+                    WITH n WHERE n.migratedAt IS NULL AND n.status = 'READ'
+                    DETACH DELETE n
+                """)
+                .bind(recipientUserId).to("recipientUserId")
+                .run()
+                .counters()
+                .nodesDeleted();
+        return receipts + legacy;
+    }
+
+    /**
+     * Converts up to {@code batchSize} notifications of the old one-node-per-recipient model into events and
+     * receipts; call until it returns no processed nodes. Nothing is deleted: converted nodes are marked
+     * {@code migratedAt} and no longer read, nodes whose recipient no longer exists are marked
+     * {@code migrationSkippedAt} and left as they are.
+     */
+    public LegacyMigrationBatch migrateLegacyNotifications(int batchSize, LocalDateTime now) {
+        return neo4jClient.query("""
+                    MATCH (n:Notification)
+                    WHERE n.migratedAt IS NULL AND n.migrationSkippedAt IS NULL
+                    WITH n LIMIT $batchSize
+                    SET n._lock = true
+                    REMOVE n._lock
+                    WITH n WHERE n.migratedAt IS NULL
+                    OPTIONAL MATCH (u:User) WHERE elementId(u) = n.recipientUserId
+                    FOREACH (_ IN CASE WHEN u IS NOT NULL THEN [1] ELSE [] END |
+                        MERGE (e:NotificationEvent {eventId: n.eventId})
+                        ON CREATE SET e.eventType = n.eventType, e.treeId = n.treeId, e.treeName = n.treeName,
+                            e.actorUserId = n.actorUserId, e.actorUserName = n.actorUserName,
+                            e.messagePayload = n.messagePayload, e.createdAt = n.createdAt
+                        MERGE (u)-[r:RECEIVED]->(e)
+                        ON CREATE SET r.status = n.status, r.createdAt = n.createdAt, r.updatedAt = n.updatedAt
+                        SET n.migratedAt = $now
+                    )
+                    FOREACH (_ IN CASE WHEN u IS NULL THEN [1] ELSE [] END | SET n.migrationSkippedAt = $now)
+                    RETURN count(n) AS processed, count(u) AS converted
+                """)
+                .bindAll(Map.of("batchSize", batchSize, "now", now))
+                .fetch()
+                .one()
+                .map(row -> new LegacyMigrationBatch(((Number) row.get("processed")).intValue(), ((Number) row.get("converted")).intValue()))
+                .orElse(new LegacyMigrationBatch(0, 0));
+    }
+
+    public record LegacyMigrationBatch(int processed, int converted) {
+    }
+
+    private static Notification toNotification(Map<String, Object> row) {
+        Notification notification = new Notification(
+                (String) row.get("eventId"),
+                (String) row.get("recipientUserId"),
+                row.get("eventType") != null ? EventType.valueOf((String) row.get("eventType")) : null,
+                (String) row.get("treeId"),
+                (String) row.get("treeName"),
+                (String) row.get("actorUserId"),
+                (String) row.get("actorUserName"),
+                (String) row.get("messagePayload"));
+        if (row.get("status") != null) {
+            notification.setStatus(NotificationStatus.valueOf((String) row.get("status")));
+        }
+        notification.setCreatedAt((LocalDateTime) row.get("createdAt"));
+        notification.setUpdatedAt((LocalDateTime) row.get("updatedAt"));
+        notification.setRenderedPayload((String) row.get("renderedPayload"));
+        return notification;
+    }
 }
@@ -23,8 +23,8 @@ public interface PersonRepository extends Neo4jRepository<Person, String> {
     @Query("MATCH (p:Person)-[:" + Constants.PARENT_REL + "]->(child:Person) WHERE elementId(p) = $elementId RETURN DISTINCT child  {.*, elementId: elementId(child) } AS child")
     List<Person> findChildren(String elementId);
 
-    // Find siblings (undirected relationship)
-    @Query("MATCH (p:Person)-[:" + Constants.PARENT_REL + "]-(sibling:Person) WHERE elementId(p) = $elementId RETURN DISTINCT sibling  {.*, elementId: elementId(sibling) } AS sibling")
+    // Find siblings (sharing at least one parent)
+    @Query("MATCH (p:Person)<-[:" + Constants.PARENT_REL + "]-(:Person)-[:" + Constants.PARENT_REL + "]->(sibling:Person) WHERE elementId(p) = $elementId AND sibling <> p RETURN DISTINCT sibling  {.*, elementId: elementId(sibling) } AS sibling")
     List<Person> findSiblings(String elementId);
 }
 
@@ -1,14 +1,12 @@
 package dev.anudeep.familytree.repository;
 
 
-import dev.anudeep.familytree.dto.RelationChangeSummary;
 import dev.anudeep.familytree.model.Tree;
 import dev.anudeep.familytree.model.User;
 import org.springframework.data.neo4j.repository.Neo4jRepository;
 import org.springframework.data.neo4j.repository.query.Query;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 
 public interface TreeRepository extends Neo4jRepository<Tree, String> {
@@ -38,18 +36,84 @@ public interface TreeRepository extends Neo4jRepository<Tree, String> {
     List<User> findUsersByRelationship(String treeElementId, String relationship);
 
     @Query("""
-                MATCH (t:Tree)
-                WHERE t.name = $name AND t.createdAt = $createdAt AND t.createdBy = $createdBy
-                RETURN t {.*, elementId: elementId(t) } AS tree
+                MATCH (u:User)-[r]->(t:Tree)
+                WHERE elementId(u) = $userElementId
+                RETURN t {.*, elementId: elementId(t), access: type(r) } AS tree
             """)
-    Tree findTreeByDetails(String name, String createdAt, String createdBy);
+    List<Tree> findAllTreesForUser(String userElementId);
 
+    // Same as findAllTreesForUser with createdBy resolved to "name (email)" of the creator when the creator exists
     @Query("""
                 MATCH (u:User)-[r]->(t:Tree)
                 WHERE elementId(u) = $userElementId
-                RETURN t {.*, elementId: elementId(t), access: type(r) } AS tree
+                OPTIONAL MATCH (c:User) WHERE elementId(c) = t.createdBy
+                RETURN t {.*, elementId: elementId(t), access: type(r),
+                          createdBy: CASE WHEN c IS NULL THEN t.createdBy ELSE c.name + ' (' + c.email + ')' END } AS tree
             """)
-    List<Tree> findAllTreesForUser(String userElementId);
+    List<Tree> findAllTreesWithCreatorForUser(String userElementId);
+
+    // Keyset pages of findAllTreesWithCreatorForUser ordered by (name, elementId), trees without a name last. One
+    // statement per combination of prefix and cursor so each gets its own plan.
+    @Query("""
+                MATCH (u:User)-[r]->(t:Tree)
+                WHERE elementId(u) = $userElementId
+                WITH r, t ORDER BY t.name, elementId(t) LIMIT $limit
+                OPTIONAL MATCH (c:User) WHERE elementId(c) = t.createdBy
+                RETURN t {.*, elementId: elementId(t), access: type(r),
+                          createdBy: CASE WHEN c IS NULL THEN t.createdBy ELSE c.name + ' (' + c.email + ')' END } AS tree
+                ORDER BY t.name, elementId(t)
+            """)
+    List<Tree> findTreesWithCreatorFirstPageForUser(String userElementId, int limit);
+
+    @Query("""
+                MATCH (u:User)-[r]->(t:Tree)
+                WHERE elementId(u) = $userElementId
+                  AND (t.name > $afterName OR (t.name = $afterName AND elementId(t) > $afterId) OR t.name IS NULL)
+                WITH r, t ORDER BY t.name, elementId(t) LIMIT $limit
+                OPTIONAL MATCH (c:User) WHERE elementId(c) = t.createdBy
+                RETURN t {.*, elementId: elementId(t), access: type(r),
+                          createdBy: CASE WHEN c IS NULL THEN t.createdBy ELSE c.name + ' (' + c.email + ')' END } AS tree
+                ORDER BY t.name, elementId(t)
+            """)
+    List<Tree> findTreesWithCreatorPageAfterForUser(String userElementId, String afterName, String afterId, int limit);
+
+    // Continues after a tree without a name
+    @Query("""
+                MATCH (u:User)-[r]->(t:Tree)
+                WHERE elementId(u) = $userElementId
+                  AND t.name IS NULL AND elementId(t) > $afterId
+                WITH r, t ORDER BY elementId(t) LIMIT $limit
+                OPTIONAL MATCH (c:User) WHERE elementId(c) = t.createdBy
+                RETURN t {.*, elementId: elementId(t), access: type(r),
+                          createdBy: CASE WHEN c IS NULL THEN t.createdBy ELSE c.name + ' (' + c.email + ')' END } AS tree
+                ORDER BY t.name, elementId(t)
+            """)
+    List<Tree> findUnnamedTreesWithCreatorPageAfterForUser(String userElementId, String afterId, int limit);
+
+    @Query("""
+                MATCH (u:User)-[r]->(t:Tree)
+                WHERE elementId(u) = $userElementId
+                  AND t.name STARTS WITH $prefix
+                WITH r, t ORDER BY t.name, elementId(t) LIMIT $limit
+                OPTIONAL MATCH (c:User) WHERE elementId(c) = t.createdBy
+                RETURN t {.*, elementId: elementId(t), access: type(r),
+                          createdBy: CASE WHEN c IS NULL THEN t.createdBy ELSE c.name + ' (' + c.email + ')' END } AS tree
+                ORDER BY t.name, elementId(t)
+            """)
+    List<Tree> findTreesWithCreatorByPrefixFirstPageForUser(String userElementId, String prefix, int limit);
+
+    @Query("""
+                MATCH (u:User)-[r]->(t:Tree)
+                WHERE elementId(u) = $userElementId
+                  AND t.name STARTS WITH $prefix
+                  AND (t.name > $afterName OR (t.name = $afterName AND elementId(t) > $afterId))
+                WITH r, t ORDER BY t.name, elementId(t) LIMIT $limit
+                OPTIONAL MATCH (c:User) WHERE elementId(c) = t.createdBy
+                RETURN t {.*, elementId: elementId(t), access: type(r),
+                          createdBy: CASE WHEN c IS NULL THEN t.createdBy ELSE c.name + ' (' + c.email + ')' END } AS tree
+                ORDER BY t.name, elementId(t)
+            """)
+    List<Tree> findTreesWithCreatorByPrefixPageAfterForUser(String userElementId, String prefix, String afterName, String afterId, int limit);
 
     @Query("""
                 MATCH (u:User)-[r:$relationship]->(t:Tree)
@@ -65,50 +129,4 @@ public interface TreeRepository extends Neo4jRepository<Tree, String> {
     // Custom method for bulk delete with DETACH
     @Query("MATCH (t:Tree) WHERE elementId(t) IN $elementIds DETACH DELETE t")
     void detachAndDeleteAllByElementIdIn(List<String> elementIds);
-
-
-    @Query("""
-              UNWIND $users AS userData
-              MATCH (u:User) WHERE elementId(u) = userData.elementId
-              MATCH (t:Tree) WHERE elementId(t) = $treeId
-            
-              // Get existing relationship
-               OPTIONAL MATCH (u)-[existingRel]->(t)
-               WHERE type(existingRel) IN ['ADMIN_FOR', 'EDITOR_FOR', 'VIEWER_FOR']
-               WITH u, t, userData, type(existingRel) AS currentRelType, existingRel
-            
-               // Step 1: DELETE if any
-               FOREACH (_ IN CASE WHEN existingRel IS NOT NULL THEN [1] ELSE [] END |
-                 DELETE existingRel
-               )
-            
-               // Step 2: CREATE new if userData.relation IS NOT NULL
-               FOREACH (_ IN CASE WHEN userData.relation = 'ADMIN_FOR' THEN [1] ELSE [] END |
-                 MERGE (u)-[:ADMIN_FOR]->(t)
-               )
-               FOREACH (_ IN CASE WHEN userData.relation = 'EDITOR_FOR' THEN [1] ELSE [] END |
-                 MERGE (u)-[:EDITOR_FOR]->(t)
-               )
-               FOREACH (_ IN CASE WHEN userData.relation = 'VIEWER_FOR' THEN [1] ELSE [] END |
-                 MERGE (u)-[:VIEWER_FOR]->(t)
-               )
-            
-               // Step 3: classify the operation type
-               WITH
-                 CASE
-                   WHEN currentRelType IS NOT NULL AND userData.relation IS NULL THEN 1 ELSE 0
-                 END AS permanentlyDeleted,
-                 CASE
-                   WHEN currentRelType IS NULL AND userData.relation IS NOT NULL THEN 1 ELSE 0
-                 END AS newlyCreated,
-                 CASE
-                   WHEN currentRelType IS NOT NULL AND userData.relation IS NOT NULL AND currentRelType <> userData.relation THEN 1 ELSE 0
-                 END AS updated
-            
-               RETURN
-                 sum(permanentlyDeleted) AS permanentlyDeletedCount,
-                 sum(newlyCreated) AS newlyCreatedCount,
-                 sum(updated) AS updatedCount
-            """)
-    RelationChangeSummary updateUsersRelationShip(String treeId, List<Map<String, String>> users);
 }
@@ -22,6 +22,82 @@ public interface UserRepository extends Neo4jRepository<User, String> {
             """)
     List<User> findUsersAccessWithTree(String elementId);
 
+    // Keyset pages of users ordered by (name, elementId), users without a name last. One statement per combination
+    // of prefix and cursor so each gets its own plan; the name and email prefixes are separate index seeks.
+    @Query("""
+             MATCH (u:User)
+             RETURN u {.*, elementId: elementId(u) } AS user
+             ORDER BY u.name, elementId(u)
+             LIMIT $limit
+            """)
+    List<User> findUsersFirstPage(@Param("limit") int limit);
+
+    @Query("""
+             MATCH (u:User)
+             WHERE u.name > $afterName OR (u.name = $afterName AND elementId(u) > $afterId) OR u.name IS NULL
+             RETURN u {.*, elementId: elementId(u) } AS user
+             ORDER BY u.name, elementId(u)
+             LIMIT $limit
+            """)
+    List<User> findUsersPageAfter(@Param("afterName") String afterName, @Param("afterId") String afterId,
+                                  @Param("limit") int limit);
+
+    // Continues after a user without a name
+    @Query("""
+             MATCH (u:User)
+             WHERE u.name IS NULL AND elementId(u) > $afterId
+             RETURN u {.*, elementId: elementId(u) } AS user
+             ORDER BY elementId(u)
+             LIMIT $limit
+            """)
+    List<User> findUnnamedUsersPageAfter(@Param("afterId") String afterId, @Param("limit") int limit);
+
+    @Query("""
+             CALL {
+                 MATCH (u:User) WHERE u.name STARTS WITH $prefix RETURN u
+                 UNION
+                 MATCH (u:User) WHERE u.email STARTS WITH $prefix RETURN u
+             }
+             RETURN u {.*, elementId: elementId(u) } AS user
+             ORDER BY u.name, elementId(u)
+             LIMIT $limit
+            """)
+    List<User> findUsersByPrefixFirstPage(@Param("prefix") String prefix, @Param("limit") int limit);
+
+    @Query("""
+             CALL {
+                 MATCH (u:User) WHERE u.name STARTS WITH $prefix RETURN u
+                 UNION
+                 MATCH (u:User) WHERE u.email STARTS WITH $prefix RETURN u
+             }
+             WITH u WHERE u.name > $afterName OR (u.name = $afterName AND elementId(u) > $afterId) OR u.name IS NULL
+             RETURN u {.*, elementId: elementId(u) } AS user
+             ORDER BY u.name, elementId(u)
+             LIMIT $limit
+            """)
+    List<User> findUsersByPrefixPageAfter(@Param("prefix") String prefix, @Param("afterName") String afterName,
+                                          @Param("afterId") String afterId, @Param("limit") int limit);
+
+    // Only an email prefix matches a user without a name
+    @Query("""
+             MATCH (u:User)
+             WHERE u.email STARTS WITH $prefix AND u.name IS NULL AND elementId(u) > $afterId
+             RETURN u {.*, elementId: elementId(u) } AS user
+             ORDER BY elementId(u)
+             LIMIT $limit
+            """)
+    List<User> findUnnamedUsersByPrefixPageAfter(@Param("prefix") String prefix, @Param("afterId") String afterId,
+                                                 @Param("limit") int limit);
+
+    // The given users with their access to the tree, in page order
+    @Query("""
+             MATCH (u:User) WHERE elementId(u) IN $userElementIds
+             OPTIONAL MATCH (u)-[r]->(m:Tree) WHERE elementId(m) = $treeId
+             RETURN u {.*, elementId: elementId(u), access:type(r) } AS user
+             ORDER BY u.name, elementId(u)
+            """)
+    List<User> findUsersAccessWithTreeByIds(@Param("treeId") String treeId, @Param("userElementIds") List<String> userElementIds);
+
     // Find user
     @Query("MATCH (p:User) WHERE elementId(p) = $elementId RETURN p {.*, elementId: elementId(p) } AS user")
     Optional<User> findByElementId(String elementId);
@@ -0,0 +1,164 @@
+package dev.anudeep.familytree.service;
+
+import dev.anudeep.familytree.dto.FlowEdgeDTO;
+import dev.anudeep.familytree.dto.FlowGraphDTO;
+import dev.anudeep.familytree.dto.FlowNodeDTO;
+import dev.anudeep.familytree.dto.GraphDiffDTO;
+import dev.anudeep.familytree.dto.GraphDiffResultDTO;
+import dev.anudeep.familytree.utils.TreeAdjacencyIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Keeps a {@link TreeAdjacencyIndex} for recently used trees so family traversals can be answered without a database
+ * round trip. An index is built from the tree's full graph, tagged with the tree version it was built for, and kept
+ * current by applying graph diffs after they commit. Any other write bumps the tree version and the index is
+ * rebuilt on its next use.
+ */
+@Slf4j
+@Service
+public class AdjacencyIndexService {
+    private final TreeVersionService treeVersionService;
+    private final boolean enabled;
+    private final Map<String, TreeAdjacencyIndex> indexes;
+
+    public AdjacencyIndexService(TreeVersionService treeVersionService,
+                                 @Value("${graph.adjacency-index.enabled:true}") boolean enabled,
+                                 @Value("${graph.adjacency-index.max-trees:32}") int maxTrees) {
+        this.treeVersionService = treeVersionService;
+        this.enabled = enabled;
+        this.indexes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TreeAdjacencyIndex> eldest) {
+                return size() > maxTrees;
+            }
+        };
+    }
+
+    /**
+     * Index for the tree's current version, built from {@code graphLoader} when missing or stale.
+     * Empty when the index is disabled or the tree version cannot be read.
+     */
+    public Optional<TreeAdjacencyIndex> get(String treeId, Supplier<FlowGraphDTO> graphLoader) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        long version;
+        try {
+            version = treeVersionService.currentVersion(treeId);
+        } catch (Exception e) {
+            log.warn("Tree version unavailable for {}, skipping adjacency index: {}", treeId, e.getMessage());
+            return Optional.empty();
+        }
+        TreeAdjacencyIndex index = cached(treeId);
+        if (index != null && index.getVersion() == version) {
+            return Optional.of(index);
+        }
+
+        long start = System.nanoTime();
+        TreeAdjacencyIndex built = build(graphLoader.get(), version);
+        synchronized (indexes) {
+            TreeAdjacencyIndex current = indexes.get(treeId);
+            if (current == null || current.getVersion() < version) {
+                indexes.put(treeId, built);
+            }
+        }
+        log.info("Built adjacency index for tree {} v{} with {} nodes in {} µs",
+                treeId, version, built.nodeCount(), (System.nanoTime() - start) / 1000);
+        return Optional.of(built);
+    }
+
+    /**
+     * Applies a graph diff to the cached index once the surrounding transaction commits. The diff is applied only when
+     * the committed version bump is the single one since the index was last current; otherwise the index is dropped.
+     * Must be called after {@link TreeVersionService#bumpVersion(String)} so the bump runs first.
+     */
+    public void applyAfterCommit(String treeId, GraphDiffDTO diff, GraphDiffResultDTO result) {
+        TreeAdjacencyIndex index = cached(treeId);
+        if (index == null) {
+            return;
+        }
+        long baseVersion = index.getVersion();
+        Runnable apply = () -> {
+            try {
+                long version = treeVersionService.currentVersion(treeId);
+                boolean applied;
+                synchronized (index) {
+                    applied = index.getVersion() == baseVersion && version == baseVersion + 1;
+                    if (applied) {
+                        apply(index, diff, result);
+                        index.setVersion(version);
+                    }
+                }
+                if (!applied) {
+                    evict(treeId);
+                }
+            } catch (Exception e) {
+                log.warn("Dropping adjacency index of tree {} after failed update: {}", treeId, e.getMessage());
+                evict(treeId);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    public void evict(String treeId) {
+        synchronized (indexes) {
+            indexes.remove(treeId);
+        }
+    }
+
+    private TreeAdjacencyIndex cached(String treeId) {
+        synchronized (indexes) {
+            return indexes.get(treeId);
+        }
+    }
+
+    // Edges are indexed by type, the relationship type in the database, as in apply; the label is display text
+    static TreeAdjacencyIndex build(FlowGraphDTO graph, long version) {
+        TreeAdjacencyIndex index = new TreeAdjacencyIndex(version);
+        graph.getNodes().forEach(node -> index.addNode(node.getId(), node.getType()));
+        graph.getEdges().forEach(edge -> index.addEdge(edge.getId(), edge.getType(), edge.getSource(), edge.getTarget()));
+        return index;
+    }
+
+    // Same order as GraphService.updateGraph, dummy ids of added elements are resolved through the result maps
+    static void apply(TreeAdjacencyIndex index, GraphDiffDTO diff, GraphDiffResultDTO result) {
+        if (diff.getAddedNodes() != null) {
+            for (FlowNodeDTO node : diff.getAddedNodes()) {
+                String type = (node.getType() != null && !node.getType().trim().isEmpty()) ? node.getType() : "Person";
+                index.addNode(result.getNodeIdMap().getOrDefault(node.getId(), node.getId()), type);
+            }
+        }
+        if (diff.getAddedEdges() != null) {
+            for (FlowEdgeDTO edge : diff.getAddedEdges()) {
+                index.addEdge(result.getEdgeIdMap().getOrDefault(edge.getId(), edge.getId()),
+                        edge.getType(),
+                        result.getNodeIdMap().getOrDefault(edge.getSource(), edge.getSource()),
+                        result.getNodeIdMap().getOrDefault(edge.getTarget(), edge.getTarget()));
+            }
+        }
+        if (diff.getDeletedNodeIds() != null) {
+            index.removeNodes(diff.getDeletedNodeIds());
+        }
+        if (diff.getDeletedEdgeIds() != null) {
+            index.removeEdges(diff.getDeletedEdgeIds());
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package dev.anudeep.familytree.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.anudeep.familytree.dto.FlowEdgeDTO;
+import dev.anudeep.familytree.dto.FlowNodeDTO;
+import dev.anudeep.familytree.dto.GraphDiffDTO;
+import dev.anudeep.familytree.dto.GraphDiffResultDTO;
+import dev.anudeep.familytree.dto.TreeFacetsDTO;
+import dev.anudeep.familytree.model.Education;
+import dev.anudeep.familytree.model.Job;
+import dev.anudeep.familytree.model.Person;
+import dev.anudeep.familytree.utils.Constants;
+import dev.anudeep.familytree.utils.TreeFacets;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.neo4j.core.Neo4jClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Filter panel facets of a tree: the values of each person property the panel filters on, with how many persons
+ * have each one. Computed with one grouped aggregation, cached per tree version and patched in place with graph
+ * diffs after they commit, the same way as {@link AdjacencyIndexService}.
+ */
+@Slf4j
+@Service
+public class FacetService {
+    // One row: persons grouped by their facet values, plus the tree's houses and BELONGS_TO memberships
+    private static final String FACETS_CYPHER = String.format("""
+            MATCH (t:Tree) WHERE elementId(t) = $treeId
+            CALL {
+                WITH t
+                MATCH (p:Person)-[:%1$s]->(t)
+                WITH p.gender AS gender, p.currLocation AS location, p.job_jobType AS jobType,
+                     p.education_highestQualification AS qualification, p.education_fieldOfStudy AS fieldOfStudy,
+                     p.isAlive AS isAlive, collect(elementId(p)) AS personIds
+                RETURN collect({gender: gender, location: location, jobType: jobType, qualification: qualification,
+                                fieldOfStudy: fieldOfStudy, isAlive: isAlive, personIds: personIds}) AS groups
+            }
+            CALL {
+                WITH t
+                MATCH (h:House)-[:%1$s]->(t)
+                RETURN collect([elementId(h), h.name]) AS houses
+            }
+            CALL {
+                WITH t
+                MATCH (p:Person)-[:%1$s]->(t)
+                MATCH (p)-[b:%2$s]->(h:House)
+                RETURN collect([elementId(b), elementId(p), elementId(h)]) AS memberships
+            }
+            RETURN groups, houses, memberships
+            """, Constants.PART_OF, Constants.BELONGS_REL);
+
+    private final Neo4jClient neo4jClient;
+    private final ObjectMapper objectMapper;
+    private final TreeVersionService treeVersionService;
+    private final Map<String, TreeFacets> facets;
+
+    public FacetService(Neo4jClient neo4jClient,
+                        ObjectMapper objectMapper,
+                        TreeVersionService treeVersionService,
+                        @Value("${graph.facets.max-trees:32}") int maxTrees) {
+        this.neo4jClient = neo4jClient;
+        this.objectMapper = objectMapper;
+        this.treeVersionService = treeVersionService;
+        this.facets = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, TreeFacets> eldest) {
+                return size() > maxTrees;
+            }
+        };
+    }
+
+    public TreeFacetsDTO getFacets(String treeId) {
+        long version;
+        try {
+            version = treeVersionService.currentVersion(treeId);
+        } catch (Exception e) {
+            log.warn("Tree version unavailable for {}, computing facets uncached: {}", treeId, e.getMessage());
+            return load(treeId, -1).toDTO();
+        }
+        TreeFacets cached = cached(treeId);
+        if (cached != null && cached.getVersion() == version) {
+            return cached.toDTO();
+        }
+        TreeFacets loaded = load(treeId, version);
+        synchronized (facets) {
+            TreeFacets current = facets.get(treeId);
+            if (current == null || current.getVersion() < version) {
+                facets.put(treeId, loaded);
+            }
+        }
+        return loaded.toDTO();
+    }
+
+    /**
+     * Applies a graph diff to the cached facets once the surrounding transaction commits, under the same version
+     * rule as {@link AdjacencyIndexService#applyAfterCommit}. Must be called after the version bump is registered.
+     */
+    public void applyAfterCommit(String treeId, GraphDiffDTO diff, GraphDiffResultDTO result) {
+        TreeFacets treeFacets = cached(treeId);
+        if (treeFacets == null) {
+            return;
+        }
+        long baseVersion = treeFacets.getVersion();
+        Runnable apply = () -> {
+            try {
+                long version = treeVersionService.currentVersion(treeId);
+                boolean applied;
+                synchronized (treeFacets) {
+                    applied = treeFacets.getVersion() == baseVersion && version == baseVersion + 1;
+                    if (applied) {
+                        apply(treeFacets, diff, result);
+                        treeFacets.setVersion(version);
+                    }
+                }
+                if (!applied) {
+                    evict(treeId);
+                }
+            } catch (Exception e) {
+                log.warn("Dropping facets of tree {} after failed update: {}", treeId, e.getMessage());
+                evict(treeId);
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    apply.run();
+                }
+            });
+        } else {
+            apply.run();
+        }
+    }
+
+    public void evict(String treeId) {
+        synchronized (facets) {
+            facets.remove(treeId);
+        }
+    }
+
+    private TreeFacets cached(String treeId) {
+        synchronized (facets) {
+            return facets.get(treeId);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private TreeFacets load(String treeId, long version) {
+        long start = System.nanoTime();
+        TreeFacets treeFacets = new TreeFacets(version);
+        neo4jClient.query(FACETS_CYPHER).bind(treeId).to("treeId").fetch().one().ifPresent(row -> {
+            for (Map<String, Object> group : (List<Map<String, Object>>) row.get("groups")) {
+                TreeFacets.Profile profile = new TreeFacets.Profile(
+                        (String) group.get("gender"), (String) group.get("location"), (String) group.get("jobType"),
+                        (String) group.get("qualification"), (String) group.get("fieldOfStudy"), (String) group.get("isAlive"));
+                ((List<String>) group.get("personIds")).forEach(personId -> treeFacets.putPerson(personId, profile));
+            }
+            ((List<List<String>>) row.get("houses")).forEach(house -> treeFacets.putHouse(house.get(0), house.get(1)));
+            ((List<List<String>>) row.get("memberships")).forEach(m -> treeFacets.addMembership(m.get(0), m.get(1), m.get(2)));
+        });
+        log.info("Computed facets of tree {} v{} in {} µs", treeId, version, (System.nanoTime() - start) / 1000);
+        return treeFacets;
+    }
+
+    // Same order as GraphService.updateGraph, dummy ids of added elements are resolved through the result maps
+    void apply(TreeFacets treeFacets, GraphDiffDTO diff, GraphDiffResultDTO result) {
+        if (diff.getAddedNodes() != null) {
+            for (FlowNodeDTO node : diff.getAddedNodes()) {
+                putNode(treeFacets, result.getNodeIdMap().getOrDefault(node.getId(), node.getId()), node, true);
+            }
+        }
+        if (diff.getAddedEdges() != null) {
+            for (FlowEdgeDTO edge : diff.getAddedEdges()) {
+                if (Constants.BELONGS_REL.equals(edge.getType())) {
+                    treeFacets.addMembership(result.getEdgeIdMap().getOrDefault(edge.getId(), edge.getId()),
+                            result.getNodeIdMap().getOrDefault(edge.getSource(), edge.getSource()),
+                            result.getNodeIdMap().getOrDefault(edge.getTarget(), edge.getTarget()));
+                }
+            }
+        }
+        if (diff.getUpdatedNodes() != null) {
+            for (FlowNodeDTO node : diff.getUpdatedNodes()) {
+                putNode(treeFacets, node.getId(), node, false);
+            }
+        }
+        if (diff.getDeletedNodeIds() != null) {
+            for (String nodeId : diff.getDeletedNodeIds()) {
+                if (treeFacets.containsPerson(nodeId)) {
+                    treeFacets.removePerson(nodeId);
+                } else {
+                    treeFacets.removeHouse(nodeId);
+                }
+            }
+        }
+        if (diff.getDeletedEdgeIds() != null) {
+            diff.getDeletedEdgeIds().forEach(treeFacets::removeMembership);
+        }
+    }
+
+    private void putNode(TreeFacets treeFacets, String nodeId, FlowNodeDTO node, boolean added) {
+        String type = node.getType() != null && !node.getType().trim().isEmpty() ? node.getType() : (added ? "Person" : null);
+        if ("Person".equalsIgnoreCase(type)) {
+            treeFacets.putPerson(nodeId, profileOf(objectMapper.convertValue(node.getData(), Person.class)));
+        } else if ("House".equalsIgnoreCase(type)) {
+            Object name = node.getData() != null ? node.getData().get("name") : null;
+            if (added || name != null) {
+                treeFacets.putHouse(nodeId, name != null ? name.toString() : null);
+            }
+        }
+    }
+
+    private static TreeFacets.Profile profileOf(Person person) {
+        if (person == null) {
+            return new TreeFacets.Profile(null, null, null, null, null, null);
+        }
+        Job job = person.getJob();
+        Education education = person.getEducation();
+        return new TreeFacets.Profile(person.getGender(), person.getCurrLocation(),
+                job != null ? job.getJobType() : null,
+                education != null ? education.getHighestQualification() : null,
+                education != null ? education.getFieldOfStudy() : null,
+                person.getIsAlive());
+    }
+}
@@ -0,0 +1,164 @@
+package dev.anudeep.familytree.service;
+
+import dev.anudeep.familytree.utils.FilterPredicate;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Compiled {@link FilterPredicate}s keyed by filter elementId, and for each filter the ids of the nodes it matched at
+ * the last tree version it was evaluated against. Switching between saved filters of an unchanged tree is then a set
+ * lookup. Both maps are LRUs bounded by entry count. Each predicate is tagged with the filter's version, kept in Redis
+ * like the tree versions of {@link TreeVersionService}: filter edits bump it once they commit, so every backend
+ * instance recompiles the filter on its next use.
+ */
+@Slf4j
+@Component
+public class FilterPredicateCache {
+    private static final String VERSION_KEY_PREFIX = "familytree:filter-version:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final Map<String, Compiled> predicates;
+    private final Map<String, Matches> matches;
+
+    public FilterPredicateCache(StringRedisTemplate redisTemplate,
+                                @Value("${filter.cache.max-entries:256}") int maxEntries) {
+        this.redisTemplate = redisTemplate;
+        this.predicates = lru(maxEntries);
+        this.matches = lru(maxEntries);
+    }
+
+    /**
+     * Predicate of the filter's current version, compiled by {@code loader} when missing or stale. The version is read
+     * before loading, so a load racing an edit is stored under the old version and not reused.
+     */
+    public FilterPredicate predicate(String filterId, Supplier<FilterPredicate> loader) {
+        long version;
+        try {
+            version = currentVersion(filterId);
+        } catch (Exception e) {
+            log.warn("Filter version unavailable for {}, bypassing predicate cache: {}", filterId, e.getMessage());
+            return loader.get();
+        }
+        synchronized (predicates) {
+            Compiled cached = predicates.get(filterId);
+            if (cached != null && cached.version() == version) {
+                return cached.predicate();
+            }
+        }
+        FilterPredicate compiled = loader.get();
+        synchronized (predicates) {
+            Compiled current = predicates.get(filterId);
+            if (current == null || current.version() <= version) {
+                predicates.put(filterId, new Compiled(version, compiled));
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Node ids matched by the predicate at the given tree version, computed by {@code evaluator} when not memoized.
+     * A negative version means the tree version is unknown and nothing is memoized.
+     */
+    public Set<String> matchingNodeIds(FilterPredicate predicate, long version, Supplier<Set<String>> evaluator) {
+        if (version < 0) {
+            return evaluator.get();
+        }
+        String filterId = predicate.getFilterId();
+        synchronized (matches) {
+            Matches cached = matches.get(filterId);
+            if (cached != null && cached.version() == version && cached.predicate() == predicate) {
+                log.debug("Filter {} matches memoized for tree version {}", filterId, version);
+                return cached.nodeIds();
+            }
+        }
+        Set<String> nodeIds = Set.copyOf(evaluator.get());
+        synchronized (matches) {
+            Matches current = matches.get(filterId);
+            if (current == null || current.version() <= version) {
+                matches.put(filterId, new Matches(version, predicate, nodeIds));
+            }
+        }
+        return nodeIds;
+    }
+
+    /**
+     * Drops the filters here now, and bumps their versions for every instance after the surrounding transaction
+     * commits.
+     */
+    public void invalidate(Collection<String> filterIds) {
+        List<String> ids = List.copyOf(filterIds);
+        evict(ids);
+        Runnable bump = () -> {
+            evict(ids);
+            for (String filterId : ids) {
+                try {
+                    String key = VERSION_KEY_PREFIX + filterId;
+                    seed(key);
+                    redisTemplate.opsForValue().increment(key);
+                } catch (Exception e) {
+                    log.error("Failed to bump version of filter {}: {}", filterId, e.getMessage(), e);
+                }
+            }
+        };
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        } else {
+            bump.run();
+        }
+    }
+
+    private long currentVersion(String filterId) {
+        String key = VERSION_KEY_PREFIX + filterId;
+        String version = redisTemplate.opsForValue().get(key);
+        if (version == null) {
+            seed(key);
+            version = redisTemplate.opsForValue().get(key);
+        }
+        return Long.parseLong(version);
+    }
+
+    // Same seeding as the tree versions, a lost key never re-issues an old version
+    private void seed(String key) {
+        redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(System.currentTimeMillis()));
+    }
+
+    private void evict(List<String> filterIds) {
+        synchronized (predicates) {
+            filterIds.forEach(predicates::remove);
+        }
+        synchronized (matches) {
+            filterIds.forEach(matches::remove);
+        }
+    }
+
+    private static <V> Map<String, V> lru(int maxEntries) {
+        return new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, V> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    private record Compiled(long version, FilterPredicate predicate) {
+    }
+
+    private record Matches(long version, FilterPredicate predicate, Set<String> nodeIds) {
+    }
+}
@@ -8,6 +8,7 @@ import dev.anudeep.familytree.repository.FilterRepository;
 import dev.anudeep.familytree.repository.TreeRepository;
 import dev.anudeep.familytree.repository.UserRepository;
 import dev.anudeep.familytree.utils.FilterNodeConverter;
+import dev.anudeep.familytree.utils.FilterPredicate;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.stereotype.Service;
@@ -26,15 +27,18 @@ public class FilterService {
     private final UserRepository userRepository;
     private final TreeRepository treeRepository;
     private final Neo4jClient neo4jClient; // Added Neo4jClient
+    private final FilterPredicateCache filterPredicateCache;
 
     public FilterService(FilterRepository filterRepository,
                          UserRepository userRepository,
                          TreeRepository treeRepository,
-                         Neo4jClient neo4jClient) { // Added Neo4jClient to constructor
+                         Neo4jClient neo4jClient,
+                         FilterPredicateCache filterPredicateCache) { // Added Neo4jClient to constructor
         this.filterRepository = filterRepository;
         this.userRepository = userRepository;
         this.treeRepository = treeRepository;
         this.neo4jClient = neo4jClient; // Initialize Neo4jClient
+        this.filterPredicateCache = filterPredicateCache;
     }
 
     @Transactional
@@ -93,6 +97,25 @@ public class FilterService {
         return savedFilters;
     }
 
+    @Transactional(readOnly = true)
+    public Filter getFilter(String treeId, String filterElementId) {
+        Map<String, Object> filterMap = filterRepository.findFilterByIdAndTreeId(filterElementId, treeId)
+                .orElseThrow(() -> new EntityNotFoundException("Filter with elementId " + filterElementId + " not found in tree " + treeId));
+        return FilterNodeConverter.flattenedMapToFilter(filterMap, filterElementId);
+    }
+
+    /**
+     * Saved filter compiled for in-memory evaluation, loaded and compiled only on the first use after a change.
+     */
+    public FilterPredicate getPredicate(String treeId, String filterElementId) {
+        FilterPredicate predicate = filterPredicateCache.predicate(filterElementId,
+                () -> FilterPredicate.compile(getFilter(treeId, filterElementId), treeId));
+        if (!treeId.equals(predicate.getTreeId())) {
+            throw new EntityNotFoundException("Filter with elementId " + filterElementId + " not found in tree " + treeId);
+        }
+        return predicate;
+    }
+
     @Transactional
     public Filter updateFilter(String filterElementId, FilterRequestDTO dto) {
         // User/Tree validation logic would go here (e.g., check existence)
@@ -126,6 +149,7 @@ public class FilterService {
             throw new RuntimeException("Filter update failed, result map for updatedFilter is null or empty.");
         }
         Filter savedFilter = FilterNodeConverter.flattenedMapToFilter(updatedNodeMap, filterElementId);
+        filterPredicateCache.invalidate(List.of(filterElementId));
         log.info("Updated filter with id {}", filterElementId);
         return savedFilter;
     }
@@ -136,6 +160,8 @@ public class FilterService {
             return 0;
         }
 
-        return filterRepository.deleteFilters(filterElementIds);
+        int deleted = filterRepository.deleteFilters(filterElementIds);
+        filterPredicateCache.invalidate(filterElementIds);
+        return deleted;
     }
 }
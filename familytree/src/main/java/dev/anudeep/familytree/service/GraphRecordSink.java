@@ -0,0 +1,13 @@
+package dev.anudeep.familytree.service;
+
+import dev.anudeep.familytree.dto.FlowEdgeDTO;
+import dev.anudeep.familytree.dto.FlowNodeDTO;
+
+/**
+ * Receives graph records one at a time while a graph query is still streaming from Neo4j.
+ */
+public interface GraphRecordSink {
+    void node(FlowNodeDTO node);
+
+    void edge(FlowEdgeDTO edge);
+}
@@ -1,19 +1,26 @@
 package dev.anudeep.familytree.service;
 
-import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.anudeep.familytree.dto.*;
+import dev.anudeep.familytree.model.Filter;
 import dev.anudeep.familytree.model.Person;
 import dev.anudeep.familytree.repository.TreeRepository;
 import dev.anudeep.familytree.repository.UserRepository;
 import dev.anudeep.familytree.utils.Constants;
+import dev.anudeep.familytree.utils.ElementIdSet;
+import dev.anudeep.familytree.utils.FilterCypherCompiler;
+import dev.anudeep.familytree.utils.FilterPredicate;
+import dev.anudeep.familytree.utils.PersonFlowNodeMapper;
 import dev.anudeep.familytree.utils.PersonNodeConverter;
+import dev.anudeep.familytree.utils.TreeAdjacencyIndex;
 import lombok.extern.slf4j.Slf4j;
+import org.neo4j.driver.Result;
 import org.neo4j.driver.types.Node;
 import dev.anudeep.familytree.dto.notification.EventType;
 import dev.anudeep.familytree.dto.notification.NotificationEvent;
 import org.neo4j.driver.types.Relationship;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.data.neo4j.core.Neo4jClient;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
@@ -31,6 +38,21 @@ public class GraphService {
     private final UserRepository userRepository;
     private final TreeRepository treeRepository;
     private final UserTreeService userTreeService;
+    private final TreeVersionService treeVersionService;
+    private final GraphSnapshotCache graphSnapshotCache;
+    private final PersonFlowNodeMapper personFlowNodeMapper;
+    private final AdjacencyIndexService adjacencyIndexService;
+    private final FilterPredicateCache filterPredicateCache;
+    private final FacetService facetService;
+    private final int ancestorsMaxDepth;
+    private final int ancestorsMaxNodes;
+
+    private static final String GRAPH_CYPHER = String.format("""
+            MATCH (m:Person | House)-[:%s]->(proj:Tree)
+            WHERE elementId(proj) = $treeId
+            OPTIONAL MATCH (m)-[r:%s|%s|%s]->(n)
+            RETURN n, r, m
+            """, Constants.PART_OF, Constants.MARRIED_REL, Constants.PARENT_REL, Constants.BELONGS_REL);
 
     @Autowired
     public GraphService(ObjectMapper objectMapper,
@@ -38,26 +60,40 @@ public class GraphService {
                         NotificationService notificationService,
                         UserRepository userRepository,
                         TreeRepository treeRepository,
-                        UserTreeService userTreeService) {
+                        UserTreeService userTreeService,
+                        TreeVersionService treeVersionService,
+                        GraphSnapshotCache graphSnapshotCache,
+                        PersonFlowNodeMapper personFlowNodeMapper,
+                        AdjacencyIndexService adjacencyIndexService,
+                        FilterPredicateCache filterPredicateCache,
+                        FacetService facetService,
+                        @Value("${graph.ancestors.max-depth:25}") int ancestorsMaxDepth,
+                        @Value("${graph.ancestors.max-nodes:1000}") int ancestorsMaxNodes) {
         this.objectMapper = objectMapper;
         this.neo4jClient = neo4jClient;
         this.notificationService = notificationService;
         this.userRepository = userRepository;
         this.treeRepository = treeRepository;
         this.userTreeService = userTreeService;
+        this.treeVersionService = treeVersionService;
+        this.graphSnapshotCache = graphSnapshotCache;
+        this.personFlowNodeMapper = personFlowNodeMapper;
+        this.adjacencyIndexService = adjacencyIndexService;
+        this.filterPredicateCache = filterPredicateCache;
+        this.facetService = facetService;
+        this.ancestorsMaxDepth = ancestorsMaxDepth;
+        this.ancestorsMaxNodes = ancestorsMaxNodes;
     }
 
     public FlowGraphDTO getGraph(String treeId) {
+        return graphSnapshotCache.get(treeId, () -> loadGraph(treeId));
+    }
+
+    private FlowGraphDTO loadGraph(String treeId) {
         Set<FlowNodeDTO> nodes = new HashSet<>();
         Set<FlowEdgeDTO> edges = new HashSet<>();
-        String cypher = String.format("""
-                MATCH (m:Person | House)-[:%s]->(proj:Tree)
-                WHERE elementId(proj) = $treeId
-                OPTIONAL MATCH (m)-[r:%s|%s|%s]->(n)
-                RETURN n, r, m
-                """, Constants.PART_OF, Constants.MARRIED_REL, Constants.PARENT_REL, Constants.BELONGS_REL);
-        log.info("Cypher to get the full graph: \n {}", cypher);
-        neo4jClient.query(cypher).bind(treeId).to("treeId").fetch()
+        log.info("Cypher to get the full graph: \n {}", GRAPH_CYPHER);
+        neo4jClient.query(GRAPH_CYPHER).bind(treeId).to("treeId").fetch()
                 .all()
                 .forEach(row -> {
                     Node node = (Node) row.get("n");
@@ -71,156 +107,438 @@ public class GraphService {
         return new FlowGraphDTO(new ArrayList<>(nodes), new ArrayList<>(edges));
     }
 
+    /**
+     * Streams the full graph of a tree to the sink as driver records arrive, each node and edge exactly once.
+     */
+    public void streamGraph(String treeId, GraphRecordSink sink) {
+        ElementIdSet seenNodes = new ElementIdSet();
+        ElementIdSet seenEdges = new ElementIdSet();
+        log.info("Cypher to stream the full graph: \n {}", GRAPH_CYPHER);
+        neo4jClient.delegateTo(runner -> {
+            Result result = runner.run(GRAPH_CYPHER, Map.<String, Object>of("treeId", treeId));
+            while (result.hasNext()) {
+                org.neo4j.driver.Record row = result.next();
+                emitNode(row.get("n"), seenNodes, sink);
+                emitNode(row.get("m"), seenNodes, sink);
+                emitEdge(row.get("r"), seenEdges, sink);
+            }
+            return Optional.empty();
+        }).run();
+        log.info("Graph streamed with {} nodes and {} edges", seenNodes.size(), seenEdges.size());
+    }
+
+    /**
+     * Graph restricted by a filter inside the database: node criteria become WHERE predicates on both ends of every
+     * row and disabled relationship types are left out of the pattern. With a root person the candidates are further
+     * limited to that person's family tree.
+     */
+    public FlowGraphDTO getFilteredGraph(String treeId, Filter.FilterBy filterBy) {
+        FilterCypherCompiler.CompiledFilter filter = FilterCypherCompiler.compile(filterBy);
+        Map<String, Object> params = new HashMap<>(filter.parameters());
+        params.put("treeId", treeId);
+
+        String scope = "";
+        Filter.RootPerson rootPerson = filterBy != null ? filterBy.getRootPerson() : null;
+        if (rootPerson != null && rootPerson.getPerson() != null && rootPerson.getPerson().getId() != null) {
+            params.put("scopeIds", familyScope(treeId, rootPerson.getPerson().getId(), rootPerson.isOnlyImmediate()));
+            scope = " AND elementId(%s) IN $scopeIds";
+        }
+
+        String relationships = filter.edgeTypes().isEmpty()
+                ? "WITH m, null AS r, null AS n"
+                : String.format("OPTIONAL MATCH (m)-[r:%s]->(n) WHERE %s%s",
+                String.join("|", filter.edgeTypes()), filter.predicate("n"), String.format(scope, "n"));
+        String cypher = String.format("""
+                MATCH (m:Person | House)-[:%s]->(proj:Tree)
+                WHERE elementId(proj) = $treeId AND %s%s
+                %s
+                RETURN n, r, m
+                """, Constants.PART_OF, filter.predicate("m"), String.format(scope, "m"), relationships);
+        log.info("Cypher to get the filtered graph: \n {}", cypher);
+
+        Set<FlowNodeDTO> nodes = new HashSet<>();
+        Set<FlowEdgeDTO> edges = new HashSet<>();
+        neo4jClient.query(cypher).bindAll(params).fetch()
+                .all()
+                .forEach(row -> {
+                    addNode((Node) row.get("n"), nodes);
+                    addNode((Node) row.get("m"), nodes);
+                    addEdge((Relationship) row.get("r"), edges);
+                });
+        log.info("Filtered graph generated with {} nodes and {} edges", nodes.size(), edges.size());
+        return new FlowGraphDTO(new ArrayList<>(nodes), new ArrayList<>(edges));
+    }
+
+    /**
+     * Graph filtered by a saved filter, evaluated in memory against the cached full graph. The matching node ids are
+     * memoized per filter and tree version, so re-applying a filter to an unchanged tree skips the evaluation.
+     */
+    public FlowGraphDTO getFilteredGraph(String treeId, FilterPredicate predicate) {
+        long version;
+        try {
+            version = treeVersionService.currentVersion(treeId);
+        } catch (Exception e) {
+            log.warn("Tree version unavailable for {}, filter {} matches are not memoized: {}", treeId, predicate.getFilterId(), e.getMessage());
+            version = -1;
+        }
+        FlowGraphDTO graph = getGraph(treeId);
+        Set<String> nodeIds = filterPredicateCache.matchingNodeIds(predicate, version, () -> {
+            List<String> scope = predicate.getRootPersonId() != null
+                    ? familyScope(treeId, predicate.getRootPersonId(), predicate.isOnlyImmediate())
+                    : null;
+            return predicate.matchingNodeIds(graph, scope);
+        });
+
+        List<FlowNodeDTO> nodes = graph.getNodes().stream().filter(node -> nodeIds.contains(node.getId())).toList();
+        List<FlowEdgeDTO> edges = graph.getEdges().stream().filter(edge -> predicate.testEdge(edge, nodeIds)).toList();
+        log.info("Filter {} kept {} nodes and {} edges of tree {}", predicate.getFilterId(), nodes.size(), edges.size(), treeId);
+        return new FlowGraphDTO(new ArrayList<>(nodes), new ArrayList<>(edges));
+    }
+
+    // Node ids of the root person's family tree, from the adjacency index when available
+    private List<String> familyScope(String treeId, String rootId, boolean onlyImmediate) {
+        int depth = onlyImmediate ? 1 : TreeAdjacencyIndex.UNLIMITED;
+        Optional<TreeAdjacencyIndex> index = adjacencyIndexService.get(treeId, () -> getGraph(treeId));
+        if (index.isPresent()) {
+            return index.get().family(rootId, depth).nodeIds();
+        }
+        List<String> scope = new ArrayList<>();
+        neo4jClient.query(familyTreeCypher(onlyImmediate))
+                .bind(rootId).to("elementId")
+                .fetch()
+                .one()
+                .ifPresent(row -> ((List<Node>) row.get("nodes")).forEach(node -> scope.add(node.elementId())));
+        return scope;
+    }
+
     private void addNode(Node obj, Set<FlowNodeDTO> nodes) {
-        Optional<Node> n = Optional.ofNullable(obj);
-        if (n.isPresent()) {
-            Node node = n.get();
-            String id = node.elementId();
-            String name = node.get("name").asString("");
-            String type = node.labels().iterator().next();
-
-            if ("Person".equalsIgnoreCase(type)) {
-                try {
-                    // String id, name, type are already defined before this block
-                    Person person = PersonNodeConverter.flattenedMapToPerson(new HashMap<>(node.asMap()), id);
-                    Map<String, Object> dataForDto = objectMapper.convertValue(person, new TypeReference<Map<String, Object>>() {
-                    });
-                    FlowNodeDTO flowNode = new FlowNodeDTO(id, name, type, dataForDto, new FlowPositionDTO());
-                    nodes.add(flowNode);
-                } catch (Exception e) {
-                    log.error("Error processing Person node ID={} for addNode: {}. Falling back to raw properties.", id, e.getMessage());
-                    FlowNodeDTO flowNode = new FlowNodeDTO(id, name, type, new HashMap<>(node.asMap()), new FlowPositionDTO());
-                    nodes.add(flowNode);
-                }
-            } else {
-                // For non-Person nodes, keep the existing behavior
-                FlowNodeDTO flowNode = new FlowNodeDTO(id, name, type, new HashMap<>(node.asMap()), new FlowPositionDTO());
-                nodes.add(flowNode);
+        if (obj != null) {
+            nodes.add(toFlowNode(obj));
+        }
+    }
+
+    private FlowNodeDTO toFlowNode(Node node) {
+        String id = node.elementId();
+        String name = node.get("name").asString("");
+        String type = node.labels().iterator().next();
+
+        if ("Person".equalsIgnoreCase(type)) {
+            try {
+                // String id, name, type are already defined before this block
+                return new FlowNodeDTO(id, name, type, personFlowNodeMapper.toData(node, id), new FlowPositionDTO());
+            } catch (Exception e) {
+                log.error("Error processing Person node ID={} for addNode: {}. Falling back to raw properties.", id, e.getMessage());
+                return new FlowNodeDTO(id, name, type, new HashMap<>(node.asMap()), new FlowPositionDTO());
             }
         }
+        // For non-Person nodes, keep the existing behavior
+        return new FlowNodeDTO(id, name, type, new HashMap<>(node.asMap()), new FlowPositionDTO());
     }
 
     private void addEdge(Relationship obj, Set<FlowEdgeDTO> edges) {
-        Optional<Relationship> rel = Optional.ofNullable(obj);
-        if (rel.isPresent()) {
-            Relationship relation = rel.get();
-            String srcId = relation.startNodeElementId();
-            String tgtId = relation.endNodeElementId();
-            String edgeId = relation.elementId();
-            FlowEdgeDTO flowEdge = new FlowEdgeDTO(edgeId, srcId, tgtId, relation.type(), relation.asMap());
-            // log.info("edge identified {}",flowEdge);
-            edges.add(flowEdge);
+        if (obj != null) {
+            edges.add(toFlowEdge(obj));
+        }
+    }
+
+    private FlowEdgeDTO toFlowEdge(Relationship relation) {
+        return new FlowEdgeDTO(relation.elementId(), relation.startNodeElementId(), relation.endNodeElementId(), relation.type(), relation.asMap());
+    }
+
+    private void emitNode(org.neo4j.driver.Value value, ElementIdSet seen, GraphRecordSink sink) {
+        if (value == null || value.isNull()) {
+            return;
+        }
+        Node node = value.asNode();
+        if (seen.add(node.elementId())) {
+            sink.node(toFlowNode(node));
+        }
+    }
+
+    private void emitEdge(org.neo4j.driver.Value value, ElementIdSet seen, GraphRecordSink sink) {
+        if (value == null || value.isNull()) {
+            return;
+        }
+        Relationship relation = value.asRelationship();
+        if (seen.add(relation.elementId())) {
+            sink.edge(toFlowEdge(relation));
         }
     }
 
-    public FlowGraphDTO getFamilyTree(String elementId, boolean isImmediate) {
+    public FlowGraphDTO getFamilyTree(String treeId, String elementId, boolean isImmediate) {
+        Optional<TreeAdjacencyIndex> index = adjacencyIndexService.get(treeId, () -> getGraph(treeId));
+        if (index.isPresent() && index.get().contains(elementId)) {
+            TreeAdjacencyIndex.Selection family = index.get().family(elementId, isImmediate ? 1 : TreeAdjacencyIndex.UNLIMITED);
+            FlowGraphDTO graph = select(getGraph(treeId), family);
+            log.info("Family tree served from adjacency index with {} nodes and {} edges", graph.getNodes().size(), graph.getEdges().size());
+            return graph;
+        }
+
+        String cypher = familyTreeCypher(isImmediate);
+        log.info("Cypher to fetch family tree:\n {}", cypher);
+        Set<FlowNodeDTO> nodes = new HashSet<>();
+        Set<FlowEdgeDTO> edges = new HashSet<>();
+        neo4jClient.query(cypher)
+                .bind(elementId).to("elementId")
+                .fetch()
+                .one()
+                .ifPresent(row -> {
+                    ((List<Node>) row.get("nodes")).forEach(node -> addNode(node, nodes));
+                    ((List<Relationship>) row.get("relationships")).forEach(relation -> addEdge(relation, edges));
+                });
+
+        log.info("Graph generated with {} nodes and {} edges", nodes.size(), edges.size());
+        return new FlowGraphDTO(new ArrayList<>(nodes), new ArrayList<>(edges));
+    }
+
+    // Picks the selected elements out of the (cached) full graph
+    private static FlowGraphDTO select(FlowGraphDTO graph, TreeAdjacencyIndex.Selection selection) {
+        Set<String> nodeIds = new HashSet<>(selection.nodeIds());
+        Set<String> edgeIds = new HashSet<>(selection.edgeIds());
+        List<FlowNodeDTO> nodes = new ArrayList<>(nodeIds.size());
+        List<FlowEdgeDTO> edges = new ArrayList<>(edgeIds.size());
+        for (FlowNodeDTO node : graph.getNodes()) {
+            if (nodeIds.contains(node.getId())) {
+                nodes.add(node);
+            }
+        }
+        for (FlowEdgeDTO edge : graph.getEdges()) {
+            if (edgeIds.contains(edge.getId())) {
+                edges.add(edge);
+            }
+        }
+        return new FlowGraphDTO(nodes, edges);
+    }
+
+    /**
+     * Streaming counterpart of {@link #getFamilyTree(String, String, boolean)}: emits each family member's elements as
+     * their rows arrive instead of waiting for the single aggregated row of {@link #familyTreeCypher(boolean)}.
+     */
+    public void streamFamilyTree(String elementId, boolean isImmediate, GraphRecordSink sink) {
+        String cypher = familyTreeStreamCypher(isImmediate);
+        ElementIdSet seenNodes = new ElementIdSet();
+        ElementIdSet seenEdges = new ElementIdSet();
+        log.info("Cypher to stream family tree:\n {}", cypher);
+        neo4jClient.delegateTo(runner -> {
+            Result result = runner.run(cypher, Map.<String, Object>of("elementId", elementId));
+            while (result.hasNext()) {
+                org.neo4j.driver.Record row = result.next();
+                emitNode(row.get("n"), seenNodes, sink);
+                emitNode(row.get("m"), seenNodes, sink);
+                emitEdge(row.get("r"), seenEdges, sink);
+            }
+            return Optional.empty();
+        }).run();
+        log.info("Family tree streamed with {} nodes and {} edges", seenNodes.size(), seenEdges.size());
+    }
+
+    /**
+     * Family of a person as a single row: the distinct nodes and the distinct relationships.
+     * Every descendant is reached once, and the last relationship of each path is the PARENT_OF edge into that
+     * descendant, so collecting it yields every parent edge of the traversal without expanding whole paths.
+     * Spouses and houses are then matched once per person instead of once per combination of rows.
+     */
+    static String familyTreeCypher(boolean isImmediate) {
         String depthRange = isImmediate ? "1..1" : "1..";
 
-        String cypher = String.format("""
+        return String.format("""
                         MATCH (root:Person)
                         WHERE elementId(root) = $elementId
                         
-                        // Root <-> Spouse
-                        OPTIONAL MATCH (root)-[spouseRel:%s]-(spouse:Person)
-                        
                         // Root -> Descendants
-                        OPTIONAL MATCH path=(root)-[descendantRel:%s*%s]->(descendant:Person)
+                        OPTIONAL MATCH (root)-[descendantRels:%s*%s]->(descendant:Person)
+                        WITH root, collect(DISTINCT descendant) AS descendants, collect(DISTINCT last(descendantRels)) AS parentRels
+                        WITH [root] + descendants AS lineage, parentRels
                         
-                        // Descendant <-> Spouse
-                        OPTIONAL MATCH (descendant)-[descendantSpouseRel:%s]-(descendantSpouse:Person)
+                        // Root and Descendants <-> Spouse
+                        UNWIND lineage AS person
+                        OPTIONAL MATCH (person)-[spouseRel:%s]-(spouse:Person)
+                        WITH lineage, parentRels, collect(DISTINCT spouse) AS spouses, collect(DISTINCT spouseRel) AS spouseRels
                         
                         // Houses for all persons
-                        OPTIONAL MATCH (root)-[rootHouseRel:%s]-(rootHouse:House)
-                        OPTIONAL MATCH (spouse)-[spouseHouseRel:%s]-(spouseHouse:House)
-                        OPTIONAL MATCH (descendant)-[descendantHouseRel:%s]-(descendantHouse:House)
-                        OPTIONAL MATCH (descendantSpouse)-[descSpouseHouseRel:%s]-(descSpouseHouse:House)
+                        UNWIND lineage + spouses AS member
+                        OPTIONAL MATCH (member)-[houseRel:%s]-(house:House)
+                        WITH lineage, spouses, parentRels, spouseRels, collect(DISTINCT house) AS houses, collect(DISTINCT houseRel) AS houseRels
                         
-                        RETURN DISTINCT
-                            root,
-                            spouse,
-                            descendant,
-                            descendantSpouse,
-                            spouseRel,
-                            descendantRel,
-                            descendantSpouseRel,
-                            rootHouse,
-                            spouseHouse,
-                            descendantHouse,
-                            descSpouseHouse,
-                            rootHouseRel,
-                            spouseHouseRel,
-                            descendantHouseRel,
-                            descSpouseHouseRel
+                        RETURN lineage + spouses + houses AS nodes,
+                               parentRels + spouseRels + houseRels AS relationships
                         """,
-                Constants.MARRIED_REL,       // %s → spouseRel
-                Constants.PARENT_REL,        // %s → descendantRel
+                Constants.PARENT_REL,        // %s → descendantRels
                 depthRange,                  // %s → depth range
-                Constants.MARRIED_REL,       // %s → descendantSpouseRel
-                Constants.BELONGS_REL,       // %s → rootHouseRel
-                Constants.BELONGS_REL,       // %s → spouseHouseRel
-                Constants.BELONGS_REL,       // %s → descendantHouseRel
-                Constants.BELONGS_REL        // %s → descSpouseHouseRel
+                Constants.MARRIED_REL,       // %s → spouseRel
+                Constants.BELONGS_REL        // %s → houseRel
         );
+    }
 
+    /**
+     * Family of a person as (n, r, m) rows like the full graph, without aggregating: the distinct lineage members are
+     * produced as the expansion finds them and each member yields its own row, its PARENT_OF edges, its marriages and
+     * the houses of it and its spouses. The same element can appear in several rows, readers drop repeats.
+     */
+    static String familyTreeStreamCypher(boolean isImmediate) {
+        return String.format("""
+                        MATCH (root:Person)
+                        WHERE elementId(root) = $elementId
+                        
+                        // Root and Descendants, each once
+                        MATCH (root)-[:%1$s*0..%2$s]->(person:Person)
+                        WITH DISTINCT root, person
+                        CALL {
+                            WITH person
+                            RETURN person AS n, null AS r, null AS m
+                          UNION
+                            // Parent -> Child
+                            WITH root, person
+                            MATCH (person)-[r:%1$s]->(m:Person)
+                            WHERE %3$s
+                            RETURN person AS n, r, m
+                          UNION
+                            // Person <-> Spouse
+                            WITH person
+                            MATCH (person)-[r:%4$s]-(m:Person)
+                            RETURN person AS n, r, m
+                          UNION
+                            // Houses of the person
+                            WITH person
+                            MATCH (person)-[r:%5$s]-(m:House)
+                            RETURN person AS n, r, m
+                          UNION
+                            // Houses of the spouses
+                            WITH person
+                            MATCH (person)-[:%4$s]-(n:Person)-[r:%5$s]-(m:House)
+                            RETURN n, r, m
+                        }
+                        RETURN n, r, m
+                        """,
+                Constants.PARENT_REL,                 // %1$s → lineage and parent edges
+                isImmediate ? "1" : "",               // %2$s → depth
+                isImmediate ? "person = root" : "true", // %3$s → parent edges inside the lineage
+                Constants.MARRIED_REL,                // %4$s → spouseRel
+                Constants.BELONGS_REL                 // %5$s → houseRel
+        );
+    }
 
-        log.info("Cypher to fetch family tree:\n {}", cypher);
+    /**
+     * Pedigree of a person within a tree: parents, grandparents and so on up to {@code depth} generations, with the
+     * spouses and houses of those ancestors. The depth is clamped to graph.ancestors.max-depth and at most
+     * graph.ancestors.max-nodes ancestors are returned, nearest generations first.
+     */
+    public FlowGraphDTO getAncestors(String treeId, String elementId, int depth) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("depth must be at least 1");
+        }
+        int generations = Math.min(depth, ancestorsMaxDepth);
+        Optional<TreeAdjacencyIndex> index = adjacencyIndexService.get(treeId, () -> getGraph(treeId));
+        if (index.isPresent() && "Person".equals(index.get().typeOf(elementId))) {
+            // The cap counts ancestors, the selection counts the root as well
+            TreeAdjacencyIndex.Selection pedigree = index.get().pedigree(elementId, generations, ancestorsMaxNodes + 1);
+            if (pedigree.truncated()) {
+                log.warn("Ancestors of {} truncated to {} persons", elementId, ancestorsMaxNodes);
+            }
+            FlowGraphDTO graph = select(getGraph(treeId), pedigree);
+            log.info("Ancestors graph served from adjacency index with {} nodes and {} edges", graph.getNodes().size(), graph.getEdges().size());
+            return graph;
+        }
+
+        String cypher = ancestorsCypher(generations);
+        log.info("Cypher to fetch ancestors:\n {}", cypher);
         Set<FlowNodeDTO> nodes = new HashSet<>();
         Set<FlowEdgeDTO> edges = new HashSet<>();
         neo4jClient.query(cypher)
+                .bind(treeId).to("treeId")
                 .bind(elementId).to("elementId")
+                .bind(ancestorsMaxNodes).to("maxNodes")
                 .fetch()
-                .all()
-                .forEach(row -> {
-                    addPersonNode((Node) row.get("root"), nodes);
-                    addPersonNode((Node) row.get("spouse"), nodes);
-                    addPersonNode((Node) row.get("descendant"), nodes);
-                    addPersonNode((Node) row.get("descendantSpouse"), nodes);
-
-                    addNode((Node) row.get("rootHouse"), nodes);
-                    addNode((Node) row.get("spouseHouse"), nodes);
-                    addNode((Node) row.get("descendantHouse"), nodes);
-                    addNode((Node) row.get("descSpouseHouse"), nodes);
-
-                    addEdge((Relationship) row.get("spouseRel"), edges);
-                    List<Relationship> descendantRelList = (List<Relationship>) row.get("descendantRel");
-                    if (descendantRelList != null && !descendantRelList.isEmpty()) {
-                        addEdge(descendantRelList.get(0), edges); // Only use the first relation
+                .one()
+                .ifPresent(row -> {
+                    ((List<Node>) row.get("persons")).forEach(person -> addPersonNode(person, nodes));
+                    ((List<Node>) row.get("houses")).forEach(house -> addNode(house, nodes));
+                    ((List<Relationship>) row.get("relationships")).forEach(relation -> addEdge(relation, edges));
+                    if (Boolean.TRUE.equals(row.get("truncated"))) {
+                        log.warn("Ancestors of {} truncated to {} persons", elementId, ancestorsMaxNodes);
                     }
-                    addEdge((Relationship) row.get("descendantSpouseRel"), edges);
-
-                    addEdge((Relationship) row.get("rootHouseRel"), edges);
-                    addEdge((Relationship) row.get("spouseHouseRel"), edges);
-                    addEdge((Relationship) row.get("descendantHouseRel"), edges);
-                    addEdge((Relationship) row.get("descSpouseHouseRel"), edges);
                 });
 
-        log.info("Graph generated with {} nodes and {} edges", nodes.size(), edges.size());
+        log.info("Ancestors graph generated with {} nodes and {} edges", nodes.size(), edges.size());
         return new FlowGraphDTO(new ArrayList<>(nodes), new ArrayList<>(edges));
     }
 
+    /**
+     * Ancestors expanded one generation at a time, {@code depth} unrolled steps. Each step matches the parents of the
+     * previous generation only, keeps those not seen yet and stops adding once $maxNodes ancestors are kept, so an
+     * ancestor reached through several lines (pedigree collapse) is expanded once and the cap bounds the work.
+     * The PARENT_OF edges of a step are kept when both ends are in the pedigree.
+     */
+    private static String ancestorsCypher(int depth) {
+        String generation = String.format("""
+                        CALL {
+                            WITH frontier
+                            UNWIND frontier AS child
+                            MATCH (parent:Person)-[rel:%s]->(child)
+                            RETURN collect(DISTINCT parent) AS parents, collect(rel) AS rels
+                        }
+                        WITH lineage, parentRels, truncated, rels, [p IN parents WHERE NOT p IN lineage] AS fresh
+                        WITH lineage, parentRels, rels, fresh[0..($maxNodes + 1 - size(lineage))] AS frontier,
+                             truncated OR size(fresh) > $maxNodes + 1 - size(lineage) AS truncated
+                        WITH lineage + frontier AS lineage, frontier, truncated,
+                             parentRels + [r IN rels WHERE startNode(r) IN lineage + frontier] AS parentRels
+                        """, Constants.PARENT_REL);
+        StringBuilder generations = new StringBuilder();
+        for (int i = 1; i <= depth; i++) {
+            generations.append("// Generation ").append(i).append('\n').append(generation);
+        }
+
+        return String.format("""
+                        MATCH (root:Person)-[:%1$s]->(t:Tree)
+                        WHERE elementId(root) = $elementId AND elementId(t) = $treeId
+                        WITH [root] AS lineage, [root] AS frontier, [] AS parentRels, false AS truncated
+                        
+                        %2$s
+                        WITH lineage, lineage[1..] AS ancestors, parentRels, truncated
+                        
+                        // Ancestors <-> Spouse
+                        UNWIND CASE WHEN size(ancestors) = 0 THEN [null] ELSE ancestors END AS person
+                        OPTIONAL MATCH (person)-[spouseRel:%3$s]-(spouse:Person)
+                        WITH lineage, parentRels, truncated, collect(DISTINCT spouse) AS spouses, collect(DISTINCT spouseRel) AS spouseRels
+                        
+                        // Houses for all persons
+                        UNWIND lineage + spouses AS member
+                        OPTIONAL MATCH (member)-[houseRel:%4$s]-(house:House)
+                        WITH lineage, spouses, parentRels, spouseRels, truncated, collect(DISTINCT house) AS houses, collect(DISTINCT houseRel) AS houseRels
+                        
+                        RETURN lineage + spouses AS persons,
+                               houses,
+                               parentRels + spouseRels + houseRels AS relationships,
+                               truncated
+                        """,
+                Constants.PART_OF,           // %1$s → root's tree
+                generations,                 // %2$s → unrolled generations
+                Constants.MARRIED_REL,       // %3$s → spouseRel
+                Constants.BELONGS_REL        // %4$s → houseRel
+        );
+    }
+
     private void addPersonNode(Node personNode, Set<FlowNodeDTO> nodes) {
         if (personNode == null) {
             return; // Or handle as appropriate if null nodes shouldn't occur here
         }
+        nodes.add(toPersonFlowNode(personNode));
+    }
 
+    private FlowNodeDTO toPersonFlowNode(Node personNode) {
         String id = personNode.elementId();
         String name = personNode.get("name").asString("");
         // String type = personNode.labels().iterator().next(); // Should always be "Person"
 
         try {
             // String id, name are already defined
-            Person person = PersonNodeConverter.flattenedMapToPerson(new HashMap<>(personNode.asMap()), id);
-            Map<String, Object> dataForDto = objectMapper.convertValue(person, new TypeReference<Map<String, Object>>() {
-            });
-            FlowNodeDTO flowNode = new FlowNodeDTO(id, name, "Person", dataForDto, new FlowPositionDTO()); // Type is "Person"
-            nodes.add(flowNode);
+            return new FlowNodeDTO(id, name, "Person", personFlowNodeMapper.toData(personNode, id), new FlowPositionDTO()); // Type is "Person"
         } catch (Exception e) {
             log.error("Error processing Person node ID={} in addPersonNode: {}. Falling back to raw properties.", id, e.getMessage());
             Map<String, Object> fallbackData = new HashMap<>(personNode.asMap());
             // Ensure name is in fallback, though it's also passed to FlowNodeDTO constructor
             fallbackData.putIfAbsent("name", name);
-            FlowNodeDTO flowNode = new FlowNodeDTO(id, name, "Person", fallbackData, new FlowPositionDTO());
-            nodes.add(flowNode);
+            return new FlowNodeDTO(id, name, "Person", fallbackData, new FlowPositionDTO());
         }
     }
 
@@ -261,16 +579,15 @@ public class GraphService {
     }
 
     @Transactional
-    public void updateGraph(String treeId, GraphDiffDTO diff) {
+    public GraphDiffResultDTO updateGraph(String treeId, GraphDiffDTO diff) {
         log.info("Starting graph update for treeId: {}", treeId);
-        Map<String, String> dummyToActualNodeIdMap = new HashMap<>();
+        GraphDiffResultDTO result = new GraphDiffResultDTO();
 
-        // Process Added Nodes
-        if (diff.getAddedNodes() != null) {
+        // Process Added Nodes: one UNWIND statement per label, PART_OF link created in the same statement
+        if (diff.getAddedNodes() != null && !diff.getAddedNodes().isEmpty()) {
+            Map<String, List<Map<String, Object>>> rowsByLabel = new LinkedHashMap<>();
             for (FlowNodeDTO nodeDTO : diff.getAddedNodes()) {
-                log.info("Adding node: ID_DUMMY={} TYPE={} DATA={}", nodeDTO.getId(), nodeDTO.getType(), nodeDTO.getData());
                 String nodeLabel = (nodeDTO.getType() != null && !nodeDTO.getType().trim().isEmpty()) ? nodeDTO.getType() : "Person";
-
                 Map<String, Object> propertiesToSave;
                 if ("Person".equalsIgnoreCase(nodeLabel)) {
                     Person person = objectMapper.convertValue(nodeDTO.getData(), Person.class);
@@ -280,69 +597,73 @@ public class GraphService {
                 }
                 propertiesToSave.remove("id"); // Ensure dummy ID is not saved
 
-                String createNodeCypher =
-                        "MATCH (t:Tree) WHERE elementId(t) = $treeId " +
-                                "CREATE (n:" + nodeLabel + " $props) " +
-                                "CREATE (n)-[:PART_OF]->(t) " +
-                                "RETURN elementId(n) as actualId";
-
-                String actualId = neo4jClient.query(createNodeCypher)
-                        .bind(treeId).to("treeId").bind(propertiesToSave).to("props")
-                        .fetch()
-                        .one().orElseThrow().get("actualId").toString();
-
-                dummyToActualNodeIdMap.put(nodeDTO.getId(), actualId);
-                log.info("Created node with dummy ID {} as actual ID {}", nodeDTO.getId(), actualId);
+                Map<String, Object> row = new HashMap<>();
+                row.put("dummyId", nodeDTO.getId());
+                row.put("props", propertiesToSave);
+                rowsByLabel.computeIfAbsent(validIdentifier(nodeLabel), k -> new ArrayList<>()).add(row);
+            }
 
-                // Link new node to the tree using PART_OF relationship (ensure Constants.PART_OF is defined)
-                String linkToTreeCypher = "MATCH (n) WHERE elementId(n) = $actualId " +
-                        "MATCH (t:Tree) WHERE elementId(t) = $treeId " +
-                        "MERGE (n)-[:" + Constants.PART_OF + "]->(t)";
-                neo4jClient.query(linkToTreeCypher)
-                        .bind(actualId).to("actualId")
+            rowsByLabel.forEach((nodeLabel, rows) -> {
+                String createNodesCypher = String.format("""
+                        MATCH (t:Tree) WHERE elementId(t) = $treeId
+                        UNWIND $rows AS row
+                        CREATE (n:%s)
+                        SET n = row.props
+                        CREATE (n)-[:%s]->(t)
+                        RETURN row.dummyId AS dummyId, elementId(n) AS actualId
+                        """, nodeLabel, Constants.PART_OF);
+                Collection<Map<String, Object>> created = neo4jClient.query(createNodesCypher)
                         .bind(treeId).to("treeId")
-                        .run();
-                log.info("Linked node {} to tree {}", actualId, treeId);
-            }
+                        .bind(rows).to("rows")
+                        .fetch()
+                        .all();
+                if (created.size() != rows.size()) {
+                    throw new IllegalArgumentException("Tree " + treeId + " not found while adding " + nodeLabel + " nodes");
+                }
+                created.forEach(row -> result.getNodeIdMap().put((String) row.get("dummyId"), (String) row.get("actualId")));
+                log.info("Created {} {} nodes in tree {}", created.size(), nodeLabel, treeId);
+            });
         }
 
-        // Process Added Edges
-        if (diff.getAddedEdges() != null) {
+        // Process Added Edges: one UNWIND statement per relationship type
+        if (diff.getAddedEdges() != null && !diff.getAddedEdges().isEmpty()) {
+            Map<String, List<Map<String, Object>>> rowsByType = new LinkedHashMap<>();
             for (FlowEdgeDTO edgeDTO : diff.getAddedEdges()) {
-                String sourceId = dummyToActualNodeIdMap.getOrDefault(edgeDTO.getSource(), edgeDTO.getSource());
-                String targetId = dummyToActualNodeIdMap.getOrDefault(edgeDTO.getTarget(), edgeDTO.getTarget());
                 String relationshipType = (edgeDTO.getType() != null && !edgeDTO.getType().trim().isEmpty()) ? edgeDTO.getType() : "RELATED_TO";
 
-                Map<String, Object> properties = edgeDTO.getData() != null ? new HashMap<>(edgeDTO.getData()) : new HashMap<>();
-                // Remove fields that are not properties of the relationship itself
-                properties.remove("id");
-                properties.remove("source");
-                properties.remove("target");
-                properties.remove("type");
-                properties.remove("label"); // Often a duplicate of 'type' or used for display
-
-                log.info("Adding edge: DUMMY_ID={} TYPE={} FROM={} TO={} PROPERTIES={}", edgeDTO.getId(), relationshipType, sourceId, targetId, properties);
-                String createEdgeCypher = "MATCH (source) WHERE elementId(source) = $sourceId " +
-                        "MATCH (target) WHERE elementId(target) = $targetId " +
-                        "CREATE (source)-[r:" + relationshipType + " $props]->(target) RETURN elementId(r) as actualId";
-
-                String actualEdgeId = neo4jClient.query(createEdgeCypher)
-                        .bind(sourceId).to("sourceId")
-                        .bind(targetId).to("targetId")
-                        .bind(properties).to("props")
-                        .fetch()
-                        .one().orElseThrow().get("actualId").toString();
-                log.info("Created edge with dummy ID {} as actual ID {}", edgeDTO.getId(), actualEdgeId);
+                Map<String, Object> row = new HashMap<>();
+                row.put("dummyId", edgeDTO.getId());
+                row.put("sourceId", result.getNodeIdMap().getOrDefault(edgeDTO.getSource(), edgeDTO.getSource()));
+                row.put("targetId", result.getNodeIdMap().getOrDefault(edgeDTO.getTarget(), edgeDTO.getTarget()));
+                row.put("props", edgeProperties(edgeDTO));
+                rowsByType.computeIfAbsent(validIdentifier(relationshipType), k -> new ArrayList<>()).add(row);
             }
+
+            rowsByType.forEach((relationshipType, rows) -> {
+                String createEdgesCypher = String.format("""
+                        UNWIND $rows AS row
+                        MATCH (source) WHERE elementId(source) = row.sourceId
+                        MATCH (target) WHERE elementId(target) = row.targetId
+                        CREATE (source)-[r:%s]->(target)
+                        SET r = row.props
+                        RETURN row.dummyId AS dummyId, elementId(r) AS actualId
+                        """, relationshipType);
+                Collection<Map<String, Object>> created = neo4jClient.query(createEdgesCypher)
+                        .bind(rows).to("rows")
+                        .fetch()
+                        .all();
+                if (created.size() != rows.size()) {
+                    throw new IllegalArgumentException("Source or target node not found for " + (rows.size() - created.size()) + " " + relationshipType + " edges");
+                }
+                created.forEach(row -> result.getEdgeIdMap().put((String) row.get("dummyId"), (String) row.get("actualId")));
+                log.info("Created {} {} edges in tree {}", created.size(), relationshipType, treeId);
+            });
         }
 
         // Process Updated Nodes
-        if (diff.getUpdatedNodes() != null) {
+        if (diff.getUpdatedNodes() != null && !diff.getUpdatedNodes().isEmpty()) {
+            List<Map<String, Object>> rows = new ArrayList<>(diff.getUpdatedNodes().size());
             for (FlowNodeDTO nodeDTO : diff.getUpdatedNodes()) {
-                log.info("Updating node: ID={}", nodeDTO.getId());
-                // ID for existing nodes is the actual elementId
-                String nodeId = nodeDTO.getId();
-
                 Map<String, Object> propertiesToSet;
                 if ("Person".equalsIgnoreCase(nodeDTO.getType())) { // Assuming type is reliable
                     Person person = objectMapper.convertValue(nodeDTO.getData(), Person.class);
@@ -352,76 +673,53 @@ public class GraphService {
                 }
                 propertiesToSet.remove("id"); // ID for existing nodes is nodeId, not part of SET properties normally.
 
-                // Add position data if available - this must be done AFTER propertiesToSet is initialized
                 if (nodeDTO.getPosition() != null) {
                     propertiesToSet.put("x", nodeDTO.getPosition().getX());
                     propertiesToSet.put("y", nodeDTO.getPosition().getY());
                 }
-                // Node type (label) changes are complex and usually handled by deleting and recreating the node.
-                // For simplicity, we are not handling label changes here. We only update properties.
-                // If propertiesToSet is empty, Neo4j might remove all properties. Consider this behavior.
-                // If you want to only update specific fields, build the SET clause dynamically.
-
-                String updateNodeCypher = "MATCH (n) WHERE elementId(n) = $nodeId SET n += $props";
-
-                neo4jClient.query(updateNodeCypher)
-                        .bind(nodeId).to("nodeId")
-                        .bind(propertiesToSet).to("props")
-                        .run();
-                log.info("Updated node with ID {}", nodeId);
+                // Label changes are not handled here, only properties are updated.
+                Map<String, Object> row = new HashMap<>();
+                row.put("id", nodeDTO.getId());
+                row.put("props", propertiesToSet);
+                rows.add(row);
             }
+            neo4jClient.query("UNWIND $rows AS row MATCH (n) WHERE elementId(n) = row.id SET n += row.props")
+                    .bind(rows).to("rows")
+                    .run();
+            log.info("Updated {} nodes", rows.size());
         }
 
         // Process Updated Edges
-        if (diff.getUpdatedEdges() != null) {
+        if (diff.getUpdatedEdges() != null && !diff.getUpdatedEdges().isEmpty()) {
+            List<Map<String, Object>> rows = new ArrayList<>(diff.getUpdatedEdges().size());
             for (FlowEdgeDTO edgeDTO : diff.getUpdatedEdges()) {
-                log.info("Updating edge: ID={}", edgeDTO.getId());
-                // ID for existing edges is the actual elementId
-                String edgeId = edgeDTO.getId();
-
-                Map<String, Object> propertiesToUpdate = edgeDTO.getData() != null ? new HashMap<>(edgeDTO.getData()) : new HashMap<>();
-                // Remove fields that are not part of edge properties or are immutable
-                propertiesToUpdate.remove("id");
-                propertiesToUpdate.remove("source");
-                propertiesToUpdate.remove("target");
-                propertiesToUpdate.remove("type");
-                propertiesToUpdate.remove("label");
-
                 // Relationship type changes are not handled here (usually delete and recreate).
-                // If propertiesToUpdate is empty, it might clear existing properties.
-                String updateEdgeCypher = "MATCH ()-[r]->() WHERE elementId(r) = $edgeId SET r += $props";
-
-                neo4jClient.query(updateEdgeCypher)
-                        .bind(edgeId).to("edgeId")
-                        .bind(propertiesToUpdate).to("props")
-                        .run();
-                log.info("Updated edge with ID {}", edgeId);
+                Map<String, Object> row = new HashMap<>();
+                row.put("id", edgeDTO.getId());
+                row.put("props", edgeProperties(edgeDTO));
+                rows.add(row);
             }
+            neo4jClient.query("UNWIND $rows AS row MATCH ()-[r]->() WHERE elementId(r) = row.id SET r += row.props")
+                    .bind(rows).to("rows")
+                    .run();
+            log.info("Updated {} edges", rows.size());
         }
 
         // Process Deleted Nodes
-        if (diff.getDeletedNodeIds() != null) {
-            for (String nodeId : diff.getDeletedNodeIds()) {
-                log.info("Deleting node: ID={}", nodeId);
-                // Using DETACH DELETE to remove the node and all its relationships
-                String deleteNodeCypher = "MATCH (n) WHERE elementId(n) = $nodeId DETACH DELETE n";
-                neo4jClient.query(deleteNodeCypher)
-                        .bind(nodeId).to("nodeId")
-                        .run();
-                log.info("Deleted node with ID {}", nodeId);
-            }
+        if (diff.getDeletedNodeIds() != null && !diff.getDeletedNodeIds().isEmpty()) {
+            // Using DETACH DELETE to remove the nodes and all their relationships
+            neo4jClient.query("MATCH (n) WHERE elementId(n) IN $nodeIds DETACH DELETE n")
+                    .bind(diff.getDeletedNodeIds()).to("nodeIds")
+                    .run();
+            log.info("Deleted nodes with IDs {}", diff.getDeletedNodeIds());
         }
 
         // Process Deleted Edges
-        if (diff.getDeletedEdgeIds() != null) {
-            for (String edgeId : diff.getDeletedEdgeIds()) {
-                log.info("Deleting edge: ID={}", edgeId);
-                String deleteEdgeCypher = "MATCH ()-[r]->() WHERE elementId(r) = $edgeId DELETE r";
-                neo4jClient.query(deleteEdgeCypher)
-                        .bind(edgeId).to("edgeId")
-                        .run();
-                log.info("Deleted edge with ID {}", edgeId);
-            }
+        if (diff.getDeletedEdgeIds() != null && !diff.getDeletedEdgeIds().isEmpty()) {
+            neo4jClient.query("MATCH ()-[r]->() WHERE elementId(r) IN $edgeIds DELETE r")
+                    .bind(diff.getDeletedEdgeIds()).to("edgeIds")
+                    .run();
+            log.info("Deleted edges with IDs {}", diff.getDeletedEdgeIds());
         }
 
         log.info("Graph update completed for treeId: {}", treeId);
@@ -435,6 +733,9 @@ public class GraphService {
                 (diff.getDeletedEdgeIds() != null && !diff.getDeletedEdgeIds().isEmpty());
 
         if (changesMade) {
+            treeVersionService.bumpVersion(treeId);
+            adjacencyIndexService.applyAfterCommit(treeId, diff, result);
+            facetService.applyAfterCommit(treeId, diff, result);
             String actorUserElementId = SecurityContextHolder.getContext().getAuthentication().getName(); // Assumes principal is user elementId
             dev.anudeep.familytree.model.User actor = userRepository.findByElementId(actorUserElementId)
                     .orElse(new dev.anudeep.familytree.model.User(null, "Unknown User", null)); // Fallback for actor name
@@ -466,5 +767,25 @@ public class GraphService {
             );
             notificationService.sendNotification(event);
         }
+        return result;
+    }
+
+    private Map<String, Object> edgeProperties(FlowEdgeDTO edgeDTO) {
+        Map<String, Object> properties = edgeDTO.getData() != null ? new HashMap<>(edgeDTO.getData()) : new HashMap<>();
+        // Remove fields that are not properties of the relationship itself
+        properties.remove("id");
+        properties.remove("source");
+        properties.remove("target");
+        properties.remove("type");
+        properties.remove("label"); // Often a duplicate of 'type' or used for display
+        return properties;
+    }
+
+    // Labels and relationship types cannot be bound as parameters, so they are checked before being formatted into Cypher
+    private String validIdentifier(String identifier) {
+        if (!identifier.matches("[A-Za-z_][A-Za-z0-9_]*")) {
+            throw new IllegalArgumentException("Invalid label or relationship type: " + identifier);
+        }
+        return identifier;
     }
 }
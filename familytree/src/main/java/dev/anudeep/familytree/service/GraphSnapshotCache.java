@@ -0,0 +1,176 @@
+package dev.anudeep.familytree.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.anudeep.familytree.dto.FlowGraphDTO;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier cache of full tree graphs keyed by (treeId, tree version).
+ * The in-process tier is an LRU bounded by entry count and by the total number of nodes and edges held;
+ * the Redis tier shares snapshots between backend instances and expires them after a TTL.
+ * A version bump in {@link TreeVersionService} makes every older snapshot unreachable; a failed bump drops the tree's
+ * snapshots instead. Hit and miss counts are exposed through {@link #stats()}.
+ */
+@Slf4j
+@Component
+public class GraphSnapshotCache {
+    private static final String SNAPSHOT_KEY_PREFIX = "familytree:graph-snapshot:";
+
+    private final TreeVersionService treeVersionService;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final int maxEntries;
+    private final long maxWeight;
+    private final Duration redisTtl;
+
+    private final LinkedHashMap<String, Snapshot> localSnapshots = new LinkedHashMap<>(16, 0.75f, true);
+    private long localWeight = 0;
+
+    private final LongAdder localHits = new LongAdder();
+    private final LongAdder redisHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public GraphSnapshotCache(TreeVersionService treeVersionService,
+                              StringRedisTemplate redisTemplate,
+                              ObjectMapper objectMapper,
+                              @Value("${graph.cache.max-entries:64}") int maxEntries,
+                              @Value("${graph.cache.max-weight:500000}") long maxWeight,
+                              @Value("${graph.cache.redis-ttl-minutes:60}") long redisTtlMinutes) {
+        this.treeVersionService = treeVersionService;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.maxEntries = maxEntries;
+        this.maxWeight = maxWeight;
+        this.redisTtl = Duration.ofMinutes(redisTtlMinutes);
+    }
+
+    public FlowGraphDTO get(String treeId, Supplier<FlowGraphDTO> loader) {
+        long version;
+        try {
+            version = treeVersionService.currentVersion(treeId);
+        } catch (Exception e) {
+            log.warn("Tree version unavailable for {}, bypassing graph cache: {}", treeId, e.getMessage());
+            return loader.get();
+        }
+
+        Snapshot local = getLocal(treeId);
+        if (local != null && local.version() == version) {
+            localHits.increment();
+            log.debug("Graph cache local hit for tree {} v{}. {}", treeId, version, stats());
+            return local.graph();
+        }
+
+        String redisKey = SNAPSHOT_KEY_PREFIX + treeId + ":" + version;
+        try {
+            String json = redisTemplate.opsForValue().get(redisKey);
+            if (json != null) {
+                FlowGraphDTO graph = objectMapper.readValue(json, FlowGraphDTO.class);
+                putLocal(treeId, new Snapshot(version, graph, weightOf(graph)));
+                redisHits.increment();
+                log.debug("Graph cache redis hit for tree {} v{}. {}", treeId, version, stats());
+                return graph;
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read graph snapshot {} from redis: {}", redisKey, e.getMessage());
+        }
+
+        misses.increment();
+        FlowGraphDTO graph = loader.get();
+        putLocal(treeId, new Snapshot(version, graph, weightOf(graph)));
+        try {
+            redisTemplate.opsForValue().set(redisKey, objectMapper.writeValueAsString(graph), redisTtl);
+        } catch (Exception e) {
+            log.warn("Failed to write graph snapshot {} to redis: {}", redisKey, e.getMessage());
+        }
+        log.debug("Graph cache miss for tree {} v{}. {}", treeId, version, stats());
+        return graph;
+    }
+
+    /**
+     * Drops the tree's local snapshot and its Redis snapshot at the current version, which no longer match the graph.
+     */
+    @EventListener
+    public void onBumpFailed(TreeVersionService.BumpFailedEvent event) {
+        String treeId = event.treeId();
+        synchronized (localSnapshots) {
+            Snapshot removed = localSnapshots.remove(treeId);
+            if (removed != null) {
+                localWeight -= removed.weight();
+            }
+        }
+        try {
+            redisTemplate.delete(SNAPSHOT_KEY_PREFIX + treeId + ":" + treeVersionService.currentVersion(treeId));
+        } catch (Exception e) {
+            log.warn("Failed to drop redis graph snapshot of tree {}: {}", treeId, e.getMessage());
+        }
+        log.info("Dropped graph snapshots of tree {} after a failed version bump", treeId);
+    }
+
+    public Map<String, Long> stats() {
+        long hits = localHits.sum() + redisHits.sum();
+        long total = hits + misses.sum();
+        synchronized (localSnapshots) {
+            return Map.of(
+                    "localHits", localHits.sum(),
+                    "redisHits", redisHits.sum(),
+                    "misses", misses.sum(),
+                    "evictions", evictions.sum(),
+                    "hitRatioPercent", total == 0 ? 0 : hits * 100 / total,
+                    "entries", (long) localSnapshots.size(),
+                    "weight", localWeight);
+        }
+    }
+
+    private Snapshot getLocal(String treeId) {
+        synchronized (localSnapshots) {
+            return localSnapshots.get(treeId);
+        }
+    }
+
+    private void putLocal(String treeId, Snapshot snapshot) {
+        if (snapshot.weight() > maxWeight) {
+            return; // Larger than the whole local tier, only keep it in redis
+        }
+        synchronized (localSnapshots) {
+            Snapshot previous = localSnapshots.get(treeId);
+            if (previous != null && previous.version() > snapshot.version()) {
+                return; // A concurrent load already stored a newer version
+            }
+            Snapshot replaced = localSnapshots.put(treeId, snapshot);
+            if (replaced != null) {
+                localWeight -= replaced.weight();
+            }
+            localWeight += snapshot.weight();
+
+            Iterator<Map.Entry<String, Snapshot>> eldest = localSnapshots.entrySet().iterator();
+            while ((localSnapshots.size() > maxEntries || localWeight > maxWeight) && eldest.hasNext()) {
+                Map.Entry<String, Snapshot> entry = eldest.next();
+                if (entry.getKey().equals(treeId)) {
+                    continue;
+                }
+                localWeight -= entry.getValue().weight();
+                eldest.remove();
+                evictions.increment();
+            }
+        }
+    }
+
+    private static long weightOf(FlowGraphDTO graph) {
+        return (long) graph.getNodes().size() + graph.getEdges().size();
+    }
+
+    private record Snapshot(long version, FlowGraphDTO graph, long weight) {
+    }
+}
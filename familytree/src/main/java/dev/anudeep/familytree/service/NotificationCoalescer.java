@@ -0,0 +1,160 @@
+package dev.anudeep.familytree.service;
+
+import dev.anudeep.familytree.dto.notification.EventType;
+import dev.anudeep.familytree.dto.notification.NotificationEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Merges bursts of the same notification into one. The first TREE_STRUCTURE_MODIFIED event of a (tree, actor, type)
+ * opens a window; later events of that key within the window are folded into it, summing their numeric data
+ * (addedNodesCount, updatedNodesCount, ...) and joining their recipients. The merged event is published when the
+ * window closes, with {@code coalescedCount} telling how many events it stands for. A window of 0 disables it.
+ * Open windows are published as soon as the context starts closing, while RabbitMQ still takes messages.
+ */
+@Slf4j
+@Component
+public class NotificationCoalescer implements AutoCloseable {
+    private static final Set<EventType> COALESCED_TYPES = Set.of(EventType.TREE_STRUCTURE_MODIFIED);
+
+    private final long windowMillis;
+    private final Map<String, Pending> pending = new HashMap<>();
+    private final ScheduledExecutorService flusher;
+    private boolean closed = false; // Guarded by pending
+
+    public NotificationCoalescer(@Value("${notifications.coalesce.window-seconds:30}") long windowSeconds) {
+        this.windowMillis = windowSeconds * 1000;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "notification-coalescer");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Takes the event into its window when it can be coalesced; {@code publisher} then receives the merged event
+     * when the window closes.
+     *
+     * @return false when the event is not coalesced and should be published by the caller
+     */
+    public boolean offer(NotificationEvent event, Consumer<NotificationEvent> publisher) {
+        if (windowMillis <= 0 || !COALESCED_TYPES.contains(event.getEventType())) {
+            return false;
+        }
+        String key = event.getTreeId() + "|" + event.getActorUserId() + "|" + event.getEventType();
+        synchronized (pending) {
+            if (closed) {
+                return false;
+            }
+            Pending window = pending.get(key);
+            if (window != null) {
+                window.merge(event);
+                return true;
+            }
+            pending.put(key, new Pending(event, publisher));
+        }
+        flusher.schedule(() -> flush(key), windowMillis, TimeUnit.MILLISECONDS);
+        return true;
+    }
+
+    /**
+     * Flushes on the closed event itself: the RabbitMQ connection factory stops handing out connections when it
+     * receives the same event, and destroy callbacks run later still.
+     */
+    @EventListener(ContextClosedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    public void onContextClosed() {
+        close();
+    }
+
+    /**
+     * Publishes every open window now. Events offered afterwards are left to the caller.
+     */
+    @Override
+    public void close() {
+        flusher.shutdownNow();
+        List<String> keys;
+        synchronized (pending) {
+            closed = true;
+            keys = new ArrayList<>(pending.keySet());
+        }
+        keys.forEach(this::flush);
+    }
+
+    private void flush(String key) {
+        Pending window;
+        synchronized (pending) {
+            window = pending.remove(key);
+        }
+        if (window == null) {
+            return;
+        }
+        try {
+            window.publisher.accept(window.toEvent());
+        } catch (Exception e) {
+            log.error("Error publishing coalesced notification for {}: {}", key, e.getMessage(), e);
+        }
+    }
+
+    private static class Pending {
+        private final NotificationEvent first;
+        private final Consumer<NotificationEvent> publisher;
+        private final Map<String, Object> data = new LinkedHashMap<>();
+        private final Set<String> usersToNotify = new LinkedHashSet<>();
+        private NotificationEvent last;
+        private int count;
+
+        Pending(NotificationEvent first, Consumer<NotificationEvent> publisher) {
+            this.first = first;
+            this.publisher = publisher;
+            merge(first);
+        }
+
+        // Called under the coalescer's lock
+        void merge(NotificationEvent event) {
+            last = event;
+            count++;
+            if (event.getUsersToNotify() != null) {
+                usersToNotify.addAll(event.getUsersToNotify());
+            }
+            if (event.getData() != null) {
+                event.getData().forEach((name, value) -> {
+                    Object current = data.get(name);
+                    if (value instanceof Number number && (current == null || current instanceof Number)) {
+                        data.put(name, (current != null ? ((Number) current).longValue() : 0L) + number.longValue());
+                    } else {
+                        data.put(name, value); // Non-numeric data: the latest value wins
+                    }
+                });
+            }
+        }
+
+        NotificationEvent toEvent() {
+            if (count == 1) {
+                return first;
+            }
+            Map<String, Object> merged = new HashMap<>(data);
+            merged.put("coalescedCount", count);
+            // Keeps the first event's id and reports the time of the latest change
+            return new NotificationEvent(first.getEventId(), first.getEventType(), first.getTreeId(), last.getTreeName(),
+                    first.getActorUserId(), last.getActorUserName(), last.getTimestamp(), new ArrayList<>(usersToNotify), merged);
+        }
+    }
+}
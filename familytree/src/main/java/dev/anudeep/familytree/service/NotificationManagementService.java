@@ -1,99 +1,178 @@
 package dev.anudeep.familytree.service;
 
+import dev.anudeep.familytree.dto.PageDTO;
 import dev.anudeep.familytree.model.Notification;
 import dev.anudeep.familytree.model.NotificationStatus;
 import dev.anudeep.familytree.repository.NotificationRepository;
+import dev.anudeep.familytree.repository.NotificationRepository.LegacyMigrationBatch;
+import dev.anudeep.familytree.utils.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
-import dev.anudeep.familytree.model.Notification;
-import dev.anudeep.familytree.model.NotificationStatus;
-import dev.anudeep.familytree.repository.NotificationRepository;
-import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
-import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
-
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.UUID;
 
 @Service
 @Slf4j
 @RequiredArgsConstructor
 public class NotificationManagementService {
 
+    private static final int MIGRATION_BATCH_SIZE = 1000;
+    private static final String MIGRATION_LOCK_KEY = "familytree:migrations:legacy-notifications";
+    private static final Duration MIGRATION_LOCK_TTL = Duration.ofMinutes(5);
+
+    // DEL only while the lock still holds this replica's token
+    private static final DefaultRedisScript<Long> RELEASE_LOCK = new DefaultRedisScript<>("""
+            if redis.call('GET', KEYS[1]) == ARGV[1] then return redis.call('DEL', KEYS[1]) end
+            return 0
+            """, Long.class);
+
     private final NotificationRepository notificationRepository;
+    private final UnreadNotificationCounter unreadNotificationCounter;
+    private final StringRedisTemplate redisTemplate;
 
+    @Value("${notifications.legacy-migration.enabled:false}")
+    private boolean legacyMigrationEnabled;
+
+    /**
+     * Copies notifications stored one node per recipient into the event + receipt model, in batches, when
+     * {@code notifications.legacy-migration.enabled} is set. Until then the repository keeps reading the legacy
+     * nodes, and the migration keeps them afterwards, so it can be rolled back by running the previous release.
+     * Runs after {@link dev.anudeep.familytree.config.Neo4jIndexConfig} created the event id constraint the MERGEs
+     * look up, and on one replica at a time: the others skip it while the Redis lock is held.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void migrateLegacyNotifications() {
+        if (!legacyMigrationEnabled) {
+            return;
+        }
+        String token = UUID.randomUUID().toString();
+        try {
+            if (!Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(MIGRATION_LOCK_KEY, token, MIGRATION_LOCK_TTL))) {
+                log.info("Legacy notification migration is running on another instance, skipping it here");
+                return;
+            }
+        } catch (Exception e) {
+            log.warn("Could not lock legacy notification migration, skipping it: {}", e.getMessage());
+            return;
+        }
+        try {
+            int migrated = 0;
+            int skipped = 0;
+            LegacyMigrationBatch batch;
+            do {
+                batch = notificationRepository.migrateLegacyNotifications(MIGRATION_BATCH_SIZE, LocalDateTime.now());
+                migrated += batch.converted();
+                skipped += batch.processed() - batch.converted();
+                redisTemplate.expire(MIGRATION_LOCK_KEY, MIGRATION_LOCK_TTL);
+            } while (batch.processed() > 0);
+            log.info("Migrated {} legacy notifications to notification events with receipts, kept {} whose recipient no longer exists",
+                    migrated, skipped);
+        } catch (Exception e) {
+            log.warn("Could not migrate legacy notifications: {}", e.getMessage());
+        } finally {
+            try {
+                redisTemplate.execute(RELEASE_LOCK, List.of(MIGRATION_LOCK_KEY), token);
+            } catch (Exception e) {
+                log.warn("Could not release legacy notification migration lock: {}", e.getMessage());
+            }
+        }
+    }
 
     @Transactional
     public boolean markNotificationAsRead(String userElementId, String eventId) {
-        Optional<Notification> notificationOptional = notificationRepository.findByRecipientUserIdAndEventId(userElementId, eventId);
-        if (notificationOptional.isPresent()) {
-            Notification notification = notificationOptional.get();
-            log.debug("Found notification to mark as read. ID: {}, Current status: {}", notification.getEventId(), notification.getStatus());
-            if (notification.getStatus() == NotificationStatus.UNREAD) {
-                LocalDateTime now = LocalDateTime.now();
-                notificationRepository.updateNotificationStatusAndTimestamp(
-                        userElementId,
-                        eventId,
-                        NotificationStatus.READ.name(), // Persist enum as string name
-                        now);
-                log.info("Attempted to update notification {} status to READ via custom query for user {}", eventId, userElementId);
-                // Verification of this custom update would typically involve a subsequent read,
-                // or trusting the direct Cypher execution. The next GET /api/notifications will be the test.
-                return true;
-            } else {
-                log.info("Notification (Event ID: {}) for user {} was already READ. Status: {}",
-                        eventId, userElementId, notification.getStatus());
-                return false; // Indicates no change was made as it was already read
-            }
+        long changed = notificationRepository.updateNotificationStatusAndTimestamp(userElementId, eventId,
+                NotificationStatus.UNREAD.name(), NotificationStatus.READ.name(), LocalDateTime.now());
+        if (changed > 0) {
+            unreadNotificationCounter.adjust(userElementId, -1);
+            log.info("Updated notification {} status to READ for user {}", eventId, userElementId);
+            return true;
         }
-        log.warn("Notification with event ID {} not found for user {} to mark as read.", eventId, userElementId);
-        return false; // Indicates not found
+        log.info("Notification (Event ID: {}) for user {} was not found or already READ", eventId, userElementId);
+        return false; // Indicates no change was made
     }
 
     @Transactional
     public boolean markNotificationAsUnread(String userElementId, String eventId) {
-        Optional<Notification> notificationOptional = notificationRepository.findByRecipientUserIdAndEventId(userElementId, eventId);
-        if (notificationOptional.isPresent()) {
-            Notification notification = notificationOptional.get();
-            log.debug("Found notification to mark as UNREAD. ID: {}, Current status: {}", notification.getEventId(), notification.getStatus());
-            if (notification.getStatus() == NotificationStatus.READ) {
-                LocalDateTime now = LocalDateTime.now();
-                notificationRepository.updateNotificationStatusAndTimestamp(
-                        userElementId,
-                        eventId,
-                        NotificationStatus.UNREAD.name(), // Persist enum as string name
-                        now);
-                log.info("Attempted to update notification {} status to UNREAD via custom query for user {}", eventId, userElementId);
-                return true;
-            } else {
-                log.info("Notification (Event ID: {}) for user {} was already UNREAD. Status: {}",
-                        eventId, userElementId, notification.getStatus());
-                return false; // Indicates no change was made as it was already unread
-            }
+        long changed = notificationRepository.updateNotificationStatusAndTimestamp(userElementId, eventId,
+                NotificationStatus.READ.name(), NotificationStatus.UNREAD.name(), LocalDateTime.now());
+        if (changed > 0) {
+            unreadNotificationCounter.adjust(userElementId, 1);
+            log.info("Updated notification {} status to UNREAD for user {}", eventId, userElementId);
+            return true;
         }
-        log.warn("Notification with event ID {} not found for user {} to mark as unread.", eventId, userElementId);
-        return false; // Indicates not found
+        log.info("Notification (Event ID: {}) for user {} was not found or already UNREAD", eventId, userElementId);
+        return false; // Indicates no change was made
     }
 
     @Transactional
     public boolean deleteNotification(String userElementId, String eventId) {
-        Optional<Notification> notificationOptional = notificationRepository.findByRecipientUserIdAndEventId(userElementId, eventId);
-        if (notificationOptional.isPresent()) {
-            Notification notification = notificationOptional.get();
-            notificationRepository.delete(notification);
-            log.info("Deleted notification (DB internalID: {}, Event ID: {}) for user {}", notification.getInternalId(), eventId, userElementId);
+        Optional<NotificationStatus> deletedStatus = notificationRepository.deleteByRecipientUserIdAndEventId(userElementId, eventId);
+        if (deletedStatus.isPresent()) {
+            if (deletedStatus.get() == NotificationStatus.UNREAD) {
+                unreadNotificationCounter.adjust(userElementId, -1);
+            }
+            log.info("Deleted notification (Event ID: {}) for user {}", eventId, userElementId);
             return true;
         }
         log.warn("Notification with event ID {} not found for user {} to delete.", eventId, userElementId);
         return false;
     }
 
+    /**
+     * Decodes the nextCursor of a {@link #getNotificationsPageForUser} page.
+     *
+     * @throws IllegalArgumentException for a cursor that was not issued by that method
+     */
+    public static PageCursor decodePageCursor(String cursor) {
+        PageCursor after = PageCursor.decode(cursor);
+        if (after != null) {
+            if (after.sortKey() == null) {
+                throw new IllegalArgumentException("Invalid page cursor");
+            }
+            try {
+                LocalDateTime.parse(after.sortKey());
+            } catch (DateTimeParseException e) {
+                throw new IllegalArgumentException("Invalid page cursor", e);
+            }
+        }
+        return after;
+    }
+
+    /**
+     * Newest-first page of the user's notifications, continuing after {@code after} (decoded from the nextCursor of
+     * the previous page by {@link #decodePageCursor}) when given.
+     */
+    @Transactional(readOnly = true)
+    public PageDTO<Notification> getNotificationsPageForUser(String userElementId, PageCursor after, int limit) {
+        LocalDateTime beforeCreatedAt = after != null ? LocalDateTime.parse(after.sortKey()) : null;
+        List<Notification> rows = notificationRepository.findPageByRecipientUserId(
+                userElementId, beforeCreatedAt, after != null ? after.elementId() : null, limit + 1);
+        if (rows.size() <= limit) {
+            return new PageDTO<>(rows, null);
+        }
+        List<Notification> items = new ArrayList<>(rows.subList(0, limit));
+        Notification last = items.get(limit - 1);
+        return new PageDTO<>(items, new PageCursor(last.getCreatedAt().toString(), last.getEventId()).encode());
+    }
+
+    public long getUnreadCountForUser(String userElementId) {
+        return unreadNotificationCounter.get(userElementId);
+    }
+
     @Transactional(readOnly = true)
     public List<Notification> getNotificationsForUser(String userElementId) {
         log.debug("Fetching all notifications for user {}", userElementId);
@@ -105,6 +184,7 @@ public class NotificationManagementService {
         log.info("Attempting to mark all unread notifications as read for user {}", userElementId);
         LocalDateTime now = LocalDateTime.now();
         List<String> updatedEventIds = notificationRepository.updateStatusForAllUnreadNotificationsByUser(userElementId, now);
+        unreadNotificationCounter.adjust(userElementId, -updatedEventIds.size());
         log.info("Marked {} notifications as read for user {}", updatedEventIds.size(), userElementId);
         return updatedEventIds;
     }
@@ -117,22 +197,20 @@ public class NotificationManagementService {
         }
         log.info("Attempting to mark {} notifications as unread for user {}", eventIds.size(), userElementId);
         LocalDateTime now = LocalDateTime.now();
-        notificationRepository.markNotificationsAsUnreadBatch(userElementId, eventIds, now);
+        long markedUnread = notificationRepository.markNotificationsAsUnreadBatch(userElementId, eventIds, now);
+        unreadNotificationCounter.adjust(userElementId, markedUnread);
         log.info("Batch mark as unread operation completed for user {} for {} eventIds", userElementId, eventIds.size());
     }
 
     @Transactional
     public boolean deleteAllReadNotificationsForUser(String userElementId) throws Exception {
         log.info("Attempting to delete all read notifications for user {}", userElementId);
-        // First, check if there are any read notifications to delete to avoid unnecessary logging if none exist.
-        // This is an optimization and can be removed if direct delete is preferred.
-        List<Notification> readNotifications = notificationRepository.findByRecipientUserIdAndStatus(userElementId, NotificationStatus.READ);
-        if (readNotifications.isEmpty()) {
+        int deleted = notificationRepository.deleteAllReadNotificationsByUser(userElementId);
+        if (deleted == 0) {
             log.info("No read notifications found to delete for user {}", userElementId);
             return false; // Or true, depending on whether "nothing to delete" is a success. Let's say false for "no action taken".
         }
-        notificationRepository.deleteAllReadNotificationsByUser(userElementId);
-        log.info("Successfully deleted all read notifications (count: {}) for user {}", readNotifications.size(), userElementId);
+        log.info("Successfully deleted all read notifications (count: {}) for user {}", deleted, userElementId);
         return true;
     }
 }
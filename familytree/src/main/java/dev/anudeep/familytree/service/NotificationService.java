@@ -6,6 +6,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.core.RabbitTemplate;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @Service
 @Slf4j
@@ -13,6 +15,7 @@ import org.springframework.stereotype.Service;
 public class NotificationService {
 
     private final RabbitTemplate rabbitTemplate;
+    private final NotificationCoalescer notificationCoalescer;
 
     @Value("${rabbitmq.exchange.name:tree_events_exchange}") // Define in application.properties or use default
     private String exchangeName;
@@ -22,7 +25,14 @@ public class NotificationService {
             log.warn("Attempted to send an invalid notification event: {}", event);
             return;
         }
+        if (notificationCoalescer.offer(event, this::publish)) {
+            log.debug("Notification event {} held for coalescing", event.getEventId());
+            return;
+        }
+        publish(event);
+    }
 
+    private void publish(NotificationEvent event) {
         // Routing key format: tree.<treeId>.<eventType>
         // Example: tree.xyz123.TREE_STRUCTURE_MODIFIED
         String routingKey = String.format("tree.%s.%s", event.getTreeId(), event.getEventType().name());
@@ -40,4 +50,21 @@ public class NotificationService {
             // Depending on requirements, might re-throw or handle (e.g., dead-letter queue)
         }
     }
+
+    /**
+     * Sends the event once the surrounding transaction commits, so no notification announces a rolled back change.
+     * Sends immediately when no transaction is active.
+     */
+    public void sendAfterCommit(NotificationEvent event) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    sendNotification(event);
+                }
+            });
+        } else {
+            sendNotification(event);
+        }
+    }
 }
@@ -1,21 +1,36 @@
 package dev.anudeep.familytree.service;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import dev.anudeep.familytree.ErrorHandling.dto.EntityNotFoundException;
+import dev.anudeep.familytree.dto.FlowNodeDTO;
 import dev.anudeep.familytree.model.Person;
 import dev.anudeep.familytree.repository.PersonRepository;
+import dev.anudeep.familytree.utils.TreeAdjacencyIndex;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.BiFunction;
 
 @Slf4j
 @Service
 public class PersonService {
     private final PersonRepository repository;
+    private final GraphService graphService;
+    private final AdjacencyIndexService adjacencyIndexService;
+    private final ObjectMapper objectMapper;
 
-    public PersonService(PersonRepository repository) {
+    public PersonService(PersonRepository repository, GraphService graphService,
+                         AdjacencyIndexService adjacencyIndexService, ObjectMapper objectMapper) {
         this.repository = repository;
+        this.graphService = graphService;
+        this.adjacencyIndexService = adjacencyIndexService;
+        this.objectMapper = objectMapper;
     }
 
     public Person getPersonById(String elementId) {
@@ -29,18 +44,38 @@ public class PersonService {
         return repository.save(person);
     }
 
-    public List<Person> getPartners(String elementId) {
+    public List<Person> getPartners(String treeId, String elementId) {
         log.info("Fetching partners of a person with elementId {}", elementId);
-        return repository.findPartners(elementId);
+        return fromIndex(treeId, elementId, TreeAdjacencyIndex::partners).orElseGet(() -> repository.findPartners(elementId));
     }
 
-    public List<Person> getChildren(String elementId) {
+    public List<Person> getChildren(String treeId, String elementId) {
         log.info("Fetching children of a person with elementId {}", elementId);
-        return repository.findChildren(elementId);
+        return fromIndex(treeId, elementId, TreeAdjacencyIndex::children).orElseGet(() -> repository.findChildren(elementId));
     }
 
-    public List<Person> getSiblings(String elementId) {
+    public List<Person> getSiblings(String treeId, String elementId) {
         log.info("Fetching siblings of a person with elementId {}", elementId);
-        return repository.findSiblings(elementId);
+        return fromIndex(treeId, elementId, TreeAdjacencyIndex::siblings).orElseGet(() -> repository.findSiblings(elementId));
+    }
+
+    // Empty when the tree has no usable index or the person is not in it, the repository query answers then
+    private Optional<List<Person>> fromIndex(String treeId, String elementId,
+                                             BiFunction<TreeAdjacencyIndex, String, List<String>> neighbours) {
+        Optional<TreeAdjacencyIndex> index = adjacencyIndexService.get(treeId, () -> graphService.getGraph(treeId));
+        if (index.isEmpty() || !"Person".equals(index.get().typeOf(elementId))) {
+            return Optional.empty();
+        }
+        Set<String> ids = new HashSet<>(neighbours.apply(index.get(), elementId));
+        List<Person> persons = new ArrayList<>(ids.size());
+        if (ids.isEmpty()) {
+            return Optional.of(persons);
+        }
+        for (FlowNodeDTO node : graphService.getGraph(treeId).getNodes()) {
+            if (ids.contains(node.getId()) && "Person".equals(node.getType())) {
+                persons.add(objectMapper.convertValue(node.getData(), Person.class));
+            }
+        }
+        return Optional.of(persons);
     }
 }
@@ -0,0 +1,100 @@
+package dev.anudeep.familytree.service;
+
+import dev.anudeep.familytree.ErrorHandling.dto.EntityNotFoundException;
+import dev.anudeep.familytree.dto.FlowEdgeDTO;
+import dev.anudeep.familytree.dto.FlowGraphDTO;
+import dev.anudeep.familytree.dto.FlowNodeDTO;
+import dev.anudeep.familytree.dto.RelationPathDTO;
+import dev.anudeep.familytree.utils.KinshipLabel;
+import dev.anudeep.familytree.utils.TreeAdjacencyIndex;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Answers "how is A related to B" with a bidirectional breadth-first search over the tree's adjacency index.
+ * Results are kept in a small LRU keyed by tree version, so any write to the tree retires them.
+ */
+@Slf4j
+@Service
+public class RelationService {
+    private final GraphService graphService;
+    private final AdjacencyIndexService adjacencyIndexService;
+    private final int maxHops;
+    private final Map<String, RelationPathDTO> cache;
+
+    public RelationService(GraphService graphService,
+                           AdjacencyIndexService adjacencyIndexService,
+                           @Value("${graph.relation.max-hops:12}") int maxHops,
+                           @Value("${graph.relation.cache-size:256}") int cacheSize) {
+        this.graphService = graphService;
+        this.adjacencyIndexService = adjacencyIndexService;
+        this.maxHops = maxHops;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, RelationPathDTO> eldest) {
+                return size() > cacheSize;
+            }
+        };
+    }
+
+    public RelationPathDTO findRelation(String treeId, String fromId, String toId) {
+        Optional<TreeAdjacencyIndex> versionedIndex = adjacencyIndexService.get(treeId, () -> graphService.getGraph(treeId));
+        // Without a versioned index (disabled or version unavailable) the search runs on a throwaway index and is not cached
+        TreeAdjacencyIndex index = versionedIndex.orElseGet(() -> AdjacencyIndexService.build(graphService.getGraph(treeId), 0));
+        String key = versionedIndex.isPresent() ? treeId + "|" + index.getVersion() + "|" + fromId + "|" + toId : null;
+        if (key != null) {
+            synchronized (cache) {
+                RelationPathDTO cached = cache.get(key);
+                if (cached != null) {
+                    log.debug("Relation between {} and {} served from cache", fromId, toId);
+                    return cached;
+                }
+            }
+        }
+
+        if (!"Person".equals(index.typeOf(fromId))) {
+            throw new EntityNotFoundException("Person with elementId " + fromId + " not found in tree " + treeId);
+        }
+        if (!"Person".equals(index.typeOf(toId))) {
+            throw new EntityNotFoundException("Person with elementId " + toId + " not found in tree " + treeId);
+        }
+        TreeAdjacencyIndex.KinshipPath path = index.shortestPath(fromId, toId, maxHops);
+        if (path == null) {
+            throw new EntityNotFoundException("No relation found between " + fromId + " and " + toId + " within " + maxHops + " hops");
+        }
+
+        RelationPathDTO relation = toRelationPath(graphService.getGraph(treeId), path);
+        log.info("Relation between {} and {} is {} ({} hops)", fromId, toId, relation.getRelation(), relation.getHops());
+        if (key != null) {
+            synchronized (cache) {
+                cache.put(key, relation);
+            }
+        }
+        return relation;
+    }
+
+    private static RelationPathDTO toRelationPath(FlowGraphDTO graph, TreeAdjacencyIndex.KinshipPath path) {
+        Map<String, FlowNodeDTO> nodesById = new HashMap<>();
+        Map<String, FlowEdgeDTO> edgesById = new HashMap<>();
+        graph.getNodes().forEach(node -> nodesById.put(node.getId(), node));
+        graph.getEdges().forEach(edge -> edgesById.put(edge.getId(), edge));
+
+        List<FlowNodeDTO> nodes = new ArrayList<>(path.nodeIds().size());
+        path.nodeIds().forEach(id -> nodes.add(nodesById.get(id)));
+        List<FlowEdgeDTO> edges = new ArrayList<>(path.edgeIds().size());
+        path.edgeIds().forEach(id -> edges.add(edgesById.get(id)));
+
+        FlowNodeDTO target = nodes.get(nodes.size() - 1);
+        Object gender = target != null && target.getData() != null ? target.getData().get("gender") : null;
+        String label = KinshipLabel.describe(path.steps(), gender == null ? null : gender.toString());
+        return new RelationPathDTO(label, path.edgeIds().size(), nodes, edges);
+    }
+}
@@ -1,20 +1,19 @@
 package dev.anudeep.familytree.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.anudeep.familytree.dto.notification.EventType;
 import dev.anudeep.familytree.dto.notification.NotificationEvent;
 import dev.anudeep.familytree.model.Notification;
-import dev.anudeep.familytree.model.NotificationStatus;
-import dev.anudeep.familytree.model.User;
 import dev.anudeep.familytree.repository.NotificationRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.amqp.rabbit.annotation.RabbitListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 
 @Service
@@ -26,10 +25,12 @@ public class StompNotificationForwarder {
     private final UserTreeService userTreeService; // To get all users for a tree
     private final ObjectMapper objectMapper; // Added for JSON conversion
     private final NotificationRepository notificationRepository; // Injected repository
+    private final UnreadNotificationCounter unreadNotificationCounter;
 
     // Listening to the queue defined in application.properties (e.g., tree_event_queue)
+    // Not @Transactional: the notification is written by one auto-committed statement and the STOMP sends happen
+    // after it, so a slow broker never holds a database transaction open
     @RabbitListener(queues = "${rabbitmq.queue.name}")
-    @Transactional // Ensure atomicity for saving notification and sending STOMP message
     public void forwardNotificationToStomp(NotificationEvent event) {
         if (event == null || event.getUsersToNotify() == null || event.getUsersToNotify().isEmpty()) {
             log.warn("Received event without usersToNotify list or list is empty, cannot dispatch: {}", event);
@@ -82,31 +83,33 @@ public class StompNotificationForwarder {
         log.info("For event type: {}, targeting {} users. Tree: '{}', Actor: '{}'",
                 event.getEventType(), event.getUsersToNotify().size(), event.getTreeName(), event.getActorUserName());
 
-        for (String userElementId : event.getUsersToNotify()) {
-            if (userElementId == null || userElementId.isEmpty()) {
-                log.warn("User elementId is null or empty in usersToNotify list for eventId: {}. Skipping.", event.getEventId());
-                continue;
-            }
-
-            // Create and save the notification entity
-            // Ensure eventType is not null before creating Notification entity
-            dev.anudeep.familytree.dto.notification.EventType eventType = event.getEventType(); // Corrected type
-            if (eventType == null) {
-                log.warn("Received NotificationEvent (ID: {}) with null eventType. Storing with UNKNOWN type.", event.getEventId());
-                // Assuming EventType is an enum in dev.anudeep.familytree.dto.notification package.
-                // And that it has an UNKNOWN member. If not, this line would need adjustment or a different default strategy.
-                try {
-                    eventType = dev.anudeep.familytree.dto.notification.EventType.valueOf("UNKNOWN");
-                } catch (IllegalArgumentException e) {
-                    log.error("CRITICAL: EventType enum does not have an UNKNOWN member. Cannot set default for null eventType from event ID: {}. Storing as null!", event.getEventId(), e);
-                    // If UNKNOWN is not available, eventType will remain null here, and frontend will show "Content unavailable".
-                    // Or, throw an exception / don't save notification if eventType is mandatory.
-                }
+        List<String> recipients = event.getUsersToNotify().stream()
+                .filter(userElementId -> {
+                    if (userElementId == null || userElementId.isEmpty()) {
+                        log.warn("User elementId is null or empty in usersToNotify list for eventId: {}. Skipping.", event.getEventId());
+                        return false;
+                    }
+                    return true;
+                })
+                .distinct()
+                .toList();
+
+        // Ensure eventType is not null before storing the notifications
+        EventType eventType = event.getEventType();
+        if (eventType == null) {
+            log.warn("Received NotificationEvent (ID: {}) with null eventType. Storing with UNKNOWN type.", event.getEventId());
+            try {
+                eventType = EventType.valueOf("UNKNOWN");
+            } catch (IllegalArgumentException e) {
+                log.error("CRITICAL: EventType enum does not have an UNKNOWN member. Cannot set default for null eventType from event ID: {}. Storing as null!", event.getEventId(), e);
             }
+        }
 
-            Notification persistentNotification = new Notification(
+        // One statement stores the event once plus a receipt per recipient; it commits on its own before any STOMP send
+        try {
+            Notification notification = new Notification(
                     event.getEventId(),
-                    userElementId,
+                    null, // One stored event for all recipients
                     eventType, // Use the potentially defaulted eventType
                     event.getTreeId(),
                     event.getTreeName(),
@@ -114,18 +117,17 @@ public class StompNotificationForwarder {
                     event.getActorUserName(),
                     messageTextJson // This is the JSON string payload
             );
-            persistentNotification.setCreationTimestamp(); // Set createdAt and updatedAt
-            try {
-                notificationRepository.save(persistentNotification);
-                log.info("Saved notification (EventID: {}) for user {} to database. DB internalID: {}",
-                        persistentNotification.getEventId(), userElementId, persistentNotification.getInternalId());
-            } catch (Exception e) {
-                log.error("Error saving notification (EventID: {}) for user {} to database. Error: {}",
-                        event.getEventId(), userElementId, e.getMessage(), e);
-                // Decide if we should still try to send via STOMP if DB save fails
-                // For now, we'll continue and attempt to send to active users
-            }
+            notification.setRenderedPayload(renderReplayPayload(event, messageTextJson));
+            List<String> newRecipients = notificationRepository.saveForRecipients(notification, recipients, LocalDateTime.now());
+            unreadNotificationCounter.adjust(newRecipients, 1);
+            log.info("Saved notification (EventID: {}) for {} users to database.", event.getEventId(), recipients.size());
+        } catch (Exception e) {
+            log.error("Error saving notification (EventID: {}) for {} users to database. Error: {}",
+                    event.getEventId(), recipients.size(), e.getMessage(), e);
+            // We still try to send via STOMP to active users if the DB save fails
+        }
 
+        for (String userElementId : recipients) {
             log.info("Attempting to forward notification event (ID: {}) for user: {} to STOMP destination: /user/{}{}",
                     event.getEventId(), userElementId, userElementId, userQueueSuffix);
             try {
@@ -143,7 +145,19 @@ public class StompNotificationForwarder {
         }
     }
 
-
+    // The payload replayed on subscribe, serialized once here so replay never touches JSON. The recipient list is
+    // left out: it is not needed by the client and would make every stored payload grow with the tree's members.
+    private String renderReplayPayload(NotificationEvent event, String messageTextJson) {
+        NotificationEvent eventDetails = new NotificationEvent(event.getEventId(), event.getEventType(), event.getTreeId(),
+                event.getTreeName(), event.getActorUserId(), event.getActorUserName(), event.getTimestamp(), null, event.getData());
+        try {
+            return objectMapper.writeValueAsString(new FrontendNotificationPayload(
+                    event.getEventId(), messageTextJson, event.getTimestamp().toString(), eventDetails));
+        } catch (com.fasterxml.jackson.core.JsonProcessingException e) {
+            log.warn("Could not pre-render replay payload for eventId: {}. Replay will build it. Error: {}", event.getEventId(), e.getMessage());
+            return null;
+        }
+    }
 
     // Inner class for the payload to match frontend expectations
     // Updated to include the original NotificationEvent if needed by frontend for more details
@@ -0,0 +1,126 @@
+package dev.anudeep.familytree.service;
+
+import dev.anudeep.familytree.model.Tree;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Per-user cache of the dashboard tree list. Each list is tagged with the user's tree list version, kept in Redis so
+ * all backend instances agree on it; creating, deleting or sharing a tree the user can see bumps it once the change
+ * commits. The TTL bounds staleness from other changes such as a creator renaming themselves.
+ */
+@Slf4j
+@Component
+public class TreeListCache {
+    private static final String VERSION_KEY_PREFIX = "familytree:tree-list-version:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+
+    public TreeListCache(StringRedisTemplate redisTemplate,
+                         @Value("${tree-list.cache.ttl-seconds:300}") long ttlSeconds,
+                         @Value("${tree-list.cache.max-users:1000}") int maxUsers) {
+        this.redisTemplate = redisTemplate;
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxUsers;
+            }
+        };
+    }
+
+    /**
+     * The user's list at their current version, loaded by {@code loader} when missing, stale or expired. The version
+     * is read before loading, so a load racing a change is stored under the old version and not reused.
+     */
+    public List<Tree> get(String userElementId, Supplier<List<Tree>> loader) {
+        long version;
+        try {
+            version = currentVersion(userElementId);
+        } catch (Exception e) {
+            log.warn("Tree list version unavailable for {}, bypassing tree list cache: {}", userElementId, e.getMessage());
+            return List.copyOf(loader.get());
+        }
+        long now = System.currentTimeMillis();
+        synchronized (entries) {
+            Entry entry = entries.get(userElementId);
+            if (entry != null && entry.version() == version && entry.expiresAt() > now) {
+                return entry.trees();
+            }
+        }
+        List<Tree> trees = List.copyOf(loader.get());
+        synchronized (entries) {
+            Entry current = entries.get(userElementId);
+            if (current == null || current.version() <= version) {
+                entries.put(userElementId, new Entry(version, trees, now + ttlMillis));
+            }
+        }
+        return trees;
+    }
+
+    /**
+     * Drops the users' lists here now, and bumps their versions for every instance after the surrounding transaction
+     * commits.
+     */
+    public void invalidate(Collection<String> userElementIds) {
+        List<String> userIds = userElementIds.stream().filter(id -> id != null).toList();
+        Runnable evict = () -> {
+            synchronized (entries) {
+                userIds.forEach(entries::remove);
+            }
+        };
+        Runnable bump = () -> {
+            evict.run();
+            for (String userId : userIds) {
+                try {
+                    String key = VERSION_KEY_PREFIX + userId;
+                    seed(key);
+                    redisTemplate.opsForValue().increment(key);
+                } catch (Exception e) {
+                    log.error("Failed to bump tree list version of user {}: {}", userId, e.getMessage(), e);
+                }
+            }
+        };
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    bump.run();
+                }
+            });
+        } else {
+            bump.run();
+        }
+    }
+
+    private long currentVersion(String userElementId) {
+        String key = VERSION_KEY_PREFIX + userElementId;
+        String version = redisTemplate.opsForValue().get(key);
+        if (version == null) {
+            seed(key);
+            version = redisTemplate.opsForValue().get(key);
+        }
+        return Long.parseLong(version);
+    }
+
+    // Same seeding as the tree versions, a lost key never re-issues an old version
+    private void seed(String key) {
+        redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(System.currentTimeMillis()));
+    }
+
+    private record Entry(long version, List<Tree> trees, long expiresAt) {
+    }
+}
@@ -0,0 +1,103 @@
+package dev.anudeep.familytree.service;
+
+import dev.anudeep.familytree.model.Role;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Short-lived cache of a user's role on a tree, keyed by (userElementId, treeId). Absent roles are cached too so
+ * repeated denied checks stay cheap. Grants, role updates and tree deletions invalidate their entries explicitly;
+ * the TTL bounds staleness for any other path that changes access. Every invalidation advances a generation, and a
+ * role loaded across one is returned but not cached, so a load racing an invalidation cannot put the old role back.
+ */
+@Slf4j
+@Component
+public class TreeRoleCache {
+    private final long ttlMillis;
+    private final Map<String, Entry> entries;
+    private long generation = 0; // Guarded by entries
+
+    public TreeRoleCache(@Value("${acl.cache.ttl-seconds:30}") long ttlSeconds,
+                         @Value("${acl.cache.max-entries:10000}") int maxEntries) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public Optional<Role> get(String userElementId, String treeId, Supplier<Optional<Role>> loader) {
+        String key = key(userElementId, treeId);
+        long now = System.currentTimeMillis();
+        long loadGeneration;
+        synchronized (entries) {
+            Entry entry = entries.get(key);
+            if (entry != null && entry.expiresAt() > now) {
+                return entry.role();
+            }
+            loadGeneration = generation;
+        }
+        Optional<Role> role = loader.get();
+        synchronized (entries) {
+            if (generation == loadGeneration) {
+                entries.put(key, new Entry(role, now + ttlMillis));
+            }
+        }
+        return role;
+    }
+
+    /**
+     * Drops the user's entry for the tree now and again after the surrounding transaction commits.
+     */
+    public void invalidate(String userElementId, String treeId) {
+        String key = key(userElementId, treeId);
+        afterCommitToo(() -> {
+            synchronized (entries) {
+                generation++;
+                entries.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Drops every user's entry for the tree now and again after the surrounding transaction commits.
+     */
+    public void invalidateTree(String treeId) {
+        String suffix = key("", treeId);
+        afterCommitToo(() -> {
+            synchronized (entries) {
+                generation++;
+                entries.keySet().removeIf(key -> key.endsWith(suffix));
+            }
+        });
+    }
+
+    private static void afterCommitToo(Runnable evict) {
+        evict.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    evict.run();
+                }
+            });
+        }
+    }
+
+    private static String key(String userElementId, String treeId) {
+        return userElementId + "|" + treeId;
+    }
+
+    private record Entry(Optional<Role> role, long expiresAt) {
+    }
+}
@@ -0,0 +1,91 @@
+package dev.anudeep.familytree.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Keeps a monotonically increasing version per tree in Redis so every node of the backend agrees on it.
+ * Any write that changes what a tree's graph looks like must call {@link #bumpVersion(String)}. When a bump fails a
+ * {@link BumpFailedEvent} is published, so caches keyed by the unchanged version can drop the tree.
+ */
+@Slf4j
+@Service
+public class TreeVersionService {
+    private static final String VERSION_KEY_PREFIX = "familytree:tree-version:";
+
+    private final StringRedisTemplate redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * The version of the tree could not be incremented after a write, so it still names pre-write data.
+     */
+    public record BumpFailedEvent(String treeId) {
+    }
+
+    public TreeVersionService(StringRedisTemplate redisTemplate, ApplicationEventPublisher eventPublisher) {
+        this.redisTemplate = redisTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    public long currentVersion(String treeId) {
+        String key = VERSION_KEY_PREFIX + treeId;
+        String version = redisTemplate.opsForValue().get(key);
+        if (version == null) {
+            seed(key);
+            version = redisTemplate.opsForValue().get(key);
+        }
+        return Long.parseLong(version);
+    }
+
+    /**
+     * Strong ETag for any representation derived from the tree's graph.
+     */
+    public String eTag(String treeId) {
+        return "\"" + Long.toHexString(currentVersion(treeId)) + "\"";
+    }
+
+    /**
+     * Strong ETag for an alternative representation (e.g. a streamed one) of the tree's graph.
+     */
+    public String eTag(String treeId, String variant) {
+        return "\"" + Long.toHexString(currentVersion(treeId)) + "-" + variant + "\"";
+    }
+
+    /**
+     * Increments the tree version. Inside a transaction the increment is deferred until after commit,
+     * so readers never cache pre-commit data under the new version.
+     */
+    public void bumpVersion(String treeId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    increment(treeId);
+                }
+            });
+        } else {
+            increment(treeId);
+        }
+    }
+
+    private void increment(String treeId) {
+        try {
+            String key = VERSION_KEY_PREFIX + treeId;
+            seed(key);
+            Long version = redisTemplate.opsForValue().increment(key);
+            log.info("Tree {} is now at version {}", treeId, version);
+        } catch (Exception e) {
+            log.error("Failed to bump version of tree {}: {}", treeId, e.getMessage(), e);
+            eventPublisher.publishEvent(new BumpFailedEvent(treeId));
+        }
+    }
+
+    // Versions start from the current time, so a lost key never re-issues a version (or ETag) handed out before
+    private void seed(String key) {
+        redisTemplate.opsForValue().setIfAbsent(key, String.valueOf(System.currentTimeMillis()));
+    }
+}
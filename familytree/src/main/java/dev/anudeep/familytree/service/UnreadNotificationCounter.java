@@ -0,0 +1,124 @@
+package dev.anudeep.familytree.service;
+
+import dev.anudeep.familytree.repository.NotificationRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.connection.ReturnType;
+import org.springframework.data.redis.core.RedisCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Per-user unread notification count kept in Redis, so the badge never scans the inbox. Counters are seeded from
+ * the database on first read and only adjusted while they exist: an adjustment of a missing counter is dropped and
+ * the next read recounts. Adjustments made inside a transaction are applied after it commits. A change committing
+ * while a counter is seeded can be missed or counted twice, so counters expire a short while after their seed and
+ * are recounted, adjustments keep that expiry.
+ */
+@Slf4j
+@Component
+public class UnreadNotificationCounter {
+    private static final String UNREAD_KEY_PREFIX = "familytree:notifications:unread:";
+
+    // INCRBY only when the counter is already seeded, never below zero
+    private static final DefaultRedisScript<Long> ADJUST_IF_PRESENT = new DefaultRedisScript<>("""
+            if redis.call('EXISTS', KEYS[1]) == 0 then return nil end
+            local value = redis.call('INCRBY', KEYS[1], ARGV[1])
+            if value < 0 then redis.call('SET', KEYS[1], 0, 'KEEPTTL') return 0 end
+            return value
+            """, Long.class);
+
+    private final NotificationRepository notificationRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final Duration ttl;
+
+    public UnreadNotificationCounter(NotificationRepository notificationRepository,
+                                     StringRedisTemplate redisTemplate,
+                                     @Value("${notifications.unread-counter.ttl-seconds:600}") long ttlSeconds) {
+        this.notificationRepository = notificationRepository;
+        this.redisTemplate = redisTemplate;
+        this.ttl = Duration.ofSeconds(ttlSeconds);
+    }
+
+    public long get(String userElementId) {
+        String key = UNREAD_KEY_PREFIX + userElementId;
+        try {
+            String value = redisTemplate.opsForValue().get(key);
+            if (value != null) {
+                return Long.parseLong(value);
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read unread counter {} from redis: {}", key, e.getMessage());
+        }
+        long count = notificationRepository.countUnreadByRecipientUserId(userElementId);
+        try {
+            redisTemplate.opsForValue().setIfAbsent(key, Long.toString(count), ttl);
+        } catch (Exception e) {
+            log.warn("Failed to seed unread counter {} in redis: {}", key, e.getMessage());
+        }
+        return count;
+    }
+
+    public void adjust(String userElementId, long delta) {
+        adjust(List.of(userElementId), delta);
+    }
+
+    public void adjust(Collection<String> userElementIds, long delta) {
+        if (delta == 0 || userElementIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = userElementIds.stream().map(id -> UNREAD_KEY_PREFIX + id).toList();
+        afterCommit(() -> {
+            try {
+                byte[] script = ADJUST_IF_PRESENT.getScriptAsString().getBytes(StandardCharsets.UTF_8);
+                byte[] amount = Long.toString(delta).getBytes(StandardCharsets.UTF_8);
+                redisTemplate.executePipelined((RedisCallback<Object>) connection -> {
+                    for (String key : keys) {
+                        connection.scriptingCommands().eval(script, ReturnType.INTEGER, 1, key.getBytes(StandardCharsets.UTF_8), amount);
+                    }
+                    return null;
+                });
+            } catch (Exception e) {
+                log.warn("Failed to adjust {} unread counters by {}: {}; dropping them", keys.size(), delta, e.getMessage());
+                delete(keys);
+            }
+        });
+    }
+
+    /**
+     * Drops the counters so the next read recounts, used when the change is not a simple delta.
+     */
+    public void reset(Collection<String> userElementIds) {
+        List<String> keys = userElementIds.stream().map(id -> UNREAD_KEY_PREFIX + id).toList();
+        afterCommit(() -> delete(keys));
+    }
+
+    private void delete(List<String> keys) {
+        try {
+            redisTemplate.delete(keys);
+        } catch (Exception e) {
+            log.warn("Failed to drop unread counters {} from redis: {}", keys, e.getMessage());
+        }
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package dev.anudeep.familytree.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.anudeep.familytree.model.User;
+import dev.anudeep.familytree.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Resolves a user by email for login and the WebSocket handshake without a database round trip. Two tiers like
+ * {@link GraphSnapshotCache}: an in-process LRU and Redis, shared between backend instances. Users are never renamed
+ * or deleted, so entries only change when a user is created; unknown emails are not cached.
+ */
+@Slf4j
+@Component
+public class UserLookupCache {
+    private static final String EMAIL_KEY_PREFIX = "familytree:user-by-email:";
+
+    private final UserRepository userRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final ObjectMapper objectMapper;
+    private final Duration redisTtl;
+    private final Map<String, CachedUser> localUsers;
+
+    public UserLookupCache(UserRepository userRepository,
+                           StringRedisTemplate redisTemplate,
+                           ObjectMapper objectMapper,
+                           @Value("${user-lookup.cache.max-entries:10000}") int maxEntries,
+                           @Value("${user-lookup.cache.redis-ttl-hours:24}") long redisTtlHours) {
+        this.userRepository = userRepository;
+        this.redisTemplate = redisTemplate;
+        this.objectMapper = objectMapper;
+        this.redisTtl = Duration.ofHours(redisTtlHours);
+        this.localUsers = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CachedUser> eldest) {
+                return size() > maxEntries;
+            }
+        };
+    }
+
+    public Optional<User> findByEmail(String email) {
+        synchronized (localUsers) {
+            CachedUser local = localUsers.get(email);
+            if (local != null) {
+                return Optional.of(local.toUser());
+            }
+        }
+
+        String redisKey = EMAIL_KEY_PREFIX + email;
+        try {
+            String json = redisTemplate.opsForValue().get(redisKey);
+            if (json != null) {
+                CachedUser cached = objectMapper.readValue(json, CachedUser.class);
+                putLocal(email, cached);
+                return Optional.of(cached.toUser());
+            }
+        } catch (Exception e) {
+            log.warn("Failed to read user lookup {} from redis: {}", redisKey, e.getMessage());
+        }
+
+        Optional<User> user = userRepository.findByEmail(email);
+        user.ifPresent(this::put);
+        return user;
+    }
+
+    /**
+     * Replaces whatever is cached for the new user's email.
+     */
+    public void onUserCreated(User user) {
+        if (user == null || user.getEmail() == null) {
+            return;
+        }
+        synchronized (localUsers) {
+            localUsers.remove(user.getEmail());
+        }
+        try {
+            redisTemplate.delete(EMAIL_KEY_PREFIX + user.getEmail());
+        } catch (Exception e) {
+            log.warn("Failed to drop user lookup of {} from redis: {}", user.getEmail(), e.getMessage());
+        }
+        if (user.getElementId() != null) {
+            put(user);
+        }
+    }
+
+    private void put(User user) {
+        CachedUser cached = new CachedUser(user.getElementId(), user.getEmail(), user.getName(), user.getPicture());
+        putLocal(user.getEmail(), cached);
+        try {
+            redisTemplate.opsForValue().set(EMAIL_KEY_PREFIX + user.getEmail(), objectMapper.writeValueAsString(cached), redisTtl);
+        } catch (Exception e) {
+            log.warn("Failed to write user lookup of {} to redis: {}", user.getEmail(), e.getMessage());
+        }
+    }
+
+    private void putLocal(String email, CachedUser cached) {
+        synchronized (localUsers) {
+            localUsers.put(email, cached);
+        }
+    }
+
+    record CachedUser(String elementId, String email, String name, String picture) {
+        private User toUser() {
+            User user = new User(email, name, picture);
+            user.setElementId(elementId);
+            return user;
+        }
+    }
+}
@@ -13,10 +13,12 @@ public class UserService {
 
     private final UserRepository userRepository;
     private final AuthProviderPort authProviderPort;
+    private final UserLookupCache userLookupCache;
 
-    public UserService(UserRepository userRepository, AuthProviderPort authProviderPort) {
+    public UserService(UserRepository userRepository, AuthProviderPort authProviderPort, UserLookupCache userLookupCache) {
         this.userRepository = userRepository;
         this.authProviderPort = authProviderPort;
+        this.userLookupCache = userLookupCache;
     }
 
     /**
@@ -36,8 +38,12 @@ public class UserService {
 
         log.info("Verified user claims for email: {}, provider: {}", email, claims.getProvider());
 
-        return userRepository.findByEmail(email)
-                .orElseGet(() -> userRepository.save(new User(email, name, picture)));
+        return userLookupCache.findByEmail(email)
+                .orElseGet(() -> {
+                    User created = userRepository.save(new User(email, name, picture));
+                    userLookupCache.onUserCreated(created);
+                    return created;
+                });
     }
 
     /**
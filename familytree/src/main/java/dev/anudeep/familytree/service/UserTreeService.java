@@ -1,8 +1,10 @@
 package dev.anudeep.familytree.service;
 
 import dev.anudeep.familytree.ErrorHandling.dto.EntityNotFoundException;
+import dev.anudeep.familytree.dto.PageDTO;
 import dev.anudeep.familytree.dto.RelationChangeSummary;
 import dev.anudeep.familytree.dto.RoleAssignmentRequest;
+import dev.anudeep.familytree.dto.TreeDeletionResultDTO;
 import dev.anudeep.familytree.model.Role;
 import dev.anudeep.familytree.model.Tree;
 import dev.anudeep.familytree.model.User;
@@ -11,6 +13,8 @@ import dev.anudeep.familytree.dto.notification.NotificationEvent;
 import dev.anudeep.familytree.repository.TreeRepository;
 import dev.anudeep.familytree.repository.UserRepository;
 import dev.anudeep.familytree.utils.Constants;
+import dev.anudeep.familytree.utils.DateTimeUtil;
+import dev.anudeep.familytree.utils.PageCursor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.neo4j.core.Neo4jClient;
@@ -19,7 +23,9 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 // import java.util.stream.Collectors; // For potential future use with results, not needed now
 
@@ -31,6 +37,12 @@ public class UserTreeService {
     private final TreeRepository treeRepo;
     private final Neo4jClient neo4jClient;
     private final NotificationService notificationService; // Added NotificationService
+    private final TreeVersionService treeVersionService;
+    private final AdjacencyIndexService adjacencyIndexService;
+    private final FacetService facetService;
+    private final TreeRoleCache treeRoleCache;
+    private final TreeListCache treeListCache;
+    private final UserLookupCache userLookupCache;
 
     public Optional<User> getUserByElementId(String elementId) {
         return userRepo.findByElementId(elementId);
@@ -44,6 +56,85 @@ public class UserTreeService {
         return userRepo.findUsersAccessWithTree(treeId);
     }
 
+    /**
+     * Users ordered by name, {@code limit} at a time after the {@code after} cursor, optionally matching a name or
+     * email prefix. Users without a name come last.
+     */
+    public PageDTO<User> getUsersPage(String prefix, PageCursor after, int limit) {
+        return page(findUsersPage(blankToNull(prefix), after, limit + 1), limit,
+                user -> new PageCursor(user.getName(), user.getElementId()));
+    }
+
+    /**
+     * Same page as {@link #getUsersPage} with each user's access to the tree.
+     */
+    public PageDTO<User> getUsersAccessWithTreePage(String treeId, String prefix, PageCursor after, int limit) {
+        PageDTO<User> page = page(findUsersPage(blankToNull(prefix), after, limit + 1), limit,
+                user -> new PageCursor(user.getName(), user.getElementId()));
+        if (page.getItems().isEmpty()) {
+            return page;
+        }
+        List<User> users = userRepo.findUsersAccessWithTreeByIds(treeId, page.getItems().stream().map(User::getElementId).toList());
+        users.forEach(user -> {
+            if (user.getAccess() != null)
+                user.setAccess(Constants.getRoleForRel(user.getAccess()));
+        });
+        return new PageDTO<>(users, page.getNextCursor());
+    }
+
+    private List<User> findUsersPage(String prefix, PageCursor after, int limit) {
+        if (after == null) {
+            return prefix == null ? userRepo.findUsersFirstPage(limit) : userRepo.findUsersByPrefixFirstPage(prefix, limit);
+        }
+        if (after.sortKey() == null) {
+            return prefix == null ? userRepo.findUnnamedUsersPageAfter(after.elementId(), limit)
+                    : userRepo.findUnnamedUsersByPrefixPageAfter(prefix, after.elementId(), limit);
+        }
+        return prefix == null ? userRepo.findUsersPageAfter(after.sortKey(), after.elementId(), limit)
+                : userRepo.findUsersByPrefixPageAfter(prefix, after.sortKey(), after.elementId(), limit);
+    }
+
+    /**
+     * The user's trees ordered by name, formatted as in {@link #getTreeListForUser}, {@code limit} at a time.
+     * Trees without a name come last and never match a prefix.
+     */
+    public PageDTO<Tree> getTreesPageForUser(String userElementId, String prefix, PageCursor after, int limit) {
+        List<Tree> trees = findTreesPage(userElementId, blankToNull(prefix), after, limit + 1);
+        trees.forEach(tree -> {
+            tree.setAccess(Constants.getRoleForRel(tree.getAccess()));
+            if (tree.getCreatedAt() != null) {
+                tree.setCreatedAt(DateTimeUtil.readableDate(tree.getCreatedAt()));
+            }
+        });
+        return page(trees, limit, tree -> new PageCursor(tree.getName(), tree.getElementId()));
+    }
+
+    private List<Tree> findTreesPage(String userElementId, String prefix, PageCursor after, int limit) {
+        if (after == null) {
+            return prefix == null ? treeRepo.findTreesWithCreatorFirstPageForUser(userElementId, limit)
+                    : treeRepo.findTreesWithCreatorByPrefixFirstPageForUser(userElementId, prefix, limit);
+        }
+        if (after.sortKey() == null) {
+            return prefix == null ? treeRepo.findUnnamedTreesWithCreatorPageAfterForUser(userElementId, after.elementId(), limit)
+                    : new ArrayList<>();
+        }
+        return prefix == null ? treeRepo.findTreesWithCreatorPageAfterForUser(userElementId, after.sortKey(), after.elementId(), limit)
+                : treeRepo.findTreesWithCreatorByPrefixPageAfterForUser(userElementId, prefix, after.sortKey(), after.elementId(), limit);
+    }
+
+    // Pages are fetched with one extra row to tell whether another page follows
+    private static <T> PageDTO<T> page(List<T> rows, int limit, Function<T, PageCursor> cursorOf) {
+        if (rows.size() <= limit) {
+            return new PageDTO<>(rows, null);
+        }
+        List<T> items = new ArrayList<>(rows.subList(0, limit));
+        return new PageDTO<>(items, cursorOf.apply(items.get(limit - 1)).encode());
+    }
+
+    private static String blankToNull(String value) {
+        return value == null || value.isBlank() ? null : value.trim();
+    }
+
     public Optional<Tree> getTreeByElementId(String elementId) {
         return treeRepo.findByElementId(elementId);
     }
@@ -69,6 +160,23 @@ public class UserTreeService {
         return treeRepo.findAllTreesForUser(userElementId);
     }
 
+    /**
+     * Dashboard tree list of the user: access as a role name, readable creation date and the creator as
+     * "name (email)", loaded with one query and cached per user.
+     */
+    public List<Tree> getTreeListForUser(String userElementId) {
+        return treeListCache.get(userElementId, () -> {
+            List<Tree> trees = treeRepo.findAllTreesWithCreatorForUser(userElementId);
+            trees.forEach(tree -> {
+                tree.setAccess(Constants.getRoleForRel(tree.getAccess()));
+                if (tree.getCreatedAt() != null) {
+                    tree.setCreatedAt(DateTimeUtil.readableDate(tree.getCreatedAt()));
+                }
+            });
+            return trees;
+        });
+    }
+
     public List<Tree> getTreesForUserByType(String userElementId, String type) {
         return treeRepo.findTreesByRelationship(userElementId, type);
     }
@@ -82,71 +190,119 @@ public class UserTreeService {
     }
 
     public User createUser(String name, String email, String picture) {
-        return userRepo.save(new User(name, email, picture));
+        User created = userRepo.save(new User(name, email, picture));
+        userLookupCache.onUserCreated(created);
+        return created;
     }
 
-    public void createTree(Tree tree) {
-        treeRepo.save(tree);
-        // Notify about tree creation
-        if (tree.getElementId() != null && tree.getCreatedBy() != null) {
-            User creator = userRepo.findByElementId(tree.getCreatedBy())
-                    .orElse(new User(null, "Unknown User", null)); // Fallback user
-
-            List<String> usersToNotify = Collections.singletonList(tree.getCreatedBy());
-
-            NotificationEvent event = new NotificationEvent(
-                    EventType.TREE_CREATED,
-                    tree.getElementId(),
-                    tree.getName(),
-                    tree.getCreatedBy(), // Actor's elementId
-                    creator.getName(),   // Actor's name
-                    usersToNotify,
-                    null // No legacy data map needed
-            );
-            notificationService.sendNotification(event);
-        }
-    }
-
-    public Tree getTreeByDetails(String name, String createdAt, String createdBy) {
-        return treeRepo.findTreeByDetails(name, createdAt, createdBy);
+    /**
+     * Creates the tree and the creator's ADMIN_FOR relationship in one statement and returns the tree with its
+     * elementId. The creation and grant notifications are sent after the transaction commits.
+     */
+    @Transactional
+    public Tree createTree(Tree tree, String creatorElementId) {
+        String createdAt = DateTimeUtil.toIsoUtcString(tree.getCreatedAt() != null ? tree.getCreatedAt() : Instant.now().toString());
+        Map<String, Object> params = new HashMap<>();
+        params.put("userId", creatorElementId);
+        params.put("name", tree.getName());
+        params.put("desc", tree.getDesc());
+        params.put("createdAt", createdAt);
+        Map<String, Object> row = neo4jClient.query(String.format("""
+                    MATCH (u:User) WHERE elementId(u) = $userId
+                    CREATE (t:Tree {name: $name, desc: $desc, createdAt: $createdAt, createdBy: $userId})
+                    CREATE (u)-[:%s]->(t)
+                    RETURN elementId(t) AS elementId, u.name AS creatorName
+                """, Constants.ADMIN_REL))
+                .bindAll(params)
+                .fetch()
+                .one()
+                .orElseThrow(() -> new EntityNotFoundException("User not found with elementId: " + creatorElementId));
+
+        Tree created = new Tree(tree.getName(), tree.getDesc(), createdAt, creatorElementId);
+        created.setElementId((String) row.get("elementId"));
+        String creatorName = (String) row.get("creatorName");
+        treeListCache.invalidate(Collections.singletonList(creatorElementId));
+        log.info("Created tree {} with admin {}", created.getElementId(), creatorElementId);
+
+        List<String> usersToNotify = Collections.singletonList(creatorElementId);
+        notificationService.sendAfterCommit(new NotificationEvent(
+                EventType.TREE_CREATED,
+                created.getElementId(),
+                created.getName(),
+                creatorElementId, // Actor's elementId
+                creatorName,      // Actor's name
+                usersToNotify,
+                null // No legacy data map needed
+        ));
+        notificationService.sendAfterCommit(accessChangedEvent(created.getElementId(), created.getName(),
+                creatorElementId, creatorName, "GRANT", Map.of(creatorElementId, Constants.ADMIN_REL)));
+        return created;
     }
 
-    public void createRelationship(String userId, String treeId, String relationType) {
-        neo4jClient.query(String.format("""
-                    MATCH (u:User)
-                    WHERE elementId(u) = $userId
-                    MATCH (t:Tree)
-                    WHERE elementId(t) = $treeId
-                    MERGE (u)-[:%s]->(t)
-                """, relationType)).bindAll(Map.of("userId", userId, "treeId", treeId)).run();
-
-        // Notify about user access change
+    /**
+     * Grants the requested roles on the tree in one statement, which also reads the tree and actor names, and sends a
+     * single USER_ACCESS_CHANGED event to all granted users after commit. Existing relationships are kept (MERGE).
+     */
+    @Transactional
+    public void grantAccess(String treeId, List<RoleAssignmentRequest> users) {
+        List<Map<String, String>> grants = users.stream()
+                .filter(user -> user.getElementId() != null && user.getRelation() != null)
+                .map(user -> {
+                    Map<String, String> map = new HashMap<>();
+                    map.put("elementId", user.getElementId());
+                    map.put("relation", user.getRelation());
+                    return map;
+                })
+                .collect(Collectors.toList());
+        if (grants.isEmpty()) {
+            return;
+        }
         String actorUserElementId = SecurityContextHolder.getContext().getAuthentication().getName(); // Assumes principal is user elementId
-        User actor = userRepo.findByElementId(actorUserElementId)
-                .orElse(new User(null, "Unknown User", null)); // Fallback for actor name
-        Tree affectedTree = treeRepo.findByElementId(treeId)
-                .orElse(new Tree(null, "Unknown Tree", null, null)); // Fallback for tree name
-
-        List<String> usersToNotify = Collections.singletonList(userId); // Notify only the affected user
-
-        Map<String, Object> eventData = new HashMap<>(); // Keep other relevant data if any
-        eventData.put("affectedUserElementId", userId);
-        eventData.put("newRole", relationType);
-        eventData.put("changeType", "GRANT");
-
-
-        NotificationEvent event = new NotificationEvent(
-                EventType.USER_ACCESS_CHANGED,
-                treeId,
-                affectedTree.getName(),
-                actorUserElementId,
-                actor.getName(),
-                usersToNotify,
-                eventData
-        );
-        notificationService.sendNotification(event);
+        Map<String, Object> params = new HashMap<>();
+        params.put("treeId", treeId);
+        params.put("actorId", actorUserElementId);
+        params.put("users", grants);
+        Map<String, Object> row = neo4jClient.query("""
+                    MATCH (t:Tree) WHERE elementId(t) = $treeId
+                    OPTIONAL MATCH (a:User) WHERE elementId(a) = $actorId
+                    CALL {
+                        WITH t
+                        UNWIND $users AS userData
+                        MATCH (u:User) WHERE elementId(u) = userData.elementId
+                        FOREACH (_ IN CASE WHEN userData.relation = 'ADMIN_FOR' THEN [1] ELSE [] END |
+                          MERGE (u)-[:ADMIN_FOR]->(t)
+                        )
+                        FOREACH (_ IN CASE WHEN userData.relation = 'EDITOR_FOR' THEN [1] ELSE [] END |
+                          MERGE (u)-[:EDITOR_FOR]->(t)
+                        )
+                        FOREACH (_ IN CASE WHEN userData.relation = 'VIEWER_FOR' THEN [1] ELSE [] END |
+                          MERGE (u)-[:VIEWER_FOR]->(t)
+                        )
+                        RETURN collect({elementId: elementId(u), relation: userData.relation}) AS granted
+                    }
+                    RETURN t.name AS treeName, a.name AS actorName, granted
+                """)
+                .bindAll(params)
+                .fetch()
+                .one()
+                .orElseThrow(() -> new EntityNotFoundException("Tree not found with elementId: " + treeId));
+
+        @SuppressWarnings("unchecked")
+        List<Map<String, Object>> granted = (List<Map<String, Object>>) row.get("granted");
+        Map<String, Object> roles = new LinkedHashMap<>();
+        granted.forEach(grant -> roles.put((String) grant.get("elementId"), grant.get("relation")));
+        List<String> usersToNotify = new ArrayList<>(roles.keySet());
+        usersToNotify.forEach(userId -> treeRoleCache.invalidate(userId, treeId));
+        treeListCache.invalidate(usersToNotify);
+        log.info("Granted access on tree {} to {} of {} requested users", treeId, usersToNotify.size(), grants.size());
+
+        if (!usersToNotify.isEmpty()) {
+            notificationService.sendAfterCommit(accessChangedEvent(treeId, (String) row.get("treeName"),
+                    actorUserElementId, (String) row.get("actorName"), "GRANT", roles));
+        }
     }
 
+    @Transactional
     public RelationChangeSummary updateUsersRelationShip(String treeId, List<RoleAssignmentRequest> users) throws Exception {
 
         List<Map<String, String>> userMaps = users.stream()
@@ -158,37 +314,104 @@ public class UserTreeService {
                 })
                 .collect(Collectors.toList());
         log.info("Users to update {} for treeId {}", userMaps, treeId);
-        RelationChangeSummary summary = treeRepo.updateUsersRelationShip(treeId, userMaps);
-
-        // Notify for each user whose role might have been changed
         String actorUserElementId = SecurityContextHolder.getContext().getAuthentication().getName(); // Assumes principal is user elementId
-        User actor = userRepo.findByElementId(actorUserElementId)
-                .orElse(new User(null, "Unknown User", null)); // Fallback for actor name
-        Tree affectedTree = treeRepo.findByElementId(treeId)
-                .orElse(new Tree(null, "Unknown Tree", null, null)); // Fallback for tree name
-
-        for (RoleAssignmentRequest userRole : users) {
-            List<String> usersToNotify = Collections.singletonList(userRole.getElementId()); // Notify only the affected user
-
-            Map<String, Object> eventData = new HashMap<>();
-            eventData.put("affectedUserElementId", userRole.getElementId());
-            eventData.put("newRole", userRole.getRelation());
-            eventData.put("changeType", "UPDATE");
-
-            NotificationEvent event = new NotificationEvent(
-                    EventType.USER_ACCESS_CHANGED,
-                    treeId,
-                    affectedTree.getName(),
-                    actorUserElementId,
-                    actor.getName(),
-                    usersToNotify,
-                    eventData
-            );
-            notificationService.sendNotification(event);
+        Map<String, Object> params = new HashMap<>();
+        params.put("treeId", treeId);
+        params.put("actorId", actorUserElementId);
+        params.put("users", userMaps);
+        Map<String, Object> row = neo4jClient.query("""
+                    MATCH (t:Tree) WHERE elementId(t) = $treeId
+                    OPTIONAL MATCH (a:User) WHERE elementId(a) = $actorId
+                    CALL {
+                        WITH t
+                        UNWIND $users AS userData
+                        MATCH (u:User) WHERE elementId(u) = userData.elementId
+
+                        // Get existing relationship
+                        OPTIONAL MATCH (u)-[existingRel]->(t)
+                        WHERE type(existingRel) IN ['ADMIN_FOR', 'EDITOR_FOR', 'VIEWER_FOR']
+                        WITH u, t, userData, type(existingRel) AS currentRelType, existingRel
+
+                        // Step 1: DELETE if any
+                        FOREACH (_ IN CASE WHEN existingRel IS NOT NULL THEN [1] ELSE [] END |
+                          DELETE existingRel
+                        )
+
+                        // Step 2: CREATE new if userData.relation IS NOT NULL
+                        FOREACH (_ IN CASE WHEN userData.relation = 'ADMIN_FOR' THEN [1] ELSE [] END |
+                          MERGE (u)-[:ADMIN_FOR]->(t)
+                        )
+                        FOREACH (_ IN CASE WHEN userData.relation = 'EDITOR_FOR' THEN [1] ELSE [] END |
+                          MERGE (u)-[:EDITOR_FOR]->(t)
+                        )
+                        FOREACH (_ IN CASE WHEN userData.relation = 'VIEWER_FOR' THEN [1] ELSE [] END |
+                          MERGE (u)-[:VIEWER_FOR]->(t)
+                        )
+
+                        // Step 3: classify the operation type
+                        WITH
+                          CASE
+                            WHEN currentRelType IS NOT NULL AND userData.relation IS NULL THEN 1 ELSE 0
+                          END AS permanentlyDeleted,
+                          CASE
+                            WHEN currentRelType IS NULL AND userData.relation IS NOT NULL THEN 1 ELSE 0
+                          END AS newlyCreated,
+                          CASE
+                            WHEN currentRelType IS NOT NULL AND userData.relation IS NOT NULL AND currentRelType <> userData.relation THEN 1 ELSE 0
+                          END AS updated
+                        RETURN
+                          sum(permanentlyDeleted) AS permanentlyDeletedCount,
+                          sum(newlyCreated) AS newlyCreatedCount,
+                          sum(updated) AS updatedCount
+                    }
+                    RETURN t.name AS treeName, a.name AS actorName, permanentlyDeletedCount, newlyCreatedCount, updatedCount
+                """)
+                .bindAll(params)
+                .fetch()
+                .one()
+                .orElseThrow(() -> new EntityNotFoundException("Tree not found with elementId: " + treeId));
+        RelationChangeSummary summary = new RelationChangeSummary(
+                ((Number) row.get("permanentlyDeletedCount")).intValue(),
+                ((Number) row.get("newlyCreatedCount")).intValue(),
+                ((Number) row.get("updatedCount")).intValue());
+        treeRoleCache.invalidateTree(treeId);
+        treeListCache.invalidate(users.stream().map(RoleAssignmentRequest::getElementId).toList());
+
+        // One event for every user whose role might have been changed
+        Map<String, Object> roles = new LinkedHashMap<>();
+        users.forEach(userRole -> roles.put(userRole.getElementId(), userRole.getRelation()));
+        if (!roles.isEmpty()) {
+            notificationService.sendAfterCommit(accessChangedEvent(treeId, (String) row.get("treeName"),
+                    actorUserElementId, (String) row.get("actorName"), "UPDATE", roles));
         }
         return summary;
     }
 
+    /**
+     * One USER_ACCESS_CHANGED event for all affected users. The per-user roles are in {@code details.roles}; a single
+     * affected user also gets the {@code affectedUserElementId}/{@code newRole} fields the event always carried.
+     */
+    private NotificationEvent accessChangedEvent(String treeId, String treeName, String actorUserElementId,
+                                                 String actorName, String changeType, Map<String, Object> roles) {
+        Map<String, Object> eventData = new HashMap<>();
+        eventData.put("changeType", changeType);
+        eventData.put("roles", roles);
+        if (roles.size() == 1) {
+            Map.Entry<String, Object> only = roles.entrySet().iterator().next();
+            eventData.put("affectedUserElementId", only.getKey());
+            eventData.put("newRole", only.getValue());
+        }
+        return new NotificationEvent(
+                EventType.USER_ACCESS_CHANGED,
+                treeId,
+                treeName,
+                actorUserElementId,
+                actorName,
+                new ArrayList<>(roles.keySet()),
+                eventData
+        );
+    }
+
     @Transactional // Recommended for operations that modify data
     public void deleteTree(String elementId, User currentUser) {
         log.info("Attempting to delete tree {} by user {}", elementId, currentUser.getEmail());
@@ -210,6 +433,11 @@ public class UserTreeService {
                 .collect(Collectors.toList());
 
         treeRepo.detachAndDeleteByElementId(elementId);
+        treeVersionService.bumpVersion(elementId);
+        adjacencyIndexService.evict(elementId);
+        facetService.evict(elementId);
+        treeRoleCache.invalidateTree(elementId);
+        treeListCache.invalidate(usersToNotify);
         log.info("Tree {} deleted successfully (with detach) by user {}", elementId, currentUser.getEmail());
 
         // Notify about tree deletion
@@ -225,78 +453,84 @@ public class UserTreeService {
         notificationService.sendNotification(event);
     }
 
+    /**
+     * Deletes the trees the user is ADMIN of. One query reads the name and members of every requested tree, the
+     * deletable ones are removed with one DETACH DELETE and their TREE_DELETED events are sent after commit.
+     * Returns the outcome per requested id, in request order.
+     */
     @Transactional // Recommended for operations that modify data
-    public void deleteMultipleTrees(List<String> elementIds, User currentUser) {
+    public List<TreeDeletionResultDTO> deleteMultipleTrees(List<String> elementIds, User currentUser) {
         if (elementIds == null || elementIds.isEmpty()) {
             log.info("No tree IDs provided for bulk deletion by user {}.", currentUser.getEmail());
-            return;
+            return Collections.emptyList();
         }
         log.info("Attempting to delete multiple trees by user {}. Provided IDs: {}", currentUser.getEmail(), elementIds);
+        List<String> requestedIds = new ArrayList<>(new LinkedHashSet<>(elementIds));
+        Map<String, Map<String, Object>> rowsById = new HashMap<>();
+        neo4jClient.query("""
+                    UNWIND $ids AS id
+                    OPTIONAL MATCH (t:Tree) WHERE elementId(t) = id
+                    OPTIONAL MATCH (m:User)-[r]->(t)
+                    WITH id, t, collect(CASE WHEN m IS NOT NULL THEN {userId: elementId(m), relation: type(r)} END) AS members
+                    RETURN id, t IS NOT NULL AS found, t.name AS treeName, members
+                """)
+                .bind(requestedIds).to("ids")
+                .fetch()
+                .all()
+                .forEach(row -> rowsById.put((String) row.get("id"), row));
+
+        List<TreeDeletionResultDTO> results = new ArrayList<>();
         List<String> idsToDelete = new ArrayList<>();
-        List<String> skippedIdsLog = new ArrayList<>(); // To log which ones were skipped
-        Map<String, Tree> treesPendingDeletion = new HashMap<>(); // To store tree objects for notification
-
-        for (String elementId : elementIds) {
-            Optional<Tree> treeOpt = treeRepo.findByElementId(elementId);
-            if (treeOpt.isEmpty()) {
+        Map<String, List<String>> usersToNotifyByTreeId = new HashMap<>();
+        for (String elementId : requestedIds) {
+            Map<String, Object> row = rowsById.get(elementId);
+            if (row == null || !Boolean.TRUE.equals(row.get("found"))) {
                 log.warn("Tree with elementId {} not found during bulk delete attempt by user {}. Skipping.", elementId, currentUser.getEmail());
-                skippedIdsLog.add(elementId + " (Not found)");
+                results.add(new TreeDeletionResultDTO(elementId, null, TreeDeletionResultDTO.Status.NOT_FOUND));
                 continue;
             }
-
-            Tree tree = treeOpt.get();
-            Optional<Role> userRoleOpt = getRelationshipType(currentUser.getElementId(), tree.getElementId());
-
-            if (userRoleOpt.isPresent() && userRoleOpt.get() == Role.ADMIN) {
-                idsToDelete.add(elementId); // Add the elementId for deletion
-                treesPendingDeletion.put(elementId, tree); // Store for notification
-            } else {
-                log.warn("User {} does not have ADMIN access for tree {} during bulk delete. Actual role: {}. Skipping.",
-                        currentUser.getEmail(), elementId, userRoleOpt.map(Enum::name).orElse("NONE"));
-                skippedIdsLog.add(elementId + " (Access denied)");
+            String treeName = (String) row.get("treeName");
+            @SuppressWarnings("unchecked")
+            List<Map<String, Object>> members = (List<Map<String, Object>>) row.get("members");
+            boolean isAdmin = members.stream().anyMatch(member ->
+                    currentUser.getElementId().equals(member.get("userId")) && Constants.ADMIN_REL.equals(member.get("relation")));
+            if (!isAdmin) {
+                log.warn("User {} does not have ADMIN access for tree {} during bulk delete. Skipping.", currentUser.getEmail(), elementId);
+                results.add(new TreeDeletionResultDTO(elementId, treeName, TreeDeletionResultDTO.Status.ACCESS_DENIED));
+                continue;
             }
+            idsToDelete.add(elementId);
+            usersToNotifyByTreeId.put(elementId, members.stream().map(member -> (String) member.get("userId")).distinct().toList());
+            results.add(new TreeDeletionResultDTO(elementId, treeName, TreeDeletionResultDTO.Status.DELETED));
         }
 
-        if (!idsToDelete.isEmpty()) {
-            // Fetch users for all trees to be deleted BEFORE actual deletion
-            Map<String, List<String>> usersToNotifyByTreeId = new HashMap<>();
-            for (String treeId : idsToDelete) {
-                List<String> users = treeRepo.findAllUsersForTree(treeId).stream()
-                        .map(User::getElementId)
-                        .collect(Collectors.toList());
-                usersToNotifyByTreeId.put(treeId, users);
-            }
-
-            treeRepo.detachAndDeleteAllByElementIdIn(idsToDelete);
-            log.info("Successfully deleted (with detach) trees with IDs: {} by user {}.", idsToDelete, currentUser.getEmail());
+        if (idsToDelete.isEmpty()) {
+            log.info("No trees were eligible for deletion for user {}.", currentUser.getEmail());
+            return results;
+        }
 
-            // Notify for each deleted tree
-            for (String deletedTreeId : idsToDelete) {
-                Tree deletedTree = treesPendingDeletion.get(deletedTreeId); // Get stored tree
-                List<String> usersForThisTree = usersToNotifyByTreeId.getOrDefault(deletedTreeId, Collections.emptyList());
+        treeRepo.detachAndDeleteAllByElementIdIn(idsToDelete);
+        idsToDelete.forEach(treeVersionService::bumpVersion);
+        idsToDelete.forEach(adjacencyIndexService::evict);
+        idsToDelete.forEach(facetService::evict);
+        idsToDelete.forEach(treeRoleCache::invalidateTree);
+        treeListCache.invalidate(usersToNotifyByTreeId.values().stream().flatMap(List::stream).distinct().toList());
+        log.info("Successfully deleted (with detach) trees with IDs: {} by user {}.", idsToDelete, currentUser.getEmail());
 
-                if (deletedTree == null) { // Should not happen if logic is correct
-                    log.error("Could not find tree details for {} during bulk delete notification.", deletedTreeId);
-                    continue;
-                }
-
-                NotificationEvent event = new NotificationEvent(
-                        EventType.TREE_DELETED,
-                        deletedTreeId,
-                        deletedTree.getName(), // treeName
-                        currentUser.getElementId(), // actorUserId
-                        currentUser.getName(), // actorUserName
-                        usersForThisTree, // usersToNotify
-                        null // No legacy data map
-                );
-                notificationService.sendNotification(event);
+        for (TreeDeletionResultDTO result : results) {
+            if (result.getStatus() != TreeDeletionResultDTO.Status.DELETED) {
+                continue;
             }
-        } else {
-            log.info("No trees were eligible for deletion by user {} from the provided list.", currentUser.getEmail());
-        }
-
-        if (!skippedIdsLog.isEmpty()) {
-            log.info("Skipped tree IDs during bulk deletion by user {}: {}", currentUser.getEmail(), skippedIdsLog);
+            notificationService.sendAfterCommit(new NotificationEvent(
+                    EventType.TREE_DELETED,
+                    result.getElementId(),
+                    result.getTreeName(), // treeName
+                    currentUser.getElementId(), // actorUserId
+                    currentUser.getName(), // actorUserName
+                    usersToNotifyByTreeId.get(result.getElementId()), // usersToNotify
+                    null // No legacy data map
+            ));
         }
+        return results;
     }
 }
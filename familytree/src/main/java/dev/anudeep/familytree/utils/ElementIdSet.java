@@ -0,0 +1,113 @@
+package dev.anudeep.familytree.utils;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Compact set of Neo4j elementIds. Ids of the form {@code <prefix>:<number>} sharing one prefix are stored as
+ * primitive longs in an open-addressing table; anything else falls back to a regular string set.
+ * Not thread-safe.
+ */
+public class ElementIdSet {
+    private static final long EMPTY = 0L;
+
+    private long[] table = new long[64];
+    private int longCount = 0;
+    private String prefix;
+    private Set<String> fallback;
+
+    public boolean add(String elementId) {
+        int separator = elementId.lastIndexOf(':');
+        long id = parseId(elementId, separator);
+        if (id < 0 || !samePrefix(elementId, separator)) {
+            if (fallback == null) {
+                fallback = new HashSet<>();
+            }
+            return fallback.add(elementId);
+        }
+        return addLong(id + 1); // +1 keeps 0 free as the empty marker
+    }
+
+    public boolean contains(String elementId) {
+        int separator = elementId.lastIndexOf(':');
+        long id = parseId(elementId, separator);
+        if (id < 0 || !matchesPrefix(elementId, separator)) {
+            return fallback != null && fallback.contains(elementId);
+        }
+        long key = id + 1;
+        int mask = table.length - 1;
+        for (int i = mix(key) & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+            if (table[i] == key) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return longCount + (fallback == null ? 0 : fallback.size());
+    }
+
+    private boolean samePrefix(String elementId, int separator) {
+        if (prefix == null) {
+            prefix = elementId.substring(0, separator);
+            return true;
+        }
+        return matchesPrefix(elementId, separator);
+    }
+
+    private boolean matchesPrefix(String elementId, int separator) {
+        return prefix != null && prefix.length() == separator && elementId.regionMatches(0, prefix, 0, separator);
+    }
+
+    private boolean addLong(long key) {
+        int mask = table.length - 1;
+        int i = mix(key) & mask;
+        while (table[i] != EMPTY) {
+            if (table[i] == key) {
+                return false;
+            }
+            i = (i + 1) & mask;
+        }
+        table[i] = key;
+        if (++longCount * 2 > table.length) {
+            resize();
+        }
+        return true;
+    }
+
+    private void resize() {
+        long[] old = table;
+        table = new long[old.length * 2];
+        int mask = table.length - 1;
+        for (long key : old) {
+            if (key != EMPTY) {
+                int i = mix(key) & mask;
+                while (table[i] != EMPTY) {
+                    i = (i + 1) & mask;
+                }
+                table[i] = key;
+            }
+        }
+    }
+
+    private static long parseId(String elementId, int separator) {
+        if (separator < 0 || separator == elementId.length() - 1 || elementId.length() - separator > 19) {
+            return -1;
+        }
+        long id = 0;
+        for (int i = separator + 1; i < elementId.length(); i++) {
+            char c = elementId.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            id = id * 10 + (c - '0');
+        }
+        return id;
+    }
+
+    private static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+}
@@ -0,0 +1,134 @@
+package dev.anudeep.familytree.utils;
+
+import dev.anudeep.familytree.model.Filter;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Compiles a {@link Filter.FilterBy} into a parameterized Cypher node predicate and the relationship types to keep.
+ * The predicate mirrors the filter panel: a Person survives when every set person criterion holds, a House when it is
+ * one of the selected houses, and disabled node types drop out entirely. Values are always passed as parameters.
+ */
+public class FilterCypherCompiler {
+
+    private static final String ALIAS = "{n}";
+
+    private FilterCypherCompiler() {
+        // Private constructor to prevent instantiation
+    }
+
+    /**
+     * @param predicateTemplate node predicate with {@code {n}} in place of the node variable
+     * @param parameters        query parameters referenced by the predicate, all prefixed with {@code f_}
+     * @param edgeTypes         relationship types that stay visible, possibly empty
+     */
+    public record CompiledFilter(String predicateTemplate, Map<String, Object> parameters, List<String> edgeTypes) {
+        public String predicate(String variable) {
+            return predicateTemplate.replace(ALIAS, variable);
+        }
+    }
+
+    public static CompiledFilter compile(Filter.FilterBy filterBy) {
+        Map<String, Object> params = new HashMap<>();
+        Filter.FilterBy by = filterBy != null ? filterBy : new Filter.FilterBy();
+        Filter.NodeProps nodeProps = by.getNodeProps() != null ? by.getNodeProps() : new Filter.NodeProps();
+
+        String person = enabled(by.getNodeTypes(), "Person") ? personPredicate(nodeProps.getPerson(), params) : "false";
+        String house = enabled(by.getNodeTypes(), "House") ? housePredicate(nodeProps.getHouse(), params) : "false";
+        String predicate = "((" + ALIAS + ":Person AND " + person + ") OR (" + ALIAS + ":House AND " + house + "))";
+
+        List<String> edgeTypes = new ArrayList<>();
+        for (String type : List.of(Constants.BELONGS_REL, Constants.MARRIED_REL, Constants.PARENT_REL)) {
+            if (enabled(by.getEdgeTypes(), type)) {
+                edgeTypes.add(type);
+            }
+        }
+        return new CompiledFilter(predicate, params, edgeTypes);
+    }
+
+    private static String personPredicate(Filter.PersonFilter person, Map<String, Object> params) {
+        if (person == null) {
+            return "true";
+        }
+        List<String> clauses = new ArrayList<>();
+        if (person.getGender() != null) {
+            params.put("f_gender", person.getGender());
+            clauses.add(ALIAS + ".gender = $f_gender");
+        }
+        if (person.getMarried() != null) {
+            String married = "EXISTS { (" + ALIAS + ")-[:" + Constants.MARRIED_REL + "]-(:Person) }";
+            clauses.add(person.getMarried() ? married : "NOT " + married);
+        }
+        if (person.getLocations() != null && !person.getLocations().isEmpty()) {
+            params.put("f_locations", person.getLocations());
+            clauses.add(ALIAS + ".currLocation IN $f_locations");
+        }
+        List<Integer> age = person.getAge();
+        if (age != null && age.size() == 2 && age.get(0) != null && age.get(1) != null) {
+            params.put("f_ageMin", age.get(0));
+            params.put("f_ageMax", age.get(1));
+            String years = "duration.between(date(" + ALIAS + ".dob), date(coalesce(" + ALIAS + ".doe, datetime()))).years";
+            String inRange = years + " >= $f_ageMin AND " + years + " <= $f_ageMax";
+            // Persons without a date of birth only pass a (nearly) unrestricted range, as in the filter panel
+            clauses.add(age.get(1) - age.get(0) >= 90
+                    ? "(" + ALIAS + ".dob IS NULL OR (" + inRange + "))"
+                    : "(" + ALIAS + ".dob IS NOT NULL AND " + inRange + ")");
+        }
+        if (person.getBornAfter() != null) {
+            params.put("f_bornAfter", utc(person.getBornAfter()));
+            clauses.add(ALIAS + ".dob >= $f_bornAfter");
+        }
+        if (person.getBornBefore() != null) {
+            params.put("f_bornBefore", utc(person.getBornBefore()));
+            clauses.add(ALIAS + ".dob <= $f_bornBefore");
+        }
+        if (person.getIsAlive() != null) {
+            clauses.add("coalesce(" + ALIAS + ".isAlive, '') <> '" + (person.getIsAlive() ? "No" : "Yes") + "'");
+        }
+        addMembership(clauses, params, "f_jobTypes", "job_jobType", person.getJobTypes());
+        addMembership(clauses, params, "f_studies", "education_fieldOfStudy", person.getStudies());
+        addMembership(clauses, params, "f_qualifications", "education_highestQualification", person.getQualifications());
+        return clauses.isEmpty() ? "true" : "(" + String.join(" AND ", clauses) + ")";
+    }
+
+    private static String housePredicate(Filter.HouseFilter house, Map<String, Object> params) {
+        if (house == null || house.getSelectedHouses() == null || house.getSelectedHouses().isEmpty()) {
+            return "true";
+        }
+        List<String> houseIds = new ArrayList<>();
+        house.getSelectedHouses().forEach(item -> houseIds.add(item.getId()));
+        params.put("f_houseIds", houseIds);
+        return "elementId(" + ALIAS + ") IN $f_houseIds";
+    }
+
+    // Grouped items are matched by id or label, whichever the panel stored as the value
+    private static void addMembership(List<String> clauses, Map<String, Object> params, String param, String property,
+                                      List<Filter.GroupedLabelItem> items) {
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        Set<String> values = new LinkedHashSet<>();
+        for (Filter.GroupedLabelItem item : items) {
+            if (item.getId() != null) values.add(item.getId());
+            if (item.getLabel() != null) values.add(item.getLabel());
+        }
+        params.put(param, new ArrayList<>(values));
+        clauses.add(ALIAS + "." + property + " IN $" + param);
+    }
+
+    private static boolean enabled(Map<String, Boolean> flags, String key) {
+        return flags == null || !Boolean.FALSE.equals(flags.get(key));
+    }
+
+    private static ZonedDateTime utc(Date date) {
+        return ZonedDateTime.ofInstant(date.toInstant(), ZoneId.of("UTC"));
+    }
+}
@@ -0,0 +1,249 @@
+package dev.anudeep.familytree.utils;
+
+import dev.anudeep.familytree.dto.FlowEdgeDTO;
+import dev.anudeep.familytree.dto.FlowGraphDTO;
+import dev.anudeep.familytree.dto.FlowNodeDTO;
+import dev.anudeep.familytree.model.Filter;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.OffsetDateTime;
+import java.time.Period;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Collection;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * A saved {@link Filter} compiled once for in-memory evaluation against {@link FlowNodeDTO}s: value lists become sets
+ * and date bounds become epoch millis. Applies the same rules as {@link FilterCypherCompiler}. Immutable.
+ */
+public final class FilterPredicate {
+
+    private final String filterId;
+    private final String treeId;
+    private final boolean enabled;
+    private final boolean persons;
+    private final boolean houses;
+    private final Set<String> edgeTypes;
+    private final Set<String> houseIds;
+    private final String gender;
+    private final Boolean married;
+    private final Set<String> locations;
+    private final Integer ageMin;
+    private final Integer ageMax;
+    private final Long bornAfter;
+    private final Long bornBefore;
+    private final Boolean isAlive;
+    private final Set<String> jobTypes;
+    private final Set<String> studies;
+    private final Set<String> qualifications;
+    private final String rootPersonId;
+    private final boolean onlyImmediate;
+
+    private FilterPredicate(Filter filter, String treeId) {
+        Filter.FilterBy by = filter.getFilterBy() != null ? filter.getFilterBy() : new Filter.FilterBy();
+        Filter.NodeProps nodeProps = by.getNodeProps() != null ? by.getNodeProps() : new Filter.NodeProps();
+        Filter.PersonFilter person = nodeProps.getPerson() != null ? nodeProps.getPerson() : new Filter.PersonFilter();
+        Filter.HouseFilter house = nodeProps.getHouse() != null ? nodeProps.getHouse() : new Filter.HouseFilter();
+
+        this.filterId = filter.getElementId();
+        this.treeId = treeId;
+        this.enabled = filter.isEnabled();
+        this.persons = enabled(by.getNodeTypes(), "Person");
+        this.houses = enabled(by.getNodeTypes(), "House");
+        Set<String> types = new HashSet<>();
+        for (String type : List.of(Constants.BELONGS_REL, Constants.MARRIED_REL, Constants.PARENT_REL)) {
+            if (enabled(by.getEdgeTypes(), type)) {
+                types.add(type);
+            }
+        }
+        this.edgeTypes = Set.copyOf(types);
+        this.houseIds = house.getSelectedHouses() == null ? Set.of()
+                : Set.copyOf(house.getSelectedHouses().stream().map(Filter.LabelledItem::getId).filter(Objects::nonNull).toList());
+
+        this.gender = person.getGender();
+        this.married = person.getMarried();
+        this.locations = person.getLocations() == null ? Set.of() : Set.copyOf(person.getLocations().stream().filter(Objects::nonNull).toList());
+        List<Integer> age = person.getAge();
+        boolean hasAge = age != null && age.size() == 2 && age.get(0) != null && age.get(1) != null;
+        this.ageMin = hasAge ? age.get(0) : null;
+        this.ageMax = hasAge ? age.get(1) : null;
+        this.bornAfter = millis(person.getBornAfter());
+        this.bornBefore = millis(person.getBornBefore());
+        this.isAlive = person.getIsAlive();
+        this.jobTypes = values(person.getJobTypes());
+        this.studies = values(person.getStudies());
+        this.qualifications = values(person.getQualifications());
+
+        Filter.RootPerson root = by.getRootPerson();
+        this.rootPersonId = root != null && root.getPerson() != null ? root.getPerson().getId() : null;
+        this.onlyImmediate = root != null && root.isOnlyImmediate();
+    }
+
+    public static FilterPredicate compile(Filter filter, String treeId) {
+        return new FilterPredicate(filter, treeId);
+    }
+
+    public String getFilterId() {
+        return filterId;
+    }
+
+    public String getTreeId() {
+        return treeId;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public String getRootPersonId() {
+        return rootPersonId;
+    }
+
+    public boolean isOnlyImmediate() {
+        return onlyImmediate;
+    }
+
+    public boolean keepsEdgeType(String type) {
+        return edgeTypes.contains(type);
+    }
+
+    /**
+     * Ids of the graph's nodes that pass the filter. {@code scope} restricts candidates to a root person's family, null for no restriction.
+     */
+    public Set<String> matchingNodeIds(FlowGraphDTO graph, Collection<String> scope) {
+        Set<String> scopeIds = scope == null ? null : new HashSet<>(scope);
+        Set<String> marriedIds = married == null ? Set.of() : marriedPersonIds(graph);
+        long now = System.currentTimeMillis();
+        Set<String> matching = new HashSet<>();
+        for (FlowNodeDTO node : graph.getNodes()) {
+            if ((scopeIds == null || scopeIds.contains(node.getId())) && test(node, marriedIds, now)) {
+                matching.add(node.getId());
+            }
+        }
+        return matching;
+    }
+
+    /**
+     * An edge stays when its type is enabled and both ends passed the filter.
+     */
+    public boolean testEdge(FlowEdgeDTO edge, Set<String> matchingNodeIds) {
+        return keepsEdgeType(edge.getLabel()) && matchingNodeIds.contains(edge.getSource()) && matchingNodeIds.contains(edge.getTarget());
+    }
+
+    private boolean test(FlowNodeDTO node, Set<String> marriedIds, long now) {
+        if ("House".equals(node.getType())) {
+            return houses && (houseIds.isEmpty() || houseIds.contains(node.getId()));
+        }
+        if (!"Person".equals(node.getType())) {
+            return false;
+        }
+        if (!persons) {
+            return false;
+        }
+        Map<String, Object> data = node.getData() != null ? node.getData() : Map.of();
+        if (gender != null && !gender.equals(data.get("gender"))) {
+            return false;
+        }
+        if (married != null && married != marriedIds.contains(node.getId())) {
+            return false;
+        }
+        if (!locations.isEmpty() && !locations.contains(data.get("currLocation"))) {
+            return false;
+        }
+        Long dob = millis(data.get("dob"));
+        if (ageMin != null) {
+            if (dob == null) {
+                if (ageMax - ageMin < 90) {
+                    return false;
+                }
+            } else {
+                Long doe = millis(data.get("doe"));
+                int years = Period.between(date(dob), date(doe != null ? doe : now)).getYears();
+                if (years < ageMin || years > ageMax) {
+                    return false;
+                }
+            }
+        }
+        if (bornAfter != null && (dob == null || dob < bornAfter)) {
+            return false;
+        }
+        if (bornBefore != null && (dob == null || dob > bornBefore)) {
+            return false;
+        }
+        if (isAlive != null && (isAlive ? "No" : "Yes").equals(data.get("isAlive"))) {
+            return false;
+        }
+        if (!jobTypes.isEmpty() && !jobTypes.contains(nested(data, "job", "jobType"))) {
+            return false;
+        }
+        if (!studies.isEmpty() && !studies.contains(nested(data, "education", "fieldOfStudy"))) {
+            return false;
+        }
+        return qualifications.isEmpty() || qualifications.contains(nested(data, "education", "highestQualification"));
+    }
+
+    private static Set<String> marriedPersonIds(FlowGraphDTO graph) {
+        Set<String> ids = new HashSet<>();
+        for (FlowEdgeDTO edge : graph.getEdges()) {
+            if (Constants.MARRIED_REL.equals(edge.getLabel())) {
+                ids.add(edge.getSource());
+                ids.add(edge.getTarget());
+            }
+        }
+        return ids;
+    }
+
+    private static Object nested(Map<String, Object> data, String group, String key) {
+        return data.get(group) instanceof Map<?, ?> values ? values.get(key) : null;
+    }
+
+    // Grouped items are matched by id or label, whichever the panel stored as the value
+    private static Set<String> values(List<Filter.GroupedLabelItem> items) {
+        if (items == null || items.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> values = new HashSet<>();
+        for (Filter.GroupedLabelItem item : items) {
+            if (item.getId() != null) values.add(item.getId());
+            if (item.getLabel() != null) values.add(item.getLabel());
+        }
+        return Set.copyOf(values);
+    }
+
+    private static boolean enabled(Map<String, Boolean> flags, String key) {
+        return flags == null || !Boolean.FALSE.equals(flags.get(key));
+    }
+
+    private static LocalDate date(long millis) {
+        return Instant.ofEpochMilli(millis).atZone(ZoneOffset.UTC).toLocalDate();
+    }
+
+    // Node dates are epoch millis or ISO-8601 strings depending on the ObjectMapper settings
+    private static Long millis(Object value) {
+        if (value instanceof Date date) {
+            return date.getTime();
+        }
+        if (value instanceof Number number) {
+            return number.longValue();
+        }
+        if (value instanceof String text && !text.isBlank()) {
+            try {
+                return OffsetDateTime.parse(text).toInstant().toEpochMilli();
+            } catch (DateTimeParseException e) {
+                try {
+                    return Instant.parse(text).toEpochMilli();
+                } catch (DateTimeParseException ignored) {
+                    return null;
+                }
+            }
+        }
+        return null;
+    }
+}
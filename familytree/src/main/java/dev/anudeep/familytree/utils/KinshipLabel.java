@@ -0,0 +1,140 @@
+package dev.anudeep.familytree.utils;
+
+import dev.anudeep.familytree.utils.TreeAdjacencyIndex.Step;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Human readable name of a kinship path, describing the last person relative to the first one
+ * (e.g. "mother", "second cousin once removed", "sister-in-law", "spouse's first cousin").
+ * Only the final term is gendered, using the gender of the last person.
+ */
+public class KinshipLabel {
+
+    private static final String[] ORDINALS = {"zeroth", "first", "second", "third", "fourth", "fifth", "sixth", "seventh", "eighth", "ninth", "tenth"};
+    private static final String[] TIMES = {"", "once", "twice", "thrice"};
+
+    private KinshipLabel() {
+        // Private constructor to prevent instantiation
+    }
+
+    public static String describe(List<Step> steps, String gender) {
+        List<int[]> pieces = pieces(steps); // {ups, downs}, {-1, -1} for a marriage
+        if (pieces.isEmpty()) {
+            return "self";
+        }
+
+        if (pieces.size() == 2) {
+            int[] first = pieces.get(0);
+            int[] second = pieces.get(1);
+            if (isSpouse(first) && !isSpouse(second)) {
+                // Relatives of the spouse
+                if (second[0] == 1 && second[1] == 0) return gendered("parent-in-law", "father-in-law", "mother-in-law", gender);
+                if (second[0] == 1 && second[1] == 1) return gendered("sibling-in-law", "brother-in-law", "sister-in-law", gender);
+                if (second[0] == 0 && second[1] == 1) return gendered("stepchild", "stepson", "stepdaughter", gender);
+            }
+            if (!isSpouse(first) && isSpouse(second)) {
+                // Spouses of relatives
+                if (first[0] == 0 && first[1] == 1) return gendered("child-in-law", "son-in-law", "daughter-in-law", gender);
+                if (first[0] == 1 && first[1] == 1) return gendered("sibling-in-law", "brother-in-law", "sister-in-law", gender);
+                if (first[0] == 1 && first[1] == 0) return gendered("step-parent", "stepfather", "stepmother", gender);
+            }
+        }
+
+        StringBuilder label = new StringBuilder();
+        for (int i = 0; i < pieces.size(); i++) {
+            boolean last = i == pieces.size() - 1;
+            label.append(term(pieces.get(i), last ? gender : null));
+            if (!last) {
+                label.append("'s ");
+            }
+        }
+        return label.toString();
+    }
+
+    // Splits the path into marriages and blood runs of the form up* down*
+    private static List<int[]> pieces(List<Step> steps) {
+        List<int[]> pieces = new ArrayList<>();
+        int ups = 0;
+        int downs = 0;
+        for (Step step : steps) {
+            if (step == Step.SPOUSE) {
+                if (ups + downs > 0) {
+                    pieces.add(new int[]{ups, downs});
+                }
+                pieces.add(new int[]{-1, -1});
+                ups = 0;
+                downs = 0;
+            } else if (step == Step.PARENT && downs > 0) {
+                pieces.add(new int[]{ups, downs});
+                ups = 1;
+                downs = 0;
+            } else if (step == Step.PARENT) {
+                ups++;
+            } else {
+                downs++;
+            }
+        }
+        if (ups + downs > 0) {
+            pieces.add(new int[]{ups, downs});
+        }
+        return pieces;
+    }
+
+    private static boolean isSpouse(int[] piece) {
+        return piece[0] < 0;
+    }
+
+    private static String term(int[] piece, String gender) {
+        if (isSpouse(piece)) {
+            return gendered("spouse", "husband", "wife", gender);
+        }
+        int ups = piece[0];
+        int downs = piece[1];
+        if (downs == 0) {
+            return prefix(ups - 1, "grand") + gendered("parent", "father", "mother", gender);
+        }
+        if (ups == 0) {
+            return prefix(downs - 1, "grand") + gendered("child", "son", "daughter", gender);
+        }
+        if (ups == 1 && downs == 1) {
+            return gendered("sibling", "brother", "sister", gender);
+        }
+        if (ups == 1) {
+            return prefix(downs - 2, "grand-") + gendered("nephew or niece", "nephew", "niece", gender);
+        }
+        if (downs == 1) {
+            return prefix(ups - 2, "great-") + gendered("uncle or aunt", "uncle", "aunt", gender);
+        }
+        int degree = Math.min(ups, downs) - 1;
+        int removed = Math.abs(ups - downs);
+        String cousin = ordinal(degree) + " cousin";
+        if (removed == 0) {
+            return cousin;
+        }
+        return cousin + " " + (removed < TIMES.length ? TIMES[removed] : removed + " times") + " removed";
+    }
+
+    // "grand", "great-grand", "great-great-grand"... for generations beyond the first
+    private static String prefix(int extraGenerations, String base) {
+        if (extraGenerations <= 0) {
+            return "";
+        }
+        return "great-".repeat(extraGenerations - 1) + base;
+    }
+
+    private static String ordinal(int n) {
+        return n < ORDINALS.length ? ORDINALS[n] : n + "th";
+    }
+
+    private static String gendered(String neutral, String male, String female, String gender) {
+        if ("male".equalsIgnoreCase(gender)) {
+            return male;
+        }
+        if ("female".equalsIgnoreCase(gender)) {
+            return female;
+        }
+        return neutral;
+    }
+}
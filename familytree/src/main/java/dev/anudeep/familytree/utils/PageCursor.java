@@ -0,0 +1,39 @@
+package dev.anudeep.familytree.utils;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Keyset position in a list sorted by (sortKey, elementId), exchanged with clients as an opaque URL-safe string.
+ *
+ * @param sortKey   sort property value of the last item returned, null when the item has none
+ * @param elementId elementId of the last item returned, breaks ties between equal sort keys
+ */
+public record PageCursor(String sortKey, String elementId) {
+    private static final char SEPARATOR = '\n';
+    // Leads the raw cursor so a null sort key stays distinct from an empty one
+    private static final char NULL_KEY = '-';
+    private static final char KEY = '+';
+
+    public String encode() {
+        String raw = (sortKey != null ? KEY + sortKey : String.valueOf(NULL_KEY)) + SEPARATOR + elementId;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * @return the decoded cursor, null for a null or blank cursor
+     * @throws IllegalArgumentException when the cursor was not produced by {@link #encode()}
+     */
+    public static PageCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        int separator = raw.lastIndexOf(SEPARATOR);
+        if (separator < 1 || (raw.charAt(0) == NULL_KEY ? separator != 1 : raw.charAt(0) != KEY)) {
+            throw new IllegalArgumentException("Invalid page cursor");
+        }
+        String sortKey = raw.charAt(0) == NULL_KEY ? null : raw.substring(1, separator);
+        return new PageCursor(sortKey, raw.substring(separator + 1));
+    }
+}
@@ -0,0 +1,148 @@
+package dev.anudeep.familytree.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import dev.anudeep.familytree.dto.FlowNodeDTO;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.types.Node;
+import org.springframework.stereotype.Component;
+
+import java.text.DateFormat;
+import java.time.ZonedDateTime;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Maps a flattened Person node straight from driver values into the {@link FlowNodeDTO} data map.
+ * Produces the same map as {@link PersonNodeConverter#flattenedMapToPerson} followed by
+ * {@code objectMapper.convertValue(person, Map)}: same keys, same order, nulls kept, dates rendered
+ * the way the application ObjectMapper renders {@link Date}.
+ */
+@Component
+public class PersonFlowNodeMapper {
+
+    // Property order of the serialized Person
+    private static final String ELEMENT_ID = "elementId";
+    private static final String NAME = "name";
+    private static final String GENDER = "gender";
+    private static final String NICK_NAME = "nickName";
+    private static final String IS_ALIVE = "isAlive";
+    private static final String DOB = "dob";
+    private static final String DOE = "doe";
+    private static final String EDUCATION = "education";
+    private static final String JOB = "job";
+    private static final String CURR_LOCATION = "currLocation";
+    private static final String CHARACTER = "character";
+    private static final String IMAGE_URL = "imageUrl";
+    private static final String CHILDREN = "children";
+    private static final String PARTNERS = "partners";
+    private static final String HOUSE = "house";
+
+    private static final String JOB_TYPE = "jobType";
+    private static final String EMPLOYER = "employer";
+    private static final String JOB_TITLE = "jobTitle";
+    private static final String FIELD_OF_STUDY = "fieldOfStudy";
+    private static final String HIGHEST_QUALIFICATION = "highestQualification";
+    private static final String INSTITUTION = "institution";
+    private static final String LOCATION = "location";
+
+    // Flattened node property names, see PersonNodeConverter
+    private static final String PROP_JOB_TYPE = "job_jobType";
+    private static final String PROP_EMPLOYER = "job_employer";
+    private static final String PROP_JOB_TITLE = "job_jobTitle";
+    private static final String PROP_FIELD_OF_STUDY = "education_fieldOfStudy";
+    private static final String PROP_HIGHEST_QUALIFICATION = "education_highestQualification";
+    private static final String PROP_INSTITUTION = "education_institution";
+    private static final String PROP_EDUCATION_LOCATION = "education_location";
+
+    private static final int DATA_CAPACITY = 21; // 15 entries at the default load factor
+    private static final int JOB_CAPACITY = 4;
+    private static final int EDUCATION_CAPACITY = 6;
+
+    private final boolean datesAsTimestamps;
+    private final DateFormat dateFormat;
+
+    public PersonFlowNodeMapper(ObjectMapper objectMapper) {
+        this.datesAsTimestamps = objectMapper.isEnabled(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        this.dateFormat = objectMapper.getSerializationConfig().getDateFormat();
+    }
+
+    public Map<String, Object> toData(Node node, String id) {
+        Map<String, Object> data = new LinkedHashMap<>(DATA_CAPACITY);
+        data.put(ELEMENT_ID, id);
+        data.put(NAME, string(node.get(NAME)));
+        data.put(GENDER, string(node.get(GENDER)));
+        data.put(NICK_NAME, string(node.get(NICK_NAME)));
+        data.put(IS_ALIVE, string(node.get(IS_ALIVE)));
+        data.put(DOB, date(node.get(DOB)));
+        data.put(DOE, date(node.get(DOE)));
+        data.put(EDUCATION, education(node));
+        data.put(JOB, job(node));
+        data.put(CURR_LOCATION, string(node.get(CURR_LOCATION)));
+        data.put(CHARACTER, string(node.get(CHARACTER)));
+        data.put(IMAGE_URL, string(node.get(IMAGE_URL)));
+        data.put(CHILDREN, null);
+        data.put(PARTNERS, null);
+        data.put(HOUSE, null);
+        return data;
+    }
+
+    private Map<String, Object> job(Node node) {
+        String jobType = string(node.get(PROP_JOB_TYPE));
+        String employer = string(node.get(PROP_EMPLOYER));
+        String jobTitle = string(node.get(PROP_JOB_TITLE));
+        if (jobType == null && employer == null && jobTitle == null) {
+            return null;
+        }
+        Map<String, Object> job = new LinkedHashMap<>(JOB_CAPACITY);
+        job.put(JOB_TYPE, jobType);
+        job.put(EMPLOYER, employer);
+        job.put(JOB_TITLE, jobTitle);
+        return job;
+    }
+
+    private Map<String, Object> education(Node node) {
+        String fieldOfStudy = string(node.get(PROP_FIELD_OF_STUDY));
+        String highestQualification = string(node.get(PROP_HIGHEST_QUALIFICATION));
+        String institution = string(node.get(PROP_INSTITUTION));
+        String location = string(node.get(PROP_EDUCATION_LOCATION));
+        if (fieldOfStudy == null && highestQualification == null && institution == null && location == null) {
+            return null;
+        }
+        Map<String, Object> education = new LinkedHashMap<>(EDUCATION_CAPACITY);
+        education.put(FIELD_OF_STUDY, fieldOfStudy);
+        education.put(HIGHEST_QUALIFICATION, highestQualification);
+        education.put(INSTITUTION, institution);
+        education.put(LOCATION, location);
+        return education;
+    }
+
+    private static String string(Value value) {
+        if (value.isNull()) {
+            return null;
+        }
+        Object raw = value.asObject();
+        return raw instanceof String s ? s : String.valueOf(raw);
+    }
+
+    private Object date(Value value) {
+        if (value.isNull()) {
+            return null;
+        }
+        Object raw = value.asObject();
+        long millis;
+        if (raw instanceof ZonedDateTime zoned) {
+            millis = zoned.toInstant().toEpochMilli();
+        } else if (raw instanceof Long epochMillis) {
+            millis = epochMillis;
+        } else {
+            return null; // Same as PersonNodeConverter, other temporal types are dropped
+        }
+        if (datesAsTimestamps) {
+            return millis;
+        }
+        // DateFormat is not thread safe, Jackson clones it per use as well
+        return ((DateFormat) dateFormat.clone()).format(new Date(millis));
+    }
+}
@@ -0,0 +1,546 @@
+package dev.anudeep.familytree.utils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * In-memory adjacency of one tree. Element ids are interned to dense int ids and every relationship type
+ * (PARENT_OF, MARRIED_TO, BELONGS_TO) is kept as an edge list plus forward and reverse compressed-sparse-row
+ * arrays. Edge lists take incremental changes; the CSR arrays of a relationship type are rebuilt on the next
+ * read after it changed. All public methods are synchronized, reads are short enough that this never matters.
+ */
+public class TreeAdjacencyIndex {
+
+    public static final int UNLIMITED = Integer.MAX_VALUE;
+
+    public enum Relation {
+        PARENT_OF(Constants.PARENT_REL),
+        MARRIED_TO(Constants.MARRIED_REL),
+        BELONGS_TO(Constants.BELONGS_REL);
+
+        private final String type;
+
+        Relation(String type) {
+            this.type = type;
+        }
+
+        public static Relation of(String type) {
+            for (Relation relation : values()) {
+                if (relation.type.equals(type)) {
+                    return relation;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * A move along a kinship path: to a parent, to a child or to a spouse of the current person.
+     */
+    public enum Step {
+        PARENT, CHILD, SPOUSE;
+
+        Step reverse() {
+            return switch (this) {
+                case PARENT -> CHILD;
+                case CHILD -> PARENT;
+                case SPOUSE -> SPOUSE;
+            };
+        }
+    }
+
+    /**
+     * Shortest kinship path: {@code nodeIds} from start to end, {@code edgeIds} and {@code steps} one per hop.
+     */
+    public record KinshipPath(List<String> nodeIds, List<String> edgeIds, List<Step> steps) {
+    }
+
+    /**
+     * Node and relationship element ids reached by a traversal. {@code truncated} is set when a node cap stopped it early.
+     */
+    public record Selection(List<String> nodeIds, List<String> edgeIds, boolean truncated) {
+    }
+
+    private final Map<String, Integer> nodeIndex = new HashMap<>();
+    private String[] nodeIds = new String[64];
+    private String[] nodeTypes = new String[64];
+    private int nodeCount = 0;
+    private final EdgeList[] relations = new EdgeList[Relation.values().length];
+    private long version;
+
+    public TreeAdjacencyIndex(long version) {
+        this.version = version;
+        for (Relation relation : Relation.values()) {
+            relations[relation.ordinal()] = new EdgeList();
+        }
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized void setVersion(long version) {
+        this.version = version;
+    }
+
+    public synchronized int nodeCount() {
+        return nodeIndex.size();
+    }
+
+    public synchronized boolean contains(String elementId) {
+        return nodeIndex.containsKey(elementId);
+    }
+
+    public synchronized String typeOf(String elementId) {
+        Integer node = nodeIndex.get(elementId);
+        return node == null ? null : nodeTypes[node];
+    }
+
+    public synchronized void addNode(String elementId, String type) {
+        intern(elementId, type);
+    }
+
+    public synchronized void removeNodes(Collection<String> elementIds) {
+        boolean[] removed = new boolean[nodeCount];
+        boolean any = false;
+        for (String elementId : elementIds) {
+            Integer node = nodeIndex.remove(elementId);
+            if (node != null) {
+                removed[node] = true;
+                nodeIds[node] = null;
+                any = true;
+            }
+        }
+        if (any) {
+            for (EdgeList edges : relations) {
+                edges.removeIncident(removed);
+            }
+        }
+    }
+
+    /**
+     * Adds a relationship of one of the indexed types, anything else is ignored. Unknown endpoints are interned untyped.
+     */
+    public synchronized void addEdge(String edgeId, String type, String sourceId, String targetId) {
+        Relation relation = Relation.of(type);
+        if (relation == null || edgeId == null || sourceId == null || targetId == null) {
+            return;
+        }
+        relations[relation.ordinal()].add(edgeId, intern(sourceId, null), intern(targetId, null));
+    }
+
+    public synchronized void removeEdges(Collection<String> edgeIds) {
+        for (EdgeList edges : relations) {
+            edges.remove(edgeIds);
+        }
+    }
+
+    public synchronized List<String> children(String elementId) {
+        return neighbours(elementId, Relation.PARENT_OF, true, false);
+    }
+
+    public synchronized List<String> partners(String elementId) {
+        return neighbours(elementId, Relation.MARRIED_TO, true, true);
+    }
+
+    /**
+     * Everyone sharing at least one parent with the person, excluding the person.
+     */
+    public synchronized List<String> siblings(String elementId) {
+        Integer start = nodeIndex.get(elementId);
+        List<String> siblings = new ArrayList<>();
+        if (start == null) {
+            return siblings;
+        }
+        EdgeList parentOf = relations[Relation.PARENT_OF.ordinal()].csr(nodeCount);
+        boolean[] seen = new boolean[nodeCount];
+        seen[start] = true;
+        for (int p = parentOf.revOffsets[start]; p < parentOf.revOffsets[start + 1]; p++) {
+            int parent = parentOf.revTargets[p];
+            for (int c = parentOf.fwdOffsets[parent]; c < parentOf.fwdOffsets[parent + 1]; c++) {
+                int child = parentOf.fwdTargets[c];
+                if (!seen[child]) {
+                    seen[child] = true;
+                    siblings.add(nodeIds[child]);
+                }
+            }
+        }
+        return siblings;
+    }
+
+    public synchronized Selection descendants(String elementId, int maxDepth, int maxNodes) {
+        return traverse(elementId, Relation.PARENT_OF, true, maxDepth, maxNodes);
+    }
+
+    public synchronized Selection ancestors(String elementId, int maxDepth, int maxNodes) {
+        return traverse(elementId, Relation.PARENT_OF, false, maxDepth, maxNodes);
+    }
+
+    /**
+     * Same selection as the family tree query: the person and descendants up to {@code maxDepth} with the PARENT_OF edges
+     * between them, their spouses, and the houses of all of those.
+     */
+    public synchronized Selection family(String elementId, int maxDepth) {
+        return withSpousesAndHouses(descendants(elementId, maxDepth, UNLIMITED), 0);
+    }
+
+    /**
+     * Same selection as the ancestors query: the person and up to {@code maxNodes - 1} ancestors within {@code maxDepth}
+     * generations with the PARENT_OF edges between them, the spouses of the ancestors, and the houses of all of those.
+     */
+    public synchronized Selection pedigree(String elementId, int maxDepth, int maxNodes) {
+        return withSpousesAndHouses(ancestors(elementId, maxDepth, maxNodes), 1);
+    }
+
+    // Spouses of the lineage from index spousesFrom on, then houses of everyone selected so far
+    private Selection withSpousesAndHouses(Selection lineage, int spousesFrom) {
+        List<String> nodes = new ArrayList<>(lineage.nodeIds());
+        List<String> edges = new ArrayList<>(lineage.edgeIds());
+        if (nodes.isEmpty()) {
+            return lineage;
+        }
+        boolean[] seen = new boolean[nodeCount];
+        List<Integer> members = new ArrayList<>(nodes.size() * 2);
+        for (String id : nodes) {
+            int node = nodeIndex.get(id);
+            seen[node] = true;
+            members.add(node);
+        }
+
+        EdgeList married = relations[Relation.MARRIED_TO.ordinal()].csr(nodeCount);
+        boolean[] seenMarriages = new boolean[married.size];
+        for (int i = spousesFrom, n = members.size(); i < n; i++) {
+            collectIncident(married, members.get(i), "Person", seen, seenMarriages, nodes, edges, members);
+        }
+        EdgeList belongsTo = relations[Relation.BELONGS_TO.ordinal()].csr(nodeCount);
+        boolean[] seenMemberships = new boolean[belongsTo.size];
+        for (int i = 0, n = members.size(); i < n; i++) {
+            collectIncident(belongsTo, members.get(i), "House", seen, seenMemberships, nodes, edges, null);
+        }
+        return new Selection(nodes, edges, lineage.truncated());
+    }
+
+    // Follows the relationship in both directions, like an undirected Cypher pattern, to nodes of the given type
+    private void collectIncident(EdgeList relation, int node, String type, boolean[] seen, boolean[] seenEdges,
+                                 List<String> nodes, List<String> edges, List<Integer> members) {
+        for (int pass = 0; pass < 2; pass++) {
+            int[] offsets = pass == 0 ? relation.fwdOffsets : relation.revOffsets;
+            int[] targets = pass == 0 ? relation.fwdTargets : relation.revTargets;
+            int[] edgeRefs = pass == 0 ? relation.fwdEdges : relation.revEdges;
+            for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                int other = targets[e];
+                if (!type.equals(nodeTypes[other]) || seenEdges[edgeRefs[e]]) {
+                    continue;
+                }
+                seenEdges[edgeRefs[e]] = true;
+                edges.add(relation.edgeIds[edgeRefs[e]]);
+                if (!seen[other]) {
+                    seen[other] = true;
+                    nodes.add(nodeIds[other]);
+                    if (members != null) {
+                        members.add(other);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Shortest path between two persons over PARENT_OF (either direction) and MARRIED_TO, using a breadth-first search
+     * from both ends that always grows the smaller frontier. Returns null when the persons are unknown or further apart
+     * than {@code maxHops}.
+     */
+    public synchronized KinshipPath shortestPath(String fromId, String toId, int maxHops) {
+        Integer from = nodeIndex.get(fromId);
+        Integer to = nodeIndex.get(toId);
+        if (from == null || to == null) {
+            return null;
+        }
+        if (from.equals(to)) {
+            return new KinshipPath(List.of(fromId), List.of(), List.of());
+        }
+        EdgeList parentOf = relations[Relation.PARENT_OF.ordinal()].csr(nodeCount);
+        EdgeList married = relations[Relation.MARRIED_TO.ordinal()].csr(nodeCount);
+
+        // Per side: hop distance (-1 unseen), predecessor, edge and step taken from the predecessor
+        Side forward = new Side(nodeCount, from);
+        Side backward = new Side(nodeCount, to);
+        int meet = -1;
+        int best = Integer.MAX_VALUE;
+        while (!forward.frontier.isEmpty() && !backward.frontier.isEmpty()
+                && forward.depth + backward.depth < maxHops) {
+            Side side = forward.frontier.size() <= backward.frontier.size() ? forward : backward;
+            Side other = side == forward ? backward : forward;
+            List<Integer> next = new ArrayList<>();
+            for (int node : side.frontier) {
+                for (int pass = 0; pass < 4; pass++) {
+                    EdgeList edges = pass < 2 ? parentOf : married;
+                    boolean outgoing = pass % 2 == 0;
+                    Step step = pass == 0 ? Step.CHILD : pass == 1 ? Step.PARENT : Step.SPOUSE;
+                    int[] offsets = outgoing ? edges.fwdOffsets : edges.revOffsets;
+                    int[] targets = outgoing ? edges.fwdTargets : edges.revTargets;
+                    int[] edgeRefs = outgoing ? edges.fwdEdges : edges.revEdges;
+                    for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                        int neighbour = targets[e];
+                        if (side.distance[neighbour] >= 0) {
+                            continue;
+                        }
+                        side.reach(neighbour, node, edges.edgeIds[edgeRefs[e]], step);
+                        next.add(neighbour);
+                        if (other.distance[neighbour] >= 0 && side.distance[neighbour] + other.distance[neighbour] < best) {
+                            best = side.distance[neighbour] + other.distance[neighbour];
+                            meet = neighbour;
+                        }
+                    }
+                }
+            }
+            side.frontier = next;
+            side.depth++;
+            if (meet >= 0) {
+                break; // The whole level was expanded, so best is the shortest meeting point
+            }
+        }
+        if (meet < 0 || best > maxHops) {
+            return null;
+        }
+
+        List<String> nodes = new ArrayList<>();
+        List<String> edgeIds = new ArrayList<>();
+        List<Step> steps = new ArrayList<>();
+        for (int node = meet; node != from; node = forward.previous[node]) {
+            nodes.add(nodeIds[node]);
+            edgeIds.add(forward.edge[node]);
+            steps.add(forward.step[node]);
+        }
+        nodes.add(fromId);
+        Collections.reverse(nodes);
+        Collections.reverse(edgeIds);
+        Collections.reverse(steps);
+        for (int node = meet; node != to; node = backward.previous[node]) {
+            nodes.add(nodeIds[backward.previous[node]]);
+            edgeIds.add(backward.edge[node]);
+            steps.add(backward.step[node].reverse());
+        }
+        return new KinshipPath(nodes, edgeIds, steps);
+    }
+
+    private static class Side {
+        private final int[] distance;
+        private final int[] previous;
+        private final String[] edge;
+        private final Step[] step;
+        private List<Integer> frontier = new ArrayList<>();
+        private int depth = 0;
+
+        Side(int nodeCount, int start) {
+            distance = new int[nodeCount];
+            Arrays.fill(distance, -1);
+            previous = new int[nodeCount];
+            edge = new String[nodeCount];
+            step = new Step[nodeCount];
+            distance[start] = 0;
+            frontier.add(start);
+        }
+
+        void reach(int node, int from, String edgeId, Step taken) {
+            distance[node] = distance[from] + 1;
+            previous[node] = from;
+            edge[node] = edgeId;
+            step[node] = taken;
+        }
+    }
+
+    private List<String> neighbours(String elementId, Relation relation, boolean forward, boolean reverse) {
+        Integer start = nodeIndex.get(elementId);
+        List<String> result = new ArrayList<>();
+        if (start == null) {
+            return result;
+        }
+        EdgeList edges = relations[relation.ordinal()].csr(nodeCount);
+        if (forward) {
+            for (int e = edges.fwdOffsets[start]; e < edges.fwdOffsets[start + 1]; e++) {
+                addDistinct(result, nodeIds[edges.fwdTargets[e]]);
+            }
+        }
+        if (reverse) {
+            for (int e = edges.revOffsets[start]; e < edges.revOffsets[start + 1]; e++) {
+                addDistinct(result, nodeIds[edges.revTargets[e]]);
+            }
+        }
+        return result;
+    }
+
+    // Breadth-first so every node is reached at its smallest depth, every edge leaving a node within the depth is kept
+    private Selection traverse(String elementId, Relation relation, boolean forward, int maxDepth, int maxNodes) {
+        Integer start = nodeIndex.get(elementId);
+        if (start == null) {
+            return new Selection(List.of(), List.of(), false);
+        }
+        EdgeList edges = relations[relation.ordinal()].csr(nodeCount);
+        int[] offsets = forward ? edges.fwdOffsets : edges.revOffsets;
+        int[] targets = forward ? edges.fwdTargets : edges.revTargets;
+        int[] edgeRefs = forward ? edges.fwdEdges : edges.revEdges;
+
+        boolean[] seen = new boolean[nodeCount];
+        int[] queue = new int[nodeCount];
+        int head = 0;
+        int tail = 0;
+        queue[tail++] = start;
+        seen[start] = true;
+        List<String> nodes = new ArrayList<>();
+        List<String> edgeIds = new ArrayList<>();
+        nodes.add(nodeIds[start]);
+        boolean truncated = false;
+
+        int depth = 0;
+        while (head < tail && depth < maxDepth && !truncated) {
+            int levelEnd = tail;
+            while (head < levelEnd && !truncated) {
+                int node = queue[head++];
+                for (int e = offsets[node]; e < offsets[node + 1]; e++) {
+                    int next = targets[e];
+                    if (!seen[next]) {
+                        if (nodes.size() >= maxNodes) {
+                            truncated = true;
+                            break;
+                        }
+                        seen[next] = true;
+                        queue[tail++] = next;
+                        nodes.add(nodeIds[next]);
+                    }
+                    edgeIds.add(edges.edgeIds[edgeRefs[e]]);
+                }
+            }
+            depth++;
+        }
+        return new Selection(nodes, edgeIds, truncated);
+    }
+
+    private int intern(String elementId, String type) {
+        Integer existing = nodeIndex.get(elementId);
+        if (existing != null) {
+            if (type != null) {
+                nodeTypes[existing] = type;
+            }
+            return existing;
+        }
+        if (nodeCount == nodeIds.length) {
+            nodeIds = Arrays.copyOf(nodeIds, nodeCount * 2);
+            nodeTypes = Arrays.copyOf(nodeTypes, nodeCount * 2);
+        }
+        int node = nodeCount++;
+        nodeIds[node] = elementId;
+        nodeTypes[node] = type;
+        nodeIndex.put(elementId, node);
+        return node;
+    }
+
+    private static void addDistinct(List<String> list, String value) {
+        if (!list.contains(value)) {
+            list.add(value);
+        }
+    }
+
+    private static class EdgeList {
+        private int[] sources = new int[64];
+        private int[] targets = new int[64];
+        private String[] edgeIds = new String[64];
+        private int size = 0;
+        private final Map<String, Integer> positions = new HashMap<>();
+
+        // CSR views, valid while !dirty and built for builtNodeCount nodes
+        private int[] fwdOffsets;
+        private int[] fwdTargets;
+        private int[] fwdEdges;
+        private int[] revOffsets;
+        private int[] revTargets;
+        private int[] revEdges;
+        private boolean dirty = true;
+        private int builtNodeCount = -1;
+
+        void add(String edgeId, int source, int target) {
+            if (positions.containsKey(edgeId)) {
+                return;
+            }
+            if (size == sources.length) {
+                sources = Arrays.copyOf(sources, size * 2);
+                targets = Arrays.copyOf(targets, size * 2);
+                edgeIds = Arrays.copyOf(edgeIds, size * 2);
+            }
+            sources[size] = source;
+            targets[size] = target;
+            edgeIds[size] = edgeId;
+            positions.put(edgeId, size++);
+            dirty = true;
+        }
+
+        void remove(Collection<String> ids) {
+            for (String id : ids) {
+                Integer position = positions.remove(id);
+                if (position != null) {
+                    removeAt(position);
+                }
+            }
+        }
+
+        void removeIncident(boolean[] removedNodes) {
+            for (int i = size - 1; i >= 0; i--) {
+                if (removedNodes[sources[i]] || removedNodes[targets[i]]) {
+                    positions.remove(edgeIds[i]);
+                    removeAt(i);
+                }
+            }
+        }
+
+        // Swap with the last edge so the arrays stay dense
+        private void removeAt(int position) {
+            int last = --size;
+            if (position != last) {
+                sources[position] = sources[last];
+                targets[position] = targets[last];
+                edgeIds[position] = edgeIds[last];
+                positions.put(edgeIds[position], position);
+            }
+            edgeIds[last] = null;
+            dirty = true;
+        }
+
+        EdgeList csr(int nodeCount) {
+            if (!dirty && builtNodeCount == nodeCount) {
+                return this;
+            }
+            fwdOffsets = new int[nodeCount + 1];
+            revOffsets = new int[nodeCount + 1];
+            for (int i = 0; i < size; i++) {
+                fwdOffsets[sources[i] + 1]++;
+                revOffsets[targets[i] + 1]++;
+            }
+            for (int n = 0; n < nodeCount; n++) {
+                fwdOffsets[n + 1] += fwdOffsets[n];
+                revOffsets[n + 1] += revOffsets[n];
+            }
+            fwdTargets = new int[size];
+            fwdEdges = new int[size];
+            revTargets = new int[size];
+            revEdges = new int[size];
+            int[] fwdFill = Arrays.copyOf(fwdOffsets, nodeCount);
+            int[] revFill = Arrays.copyOf(revOffsets, nodeCount);
+            for (int i = 0; i < size; i++) {
+                int f = fwdFill[sources[i]]++;
+                fwdTargets[f] = targets[i];
+                fwdEdges[f] = i;
+                int r = revFill[targets[i]]++;
+                revTargets[r] = sources[i];
+                revEdges[r] = i;
+            }
+            dirty = false;
+            builtNodeCount = nodeCount;
+            return this;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package dev.anudeep.familytree.utils;
+
+import dev.anudeep.familytree.dto.TreeFacetsDTO;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Facet counts of one tree, kept with enough per-person state to be updated in place: each person's {@link Profile}
+ * (shared between persons with the same values and dropped with its last person) and each BELONGS_TO membership
+ * by relationship id.
+ * Tagged with the tree version it reflects. All methods are synchronized.
+ */
+public class TreeFacets {
+
+    public static final String GENDER = "gender";
+    public static final String HOUSE = "house";
+    public static final String JOB_TYPE = "jobType";
+    public static final String LOCATION = "location";
+    public static final String QUALIFICATION = "qualification";
+    public static final String FIELD_OF_STUDY = "fieldOfStudy";
+    public static final String IS_ALIVE = "isAlive";
+
+    /**
+     * The facet values of a person, any of them may be null.
+     */
+    public record Profile(String gender, String location, String jobType, String qualification, String fieldOfStudy,
+                          String isAlive) {
+        private String get(String facet) {
+            return switch (facet) {
+                case GENDER -> gender;
+                case LOCATION -> location;
+                case JOB_TYPE -> jobType;
+                case QUALIFICATION -> qualification;
+                case FIELD_OF_STUDY -> fieldOfStudy;
+                case IS_ALIVE -> isAlive;
+                default -> null;
+            };
+        }
+    }
+
+    private static final List<String> PROFILE_FACETS = List.of(GENDER, JOB_TYPE, LOCATION, QUALIFICATION, FIELD_OF_STUDY, IS_ALIVE);
+
+    private long version;
+    private final Map<Profile, Profile> profiles = new HashMap<>();
+    private final Map<Profile, Integer> profileUsers = new HashMap<>();
+    private final Map<String, Profile> persons = new HashMap<>();
+    private final Map<String, Map<String, Integer>> counts = new HashMap<>();
+    private final Map<String, String> houseNames = new HashMap<>();
+    private final Map<String, String[]> memberships = new HashMap<>(); // relationship id -> {personId, houseId}
+    private final Map<String, Integer> houseCounts = new HashMap<>();
+
+    public TreeFacets(long version) {
+        this.version = version;
+        PROFILE_FACETS.forEach(facet -> counts.put(facet, new HashMap<>()));
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized void setVersion(long version) {
+        this.version = version;
+    }
+
+    public synchronized void putPerson(String personId, Profile profile) {
+        removePerson(personId, false);
+        Profile shared = profiles.computeIfAbsent(profile, p -> p);
+        profileUsers.merge(shared, 1, Integer::sum);
+        persons.put(personId, shared);
+        PROFILE_FACETS.forEach(facet -> adjust(counts.get(facet), shared.get(facet), 1));
+    }
+
+    public synchronized void removePerson(String personId) {
+        removePerson(personId, true);
+    }
+
+    public synchronized boolean containsPerson(String personId) {
+        return persons.containsKey(personId);
+    }
+
+    public synchronized void putHouse(String houseId, String name) {
+        houseNames.put(houseId, name);
+    }
+
+    public synchronized void removeHouse(String houseId) {
+        houseNames.remove(houseId);
+        memberships.values().removeIf(membership -> houseId.equals(membership[1]));
+        houseCounts.remove(houseId);
+    }
+
+    public synchronized void addMembership(String relationshipId, String personId, String houseId) {
+        removeMembership(relationshipId);
+        memberships.put(relationshipId, new String[]{personId, houseId});
+        adjust(houseCounts, houseId, 1);
+    }
+
+    public synchronized void removeMembership(String relationshipId) {
+        String[] membership = memberships.remove(relationshipId);
+        if (membership != null) {
+            adjust(houseCounts, membership[1], -1);
+        }
+    }
+
+    // Distinct profiles currently shared by the persons
+    synchronized int profileCount() {
+        return profiles.size();
+    }
+
+    public synchronized TreeFacetsDTO toDTO() {
+        Map<String, List<TreeFacetsDTO.FacetValue>> facets = new LinkedHashMap<>();
+        for (String facet : PROFILE_FACETS) {
+            List<TreeFacetsDTO.FacetValue> values = new ArrayList<>();
+            counts.get(facet).forEach((value, count) -> values.add(new TreeFacetsDTO.FacetValue(value, value, count)));
+            values.sort(Comparator.comparingInt(TreeFacetsDTO.FacetValue::getCount).reversed()
+                    .thenComparing(TreeFacetsDTO.FacetValue::getValue));
+            facets.put(facet, values);
+        }
+        List<TreeFacetsDTO.FacetValue> houses = new ArrayList<>();
+        houseNames.forEach((id, name) -> houses.add(new TreeFacetsDTO.FacetValue(id, name, houseCounts.getOrDefault(id, 0))));
+        houses.sort(Comparator.comparingInt(TreeFacetsDTO.FacetValue::getCount).reversed()
+                .thenComparing(value -> value.getLabel() != null ? value.getLabel() : ""));
+        facets.put(HOUSE, houses);
+        return new TreeFacetsDTO(version, persons.size(), facets);
+    }
+
+    private void removePerson(String personId, boolean withMemberships) {
+        Profile profile = persons.remove(personId);
+        if (profile != null) {
+            PROFILE_FACETS.forEach(facet -> adjust(counts.get(facet), profile.get(facet), -1));
+            if (profileUsers.merge(profile, -1, Integer::sum) <= 0) {
+                profileUsers.remove(profile);
+                profiles.remove(profile);
+            }
+        }
+        if (withMemberships) {
+            memberships.values().removeIf(membership -> {
+                if (personId.equals(membership[0])) {
+                    adjust(houseCounts, membership[1], -1);
+                    return true;
+                }
+                return false;
+            });
+        }
+    }
+
+    private static void adjust(Map<String, Integer> counts, String value, int delta) {
+        if (value == null || value.isBlank()) {
+            return;
+        }
+        counts.compute(value, (key, current) -> {
+            int next = (current != null ? current : 0) + delta;
+            return next > 0 ? next : null;
+        });
+    }
+}
@@ -0,0 +1,105 @@
+package dev.anudeep.familytree.service;
+
+import dev.anudeep.familytree.dto.FlowEdgeDTO;
+import dev.anudeep.familytree.dto.FlowGraphDTO;
+import dev.anudeep.familytree.dto.FlowNodeDTO;
+import dev.anudeep.familytree.dto.GraphDiffDTO;
+import dev.anudeep.familytree.dto.GraphDiffResultDTO;
+import dev.anudeep.familytree.utils.Constants;
+import dev.anudeep.familytree.utils.TreeAdjacencyIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdjacencyIndexServiceTest {
+
+    @Test
+    void indexesEdgesByTypeNotLabel() {
+        FlowGraphDTO graph = new FlowGraphDTO(
+                new ArrayList<>(List.of(node("p1", "Person"), node("p2", "Person"))),
+                new ArrayList<>(List.of(new FlowEdgeDTO("e1", "p1", "p2", "Father", Constants.PARENT_REL, Map.of()))));
+
+        TreeAdjacencyIndex index = AdjacencyIndexService.build(graph, 1);
+
+        assertEquals(List.of("p2"), index.children("p1"));
+        assertEquals(List.of("p2", "p1"), index.ancestors("p2", 1, TreeAdjacencyIndex.UNLIMITED).nodeIds());
+    }
+
+    @Test
+    void patchedIndexMatchesIndexBuiltFromTheResultingGraph() {
+        FlowGraphDTO before = new FlowGraphDTO(
+                new ArrayList<>(List.of(node("p1", "Person"), node("p2", "Person"), node("p3", "Person"),
+                        node("p4", "Person"), node("h1", "House"))),
+                new ArrayList<>(List.of(
+                        edge("m1", "p1", "p2", Constants.MARRIED_REL),
+                        edge("c1", "p1", "p3", Constants.PARENT_REL),
+                        edge("c2", "p2", "p3", Constants.PARENT_REL),
+                        edge("c3", "p1", "p4", Constants.PARENT_REL),
+                        edge("b1", "p3", "h1", Constants.BELONGS_REL),
+                        edge("b2", "p4", "h1", Constants.BELONGS_REL))));
+        TreeAdjacencyIndex patched = AdjacencyIndexService.build(before, 1);
+
+        // Adds a child of p3 and a spouse for it, drops p4 with its edges and the membership of p3
+        GraphDiffDTO diff = new GraphDiffDTO(
+                List.of(node("dummy-5", "Person"), node("dummy-6", null)),
+                List.of(),
+                List.of("p4"),
+                List.of(edge("dummy-c4", "p3", "dummy-5", Constants.PARENT_REL),
+                        edge("dummy-m2", "dummy-5", "dummy-6", Constants.MARRIED_REL),
+                        edge("dummy-b3", "dummy-5", "h1", Constants.BELONGS_REL)),
+                List.of(),
+                List.of("b1"));
+        GraphDiffResultDTO result = new GraphDiffResultDTO(Map.of("dummy-5", "p5", "dummy-6", "p6"),
+                Map.of("dummy-c4", "c4", "dummy-m2", "m2", "dummy-b3", "b3"));
+        AdjacencyIndexService.apply(patched, diff, result);
+
+        FlowGraphDTO after = new FlowGraphDTO(
+                new ArrayList<>(List.of(node("p1", "Person"), node("p2", "Person"), node("p3", "Person"),
+                        node("p5", "Person"), node("p6", "Person"), node("h1", "House"))),
+                new ArrayList<>(List.of(
+                        edge("m1", "p1", "p2", Constants.MARRIED_REL),
+                        edge("c1", "p1", "p3", Constants.PARENT_REL),
+                        edge("c2", "p2", "p3", Constants.PARENT_REL),
+                        edge("c4", "p3", "p5", Constants.PARENT_REL),
+                        edge("m2", "p5", "p6", Constants.MARRIED_REL),
+                        edge("b3", "p5", "h1", Constants.BELONGS_REL))));
+        TreeAdjacencyIndex built = AdjacencyIndexService.build(after, 2);
+
+        List<String> ids = List.of("p1", "p2", "p3", "p4", "p5", "p6", "h1");
+        assertEquals(snapshot(built, ids), snapshot(patched, ids));
+        assertEquals(built.nodeCount(), patched.nodeCount());
+        assertEquals(built.family("p1", TreeAdjacencyIndex.UNLIMITED).nodeIds().stream().sorted().toList(),
+                patched.family("p1", TreeAdjacencyIndex.UNLIMITED).nodeIds().stream().sorted().toList());
+    }
+
+    // Everything the index answers about each node, with neighbours sorted
+    private static Map<String, List<Object>> snapshot(TreeAdjacencyIndex index, List<String> ids) {
+        Map<String, List<Object>> snapshot = new TreeMap<>();
+        for (String id : ids) {
+            List<Object> facts = new ArrayList<>();
+            facts.add(index.contains(id));
+            facts.add(String.valueOf(index.typeOf(id)));
+            facts.add(index.children(id).stream().sorted().toList());
+            facts.add(index.partners(id).stream().sorted().toList());
+            facts.add(index.siblings(id).stream().sorted().toList());
+            facts.add(index.ancestors(id, 1, TreeAdjacencyIndex.UNLIMITED).nodeIds().stream().sorted().toList());
+            facts.add(index.family(id, 0).edgeIds().stream().sorted().toList());
+            snapshot.put(id, facts);
+        }
+        return snapshot;
+    }
+
+    private static FlowNodeDTO node(String id, String type) {
+        return new FlowNodeDTO(id, null, type, Map.of(), null);
+    }
+
+    // Edges as GraphService reads them from the database, label and type both the relationship type
+    private static FlowEdgeDTO edge(String id, String source, String target, String type) {
+        return new FlowEdgeDTO(id, source, target, type, Map.of());
+    }
+}
@@ -0,0 +1,61 @@
+package dev.anudeep.familytree.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.anudeep.familytree.dto.FlowEdgeDTO;
+import dev.anudeep.familytree.dto.FlowNodeDTO;
+import dev.anudeep.familytree.dto.GraphDiffDTO;
+import dev.anudeep.familytree.dto.GraphDiffResultDTO;
+import dev.anudeep.familytree.utils.Constants;
+import dev.anudeep.familytree.utils.TreeFacets;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+class FacetServiceTest {
+
+    private final FacetService facetService = new FacetService(null, new ObjectMapper(), null, 4);
+
+    @Test
+    void appliedDiffMatchesFacetsBuiltFromTheResultingTree() {
+        TreeFacets applied = new TreeFacets(1);
+        applied.putPerson("p1", profile("male", "Pune"));
+        applied.putPerson("p2", profile("female", "Pune"));
+        applied.putHouse("h1", "Stark");
+        applied.addMembership("b1", "p1", "h1");
+
+        GraphDiffDTO diff = new GraphDiffDTO(
+                List.of(person("dummy-p3", "female", "Delhi"), house("dummy-h2", "Tully")),
+                List.of(person("p1", "male", "Delhi")),
+                List.of("p2", "h1"),
+                List.of(new FlowEdgeDTO("dummy-b2", "dummy-p3", "dummy-h2", Constants.BELONGS_REL, Map.of())),
+                List.of(),
+                List.of());
+        GraphDiffResultDTO result = new GraphDiffResultDTO(Map.of("dummy-p3", "p3", "dummy-h2", "h2"), Map.of("dummy-b2", "b2"));
+        facetService.apply(applied, diff, result);
+
+        TreeFacets expected = new TreeFacets(1);
+        expected.putPerson("p1", profile("male", "Delhi"));
+        expected.putPerson("p3", profile("female", "Delhi"));
+        expected.putHouse("h2", "Tully");
+        expected.addMembership("b2", "p3", "h2");
+
+        assertEquals(expected.toDTO(), applied.toDTO());
+        assertFalse(applied.containsPerson("p2"));
+    }
+
+    private static TreeFacets.Profile profile(String gender, String location) {
+        return new TreeFacets.Profile(gender, location, null, null, null, null);
+    }
+
+    private static FlowNodeDTO person(String id, String gender, String location) {
+        return new FlowNodeDTO(id, null, "Person", Map.of("gender", gender, "currLocation", location), null);
+    }
+
+    private static FlowNodeDTO house(String id, String name) {
+        return new FlowNodeDTO(id, null, "House", Map.of("name", name), null);
+    }
+}
@@ -0,0 +1,78 @@
+package dev.anudeep.familytree.service;
+
+import dev.anudeep.familytree.dto.notification.EventType;
+import dev.anudeep.familytree.dto.notification.NotificationEvent;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class NotificationCoalescerTest {
+
+    private final List<NotificationEvent> published = new ArrayList<>();
+
+    @Test
+    void mergesBurstIntoOneEventWithSummedCounts() {
+        NotificationCoalescer coalescer = new NotificationCoalescer(60);
+        NotificationEvent first = modified("t1", "a1", List.of("u1"), 2, 0, "first");
+        NotificationEvent second = modified("t1", "a1", List.of("u2"), 3, 1, "second");
+        NotificationEvent third = modified("t1", "a1", List.of("u1", "u3"), 1, 4, "third");
+        assertTrue(coalescer.offer(first, published::add));
+        assertTrue(coalescer.offer(second, published::add));
+        assertTrue(coalescer.offer(third, published::add));
+        assertTrue(published.isEmpty());
+
+        coalescer.close();
+
+        assertEquals(1, published.size());
+        NotificationEvent merged = published.get(0);
+        assertEquals(first.getEventId(), merged.getEventId());
+        assertEquals(third.getTimestamp(), merged.getTimestamp());
+        assertEquals(List.of("u1", "u2", "u3"), merged.getUsersToNotify());
+        assertEquals(6L, merged.getData().get("addedNodesCount"));
+        assertEquals(5L, merged.getData().get("updatedNodesCount"));
+        assertEquals("third", merged.getData().get("note"));
+        assertEquals(3, merged.getData().get("coalescedCount"));
+    }
+
+    @Test
+    void keepsWindowsApartAndPublishesLoneEventsUnchanged() {
+        NotificationCoalescer coalescer = new NotificationCoalescer(60);
+        NotificationEvent tree1 = modified("t1", "a1", List.of("u1"), 1, 0, "x");
+        NotificationEvent tree2 = modified("t2", "a1", List.of("u1"), 1, 0, "y");
+        coalescer.offer(tree1, published::add);
+        coalescer.offer(tree2, published::add);
+
+        coalescer.close();
+
+        assertEquals(2, published.size());
+        published.forEach(event -> assertSame(event.getTreeId().equals("t1") ? tree1 : tree2, event));
+    }
+
+    @Test
+    void leavesOtherTypesAndEventsAfterCloseToTheCaller() {
+        NotificationCoalescer coalescer = new NotificationCoalescer(60);
+        NotificationEvent created = new NotificationEvent(EventType.TREE_CREATED, "t1", "Tree", "a1", "Actor", List.of("u1"), Map.of());
+        assertFalse(coalescer.offer(created, published::add));
+
+        coalescer.onContextClosed();
+        assertFalse(coalescer.offer(modified("t1", "a1", List.of("u1"), 1, 0, "x"), published::add));
+        assertTrue(published.isEmpty());
+        assertFalse(new NotificationCoalescer(0).offer(modified("t1", "a1", List.of("u1"), 1, 0, "x"), published::add));
+    }
+
+    private static NotificationEvent modified(String treeId, String actorId, List<String> users, int added, int updated, String note) {
+        Map<String, Object> data = new HashMap<>();
+        data.put("addedNodesCount", added);
+        data.put("updatedNodesCount", updated);
+        data.put("note", note);
+        return new NotificationEvent(EventType.TREE_STRUCTURE_MODIFIED, treeId, "Tree", actorId, "Actor", users, data);
+    }
+}
@@ -0,0 +1,66 @@
+package dev.anudeep.familytree.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ElementIdSetTest {
+
+    private static final String PREFIX = "4:12979c35-eb38-4bad-b707-8478b11ae98e:";
+
+    @Test
+    void addsEachIdOnce() {
+        ElementIdSet set = new ElementIdSet();
+        assertTrue(set.add(PREFIX + "0"));
+        assertTrue(set.add(PREFIX + "45"));
+        assertFalse(set.add(PREFIX + "45"));
+        assertFalse(set.add(PREFIX + "0"));
+
+        assertEquals(2, set.size());
+        assertTrue(set.contains(PREFIX + "0"));
+        assertTrue(set.contains(PREFIX + "45"));
+        assertFalse(set.contains(PREFIX + "4"));
+        assertFalse(set.contains(PREFIX + "450"));
+    }
+
+    @Test
+    void keepsIdsOfOtherShapesApart() {
+        ElementIdSet set = new ElementIdSet();
+        set.add(PREFIX + "7");
+        assertTrue(set.add("5:other-database:7"));
+        assertTrue(set.add("dndnode_7"));
+        assertTrue(set.add(PREFIX + "x7"));
+        assertTrue(set.add(PREFIX + "12345678901234567890"));
+        assertFalse(set.add("5:other-database:7"));
+
+        assertEquals(5, set.size());
+        assertTrue(set.contains("5:other-database:7"));
+        assertTrue(set.contains("dndnode_7"));
+        assertTrue(set.contains(PREFIX + "12345678901234567890"));
+        assertFalse(set.contains("5:other-database:8"));
+        assertFalse(set.contains("4:12979c35-eb38-4bad-b707-8478b11ae98f:7"));
+        assertFalse(set.contains("dndnode_8"));
+    }
+
+    @Test
+    void matchesHashSetAcrossResizes() {
+        Random random = new Random(7);
+        ElementIdSet set = new ElementIdSet();
+        Set<String> expected = new HashSet<>();
+        for (int i = 0; i < 20_000; i++) {
+            String id = random.nextInt(10) == 0 ? "other:" + random.nextInt(5_000) : PREFIX + random.nextInt(50_000);
+            assertEquals(expected.add(id), set.add(id), id);
+        }
+        assertEquals(expected.size(), set.size());
+        for (int i = 0; i < 50_000; i++) {
+            String id = PREFIX + i;
+            assertEquals(expected.contains(id), set.contains(id), id);
+        }
+    }
+}
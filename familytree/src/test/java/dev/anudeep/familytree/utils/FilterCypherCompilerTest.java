@@ -0,0 +1,275 @@
+package dev.anudeep.familytree.utils;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.anudeep.familytree.dto.FlowEdgeDTO;
+import dev.anudeep.familytree.dto.FlowGraphDTO;
+import dev.anudeep.familytree.dto.FlowNodeDTO;
+import dev.anudeep.familytree.model.Education;
+import dev.anudeep.familytree.model.Filter;
+import dev.anudeep.familytree.model.Job;
+import dev.anudeep.familytree.model.Person;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.AuthTokens;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.GraphDatabase;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.types.Node;
+import org.neo4j.driver.types.Relationship;
+import org.testcontainers.containers.Neo4jContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Runs the Cypher compiled by {@link FilterCypherCompiler} against a small tree and checks which nodes it keeps, and
+ * that {@link FilterPredicate} keeps the same nodes of the tree read back the way GraphService reads it.
+ */
+@Testcontainers(disabledWithoutDocker = true)
+class FilterCypherCompilerTest {
+
+    private static final String[] HOUSES = {"stark", "tully"};
+
+    @Container
+    private static final Neo4jContainer<?> NEO4J = new Neo4jContainer<>("neo4j:5.26").withoutAuthentication();
+
+    private static Driver driver;
+    private static String treeId;
+    private static final Map<String, String> ids = new HashMap<>(); // Fixture name -> elementId
+    private static final LocalDate today = LocalDate.now(ZoneOffset.UTC);
+    private static FlowGraphDTO graph;
+
+    @BeforeAll
+    static void createTree() {
+        driver = GraphDatabase.driver(NEO4J.getBoltUrl(), AuthTokens.none());
+        try (Session session = driver.session()) {
+            treeId = session.run("CREATE (t:Tree {name: 'Fixtures'}) RETURN elementId(t) AS id").single().get("id").asString();
+
+            // Ages are relative to today so the fixtures do not age out of the ranges below
+            createPerson(session, "anu", person("Anu", "male", "Yes", yearsAgo(35), null, "Hyderabad",
+                    new Job("Private", "Acme", "Engineer"), new Education("Computer Science", "Masters", null, null)));
+            createPerson(session, "sita", person("Sita", "female", "Yes", yearsAgo(33), null, "Pune",
+                    new Job("Government", null, null), new Education("Medicine", "PhD", null, null)));
+            createPerson(session, "ravi", person("Ravi", "male", "Yes", yearsAgo(10), null, "Pune", null, null));
+            createPerson(session, "devi", person("Devi", "female", "No", date(LocalDate.of(1930, 1, 1)),
+                    date(LocalDate.of(2000, 5, 5)), "Hyderabad", null, new Education("Arts", "Bachelors", null, null)));
+            createPerson(session, "unknown", person("Unknown", null, null, null, null, null, null, null));
+            createHouse(session, "stark", "Stark");
+            createHouse(session, "tully", "Tully");
+
+            relate(session, "anu", Constants.MARRIED_REL, "sita");
+            relate(session, "anu", Constants.PARENT_REL, "ravi");
+            relate(session, "sita", Constants.PARENT_REL, "ravi");
+            relate(session, "devi", Constants.PARENT_REL, "anu");
+            relate(session, "anu", Constants.BELONGS_REL, "stark");
+            relate(session, "devi", Constants.BELONGS_REL, "tully");
+            graph = readGraph(session);
+        }
+    }
+
+    @AfterAll
+    static void closeDriver() {
+        if (driver != null) {
+            driver.close();
+        }
+    }
+
+    @Test
+    void defaultFilterKeepsEverything() {
+        assertMatches(by -> {
+        }, "anu", "sita", "ravi", "devi", "unknown", "stark", "tully");
+    }
+
+    @Test
+    void gender() {
+        assertMatches(by -> by.getNodeProps().getPerson().setGender("female"), "sita", "devi");
+    }
+
+    @Test
+    void married() {
+        assertMatches(by -> by.getNodeProps().getPerson().setMarried(true), "anu", "sita");
+        assertMatches(by -> by.getNodeProps().getPerson().setMarried(false), "ravi", "devi", "unknown");
+    }
+
+    @Test
+    void locations() {
+        assertMatches(by -> by.getNodeProps().getPerson().setLocations(List.of("Hyderabad")), "anu", "devi");
+    }
+
+    @Test
+    void ageRanges() {
+        assertMatches(by -> by.getNodeProps().getPerson().setAge(List.of(30, 40)), "anu", "sita");
+        // Age at death for the deceased
+        assertMatches(by -> by.getNodeProps().getPerson().setAge(List.of(60, 80)), "devi");
+        // A full range keeps persons without a date of birth
+        assertMatches(by -> by.getNodeProps().getPerson().setAge(List.of(0, 100)), "anu", "sita", "ravi", "devi", "unknown");
+    }
+
+    @Test
+    void birthDates() {
+        assertMatches(by -> by.getNodeProps().getPerson().setBornAfter(yearsAgo(34)), "sita", "ravi");
+        assertMatches(by -> by.getNodeProps().getPerson().setBornBefore(yearsAgo(35)), "anu", "devi");
+    }
+
+    @Test
+    void alive() {
+        assertMatches(by -> by.getNodeProps().getPerson().setIsAlive(true), "anu", "sita", "ravi", "unknown");
+        assertMatches(by -> by.getNodeProps().getPerson().setIsAlive(false), "devi", "unknown");
+    }
+
+    @Test
+    void jobAndEducation() {
+        assertMatches(by -> by.getNodeProps().getPerson().setJobTypes(List.of(new Filter.GroupedLabelItem(null, "Private", "Jobs"))),
+                "anu");
+        assertMatches(by -> by.getNodeProps().getPerson().setStudies(List.of(new Filter.GroupedLabelItem("Medicine", null, "Health"))),
+                "sita");
+        assertMatches(by -> by.getNodeProps().getPerson().setQualifications(List.of(
+                new Filter.GroupedLabelItem(null, "Masters", "Degrees"), new Filter.GroupedLabelItem(null, "Bachelors", "Degrees"))),
+                "anu", "devi");
+    }
+
+    @Test
+    void nodeTypesAndHouses() {
+        assertMatchesExactly(by -> by.getNodeTypes().put("Person", false), "stark", "tully");
+        assertMatchesExactly(by -> by.getNodeTypes().put("House", false), "anu", "sita", "ravi", "devi", "unknown");
+        assertMatchesExactly(by -> by.getNodeProps().getHouse().setSelectedHouses(List.of(new Filter.LabelledItem(ids.get("tully"), "Tully"))),
+                "anu", "sita", "ravi", "devi", "unknown", "tully");
+    }
+
+    @Test
+    void combinedCriteria() {
+        assertMatches(by -> {
+            Filter.PersonFilter person = by.getNodeProps().getPerson();
+            person.setGender("male");
+            person.setIsAlive(true);
+            person.setAge(List.of(5, 50));
+            person.setLocations(List.of("Hyderabad", "Pune"));
+        }, "anu", "ravi");
+    }
+
+    // Person criteria leave houses alone, so every house is expected alongside the persons
+    private static void assertMatches(Consumer<Filter.FilterBy> criteria, String... persons) {
+        Set<String> expected = new HashSet<>(List.of(persons));
+        expected.addAll(List.of(HOUSES));
+        assertMatchesExactly(criteria, expected.toArray(String[]::new));
+    }
+
+    private static void assertMatchesExactly(Consumer<Filter.FilterBy> criteria, String... names) {
+        Filter.FilterBy by = new Filter.FilterBy();
+        criteria.accept(by);
+
+        FilterCypherCompiler.CompiledFilter compiled = FilterCypherCompiler.compile(by);
+        Map<String, Object> params = new HashMap<>(compiled.parameters());
+        params.put("treeId", treeId);
+        Set<String> cypherMatches = new HashSet<>();
+        try (Session session = driver.session()) {
+            session.run("MATCH (n)-[:" + Constants.PART_OF + "]->(t:Tree) WHERE elementId(t) = $treeId AND "
+                            + compiled.predicate("n") + " RETURN elementId(n) AS id", params)
+                    .forEachRemaining(row -> cypherMatches.add(row.get("id").asString()));
+        }
+        assertEquals(Set.of(names), names(cypherMatches), compiled.predicateTemplate());
+
+        Set<String> predicateMatches = FilterPredicate.compile(new Filter("fixture", true, by), treeId).matchingNodeIds(graph, null);
+        assertEquals(Set.of(names), names(predicateMatches), "in-memory predicate");
+    }
+
+    // Fixture names, so a failure reads as "anu, sita" rather than element ids
+    private static Set<String> names(Set<String> elementIds) {
+        Set<String> names = new HashSet<>();
+        ids.forEach((name, id) -> {
+            if (elementIds.contains(id)) {
+                names.add(name);
+            }
+        });
+        assertEquals(elementIds.size(), names.size());
+        return names;
+    }
+
+    // Same shape as GraphService.loadGraph, with dates rendered as the application ObjectMapper renders them
+    private static FlowGraphDTO readGraph(Session session) {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule())
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        PersonFlowNodeMapper mapper = new PersonFlowNodeMapper(objectMapper);
+        List<FlowNodeDTO> nodes = new ArrayList<>();
+        List<FlowEdgeDTO> edges = new ArrayList<>();
+        session.run("""
+                        MATCH (m:Person | House)-[:%s]->(t:Tree) WHERE elementId(t) = $treeId
+                        OPTIONAL MATCH (m)-[r:%s|%s|%s]->()
+                        RETURN m, collect(r) AS rels
+                        """.formatted(Constants.PART_OF, Constants.MARRIED_REL, Constants.PARENT_REL, Constants.BELONGS_REL),
+                Map.of("treeId", treeId)).forEachRemaining(row -> {
+            Node node = row.get("m").asNode();
+            String type = node.labels().iterator().next();
+            Map<String, Object> data = "Person".equals(type) ? mapper.toData(node, node.elementId()) : new HashMap<>(node.asMap());
+            nodes.add(new FlowNodeDTO(node.elementId(), node.get("name").asString(""), type, data, null));
+            row.get("rels").values().forEach(value -> {
+                Relationship relation = value.asRelationship();
+                edges.add(new FlowEdgeDTO(relation.elementId(), relation.startNodeElementId(), relation.endNodeElementId(),
+                        relation.type(), relation.asMap()));
+            });
+        });
+        assertEquals(ids.size(), nodes.size());
+        return new FlowGraphDTO(nodes, edges);
+    }
+
+    private static void createPerson(Session session, String name, Person person) {
+        ids.put(name, session.run("""
+                        MATCH (t:Tree) WHERE elementId(t) = $treeId
+                        CREATE (p:Person)-[:%s]->(t) SET p = $props
+                        RETURN elementId(p) AS id
+                        """.formatted(Constants.PART_OF),
+                Map.of("treeId", treeId, "props", PersonNodeConverter.personToFlattenedMap(person))).single().get("id").asString());
+    }
+
+    private static void createHouse(Session session, String name, String houseName) {
+        ids.put(name, session.run("""
+                        MATCH (t:Tree) WHERE elementId(t) = $treeId
+                        CREATE (h:House {name: $name})-[:%s]->(t)
+                        RETURN elementId(h) AS id
+                        """.formatted(Constants.PART_OF),
+                Map.of("treeId", treeId, "name", houseName)).single().get("id").asString());
+    }
+
+    private static void relate(Session session, String from, String type, String to) {
+        session.run("MATCH (a), (b) WHERE elementId(a) = $from AND elementId(b) = $to CREATE (a)-[:" + type + "]->(b)",
+                Map.of("from", ids.get(from), "to", ids.get(to))).consume();
+    }
+
+    private static Person person(String name, String gender, String isAlive, Date dob, Date doe, String location,
+                                 Job job, Education education) {
+        Person person = new Person();
+        person.setName(name);
+        person.setGender(gender);
+        person.setIsAlive(isAlive);
+        person.setDob(dob);
+        person.setDoe(doe);
+        person.setCurrLocation(location);
+        person.setJob(job);
+        person.setEducation(education);
+        return person;
+    }
+
+    // A birthday a few days past, so the age in whole years is exactly the given number
+    private static Date yearsAgo(int years) {
+        return date(today.minusYears(years).minusDays(10));
+    }
+
+    private static Date date(LocalDate day) {
+        return Date.from(day.atStartOfDay(ZoneOffset.UTC).toInstant());
+    }
+}
@@ -0,0 +1,82 @@
+package dev.anudeep.familytree.utils;
+
+import dev.anudeep.familytree.utils.TreeAdjacencyIndex.Step;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static dev.anudeep.familytree.utils.TreeAdjacencyIndex.Step.CHILD;
+import static dev.anudeep.familytree.utils.TreeAdjacencyIndex.Step.PARENT;
+import static dev.anudeep.familytree.utils.TreeAdjacencyIndex.Step.SPOUSE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class KinshipLabelTest {
+
+    @Test
+    void namesDirectLine() {
+        assertEquals("self", KinshipLabel.describe(List.of(), "male"));
+        assertEquals("mother", KinshipLabel.describe(List.of(PARENT), "female"));
+        assertEquals("grandfather", KinshipLabel.describe(List.of(PARENT, PARENT), "male"));
+        assertEquals("great-grandparent", KinshipLabel.describe(List.of(PARENT, PARENT, PARENT), null));
+        assertEquals("great-great-grandmother", KinshipLabel.describe(List.of(PARENT, PARENT, PARENT, PARENT), "Female"));
+        assertEquals("son", KinshipLabel.describe(List.of(CHILD), "male"));
+        assertEquals("grandchild", KinshipLabel.describe(List.of(CHILD, CHILD), "other"));
+    }
+
+    @Test
+    void namesCollateralRelatives() {
+        assertEquals("brother", KinshipLabel.describe(List.of(PARENT, CHILD), "male"));
+        assertEquals("aunt", KinshipLabel.describe(List.of(PARENT, PARENT, CHILD), "female"));
+        assertEquals("great-uncle", KinshipLabel.describe(List.of(PARENT, PARENT, PARENT, CHILD), "male"));
+        assertEquals("niece", KinshipLabel.describe(List.of(PARENT, CHILD, CHILD), "female"));
+        assertEquals("grand-nephew", KinshipLabel.describe(List.of(PARENT, CHILD, CHILD, CHILD), "male"));
+    }
+
+    @Test
+    void namesCousinsByDegreeAndRemoval() {
+        assertEquals("first cousin", KinshipLabel.describe(path(2, 2), "male"));
+        assertEquals("second cousin", KinshipLabel.describe(path(3, 3), "female"));
+        assertEquals("first cousin once removed", KinshipLabel.describe(path(3, 2), null));
+        assertEquals("first cousin once removed", KinshipLabel.describe(path(2, 3), null));
+        assertEquals("second cousin twice removed", KinshipLabel.describe(path(3, 5), null));
+        assertEquals("first cousin thrice removed", KinshipLabel.describe(path(5, 2), null));
+        assertEquals("first cousin 4 times removed", KinshipLabel.describe(path(6, 2), null));
+        assertEquals("11th cousin", KinshipLabel.describe(path(12, 12), null));
+    }
+
+    @Test
+    void namesInLaws() {
+        assertEquals("wife", KinshipLabel.describe(List.of(SPOUSE), "female"));
+        assertEquals("mother-in-law", KinshipLabel.describe(List.of(SPOUSE, PARENT), "female"));
+        assertEquals("brother-in-law", KinshipLabel.describe(List.of(SPOUSE, PARENT, CHILD), "male"));
+        assertEquals("sister-in-law", KinshipLabel.describe(List.of(PARENT, CHILD, SPOUSE), "female"));
+        assertEquals("son-in-law", KinshipLabel.describe(List.of(CHILD, SPOUSE), "male"));
+        assertEquals("child-in-law", KinshipLabel.describe(List.of(CHILD, SPOUSE), null));
+    }
+
+    @Test
+    void namesStepRelatives() {
+        assertEquals("stepdaughter", KinshipLabel.describe(List.of(SPOUSE, CHILD), "female"));
+        assertEquals("stepfather", KinshipLabel.describe(List.of(PARENT, SPOUSE), "male"));
+        assertEquals("step-parent", KinshipLabel.describe(List.of(PARENT, SPOUSE), null));
+    }
+
+    @Test
+    void chainsLongerPathsAndGendersOnlyTheLastTerm() {
+        List<Step> spousesCousin = new ArrayList<>(List.of(SPOUSE));
+        spousesCousin.addAll(path(2, 2));
+        assertEquals("spouse's first cousin", KinshipLabel.describe(spousesCousin, "female"));
+        assertEquals("parent's spouse's son", KinshipLabel.describe(List.of(PARENT, SPOUSE, CHILD), "male"));
+        assertEquals("first cousin's husband", KinshipLabel.describe(List.of(PARENT, PARENT, CHILD, CHILD, SPOUSE), "male"));
+        assertEquals("spouse's uncle", KinshipLabel.describe(List.of(SPOUSE, PARENT, PARENT, CHILD), "male"));
+    }
+
+    // ups steps to the common ancestor, then downs steps to the relative
+    private static List<Step> path(int ups, int downs) {
+        List<Step> steps = new ArrayList<>(Collections.nCopies(ups, PARENT));
+        steps.addAll(Collections.nCopies(downs, CHILD));
+        return steps;
+    }
+}
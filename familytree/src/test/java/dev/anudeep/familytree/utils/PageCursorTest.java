@@ -0,0 +1,46 @@
+package dev.anudeep.familytree.utils;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class PageCursorTest {
+
+    @Test
+    void roundTripsSortKeyAndElementId() {
+        PageCursor cursor = new PageCursor("Anudeep\nKumar", "4:12979c35-eb38-4bad-b707-8478b11ae98e:45");
+        assertEquals(cursor, PageCursor.decode(cursor.encode()));
+    }
+
+    @Test
+    void keepsNullAndEmptySortKeysApart() {
+        PageCursor unnamed = new PageCursor(null, "4:abc:1");
+        PageCursor empty = new PageCursor("", "4:abc:1");
+        assertEquals(unnamed, PageCursor.decode(unnamed.encode()));
+        assertEquals(empty, PageCursor.decode(empty.encode()));
+        assertNull(PageCursor.decode(unnamed.encode()).sortKey());
+    }
+
+    @Test
+    void decodesMissingCursorToNull() {
+        assertNull(PageCursor.decode(null));
+        assertNull(PageCursor.decode(" "));
+    }
+
+    @Test
+    void rejectsForeignCursors() {
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode("not base64!"));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(encodeRaw("no separator")));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(encodeRaw("name\n4:abc:1")));
+        assertThrows(IllegalArgumentException.class, () -> PageCursor.decode(encodeRaw("-name\n4:abc:1")));
+    }
+
+    private static String encodeRaw(String raw) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
@@ -0,0 +1,101 @@
+package dev.anudeep.familytree.utils;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import dev.anudeep.familytree.model.Person;
+import org.junit.jupiter.api.Test;
+import org.neo4j.driver.Value;
+import org.neo4j.driver.Values;
+import org.neo4j.driver.internal.InternalNode;
+import org.neo4j.driver.types.Node;
+
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class PersonFlowNodeMapperTest {
+
+    private static final TypeReference<Map<String, Object>> MAP_TYPE = new TypeReference<>() {
+    };
+
+    @Test
+    void matchesConvertValueWithFormattedDates() throws Exception {
+        assertSameData(objectMapper(false), fullNode());
+    }
+
+    @Test
+    void matchesConvertValueWithTimestamps() throws Exception {
+        assertSameData(objectMapper(true), fullNode());
+    }
+
+    @Test
+    void matchesConvertValueForSparseNode() throws Exception {
+        Map<String, Value> properties = new HashMap<>();
+        properties.put("name", Values.value("Anudeep"));
+        properties.put("job_employer", Values.value("Acme"));
+        Node node = new InternalNode(7L, List.of("Person"), properties);
+
+        assertSameData(objectMapper(false), node);
+        Map<String, Object> data = new PersonFlowNodeMapper(objectMapper(false)).toData(node, node.elementId());
+        assertNull(data.get("education"));
+        assertNull(data.get("dob"));
+    }
+
+    @Test
+    void matchesConvertValueForEpochMillisDates() throws Exception {
+        Map<String, Value> properties = new HashMap<>();
+        properties.put("name", Values.value("Anudeep"));
+        properties.put("dob", Values.value(639878400000L));
+        properties.put("isAlive", Values.value(true));
+        Node node = new InternalNode(8L, List.of("Person"), properties);
+
+        assertSameData(objectMapper(false), node);
+        assertSameData(objectMapper(true), node);
+    }
+
+    // Same keys in the same order and the same JSON as the Person + convertValue round trip
+    private static void assertSameData(ObjectMapper objectMapper, Node node) throws Exception {
+        Person person = PersonNodeConverter.flattenedMapToPerson(new HashMap<>(node.asMap()), node.elementId());
+        Map<String, Object> expected = objectMapper.convertValue(person, MAP_TYPE);
+        Map<String, Object> actual = new PersonFlowNodeMapper(objectMapper).toData(node, node.elementId());
+
+        assertEquals(new ArrayList<>(expected.keySet()), new ArrayList<>(actual.keySet()));
+        assertEquals(objectMapper.writeValueAsString(expected), objectMapper.writeValueAsString(actual));
+    }
+
+    private static ObjectMapper objectMapper(boolean datesAsTimestamps) {
+        ObjectMapper objectMapper = new ObjectMapper().registerModule(new JavaTimeModule());
+        return datesAsTimestamps
+                ? objectMapper.enable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+                : objectMapper.disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    }
+
+    private static Node fullNode() {
+        Map<String, Value> properties = new HashMap<>();
+        properties.put("name", Values.value("Anudeep"));
+        properties.put("gender", Values.value("male"));
+        properties.put("nickName", Values.value("Anu"));
+        properties.put("isAlive", Values.value("true"));
+        properties.put("dob", Values.value(ZonedDateTime.of(1990, 4, 12, 0, 0, 0, 0, ZoneId.of("UTC"))));
+        properties.put("doe", Values.value(ZonedDateTime.of(2060, 1, 2, 10, 30, 0, 0, ZoneId.of("Asia/Kolkata"))));
+        properties.put("currLocation", Values.value("Hyderabad"));
+        properties.put("character", Values.value("Calm"));
+        properties.put("imageUrl", Values.value("https://example.com/a.png"));
+        properties.put("job_jobType", Values.value("Private"));
+        properties.put("job_employer", Values.value("Acme"));
+        properties.put("job_jobTitle", Values.value("Engineer"));
+        properties.put("education_fieldOfStudy", Values.value("Computer Science"));
+        properties.put("education_highestQualification", Values.value("Masters"));
+        properties.put("education_institution", Values.value("University"));
+        properties.put("education_location", Values.value("Hyderabad"));
+        return new InternalNode(42L, List.of("Person"), properties);
+    }
+}
@@ -0,0 +1,284 @@
+package dev.anudeep.familytree.utils;
+
+import dev.anudeep.familytree.utils.TreeAdjacencyIndex.KinshipPath;
+import dev.anudeep.familytree.utils.TreeAdjacencyIndex.Selection;
+import dev.anudeep.familytree.utils.TreeAdjacencyIndex.Step;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TreeAdjacencyIndexTest {
+
+    /*
+     * gp1 = gp2           gp3
+     *    |                 |
+     *   dad = mom -------- + (mom is a child of gp3)
+     *      |   |
+     *    me   sis    half (child of dad only)
+     */
+    private static TreeAdjacencyIndex family() {
+        TreeAdjacencyIndex index = new TreeAdjacencyIndex(1);
+        for (String person : List.of("gp1", "gp2", "gp3", "dad", "mom", "me", "sis", "half")) {
+            index.addNode(person, "Person");
+        }
+        index.addNode("house", "House");
+        index.addEdge("m-gp", Constants.MARRIED_REL, "gp1", "gp2");
+        index.addEdge("m-parents", Constants.MARRIED_REL, "dad", "mom");
+        index.addEdge("c-gp1-dad", Constants.PARENT_REL, "gp1", "dad");
+        index.addEdge("c-gp2-dad", Constants.PARENT_REL, "gp2", "dad");
+        index.addEdge("c-gp3-mom", Constants.PARENT_REL, "gp3", "mom");
+        index.addEdge("c-dad-me", Constants.PARENT_REL, "dad", "me");
+        index.addEdge("c-mom-me", Constants.PARENT_REL, "mom", "me");
+        index.addEdge("c-dad-sis", Constants.PARENT_REL, "dad", "sis");
+        index.addEdge("c-mom-sis", Constants.PARENT_REL, "mom", "sis");
+        index.addEdge("c-dad-half", Constants.PARENT_REL, "dad", "half");
+        index.addEdge("b-me", Constants.BELONGS_REL, "me", "house");
+        index.addEdge("b-dad", Constants.BELONGS_REL, "dad", "house");
+        return index;
+    }
+
+    @Test
+    void answersNeighboursFromBothDirectionsOfTheCsrArrays() {
+        TreeAdjacencyIndex index = family();
+
+        assertEquals(Set.of("me", "sis", "half"), Set.copyOf(index.children("dad")));
+        assertEquals(Set.of("dad", "mom"), Set.copyOf(parents(index, "me")));
+        assertEquals(List.of("mom"), index.partners("dad"));
+        assertEquals(List.of("dad"), index.partners("mom"));
+        assertEquals(List.of("house"), houses(index, "me"));
+        assertEquals("House", index.typeOf("house"));
+        assertTrue(index.children("me").isEmpty());
+        assertTrue(parents(index, "nobody").isEmpty());
+    }
+
+    @Test
+    void rebuildsCsrArraysAfterChanges() {
+        TreeAdjacencyIndex index = family();
+        assertEquals(3, index.children("dad").size());
+
+        index.removeEdges(List.of("c-dad-half"));
+        assertEquals(Set.of("me", "sis"), Set.copyOf(index.children("dad")));
+
+        index.addNode("baby", "Person");
+        index.addEdge("c-me-baby", Constants.PARENT_REL, "me", "baby");
+        assertEquals(List.of("baby"), index.children("me"));
+
+        index.removeNodes(List.of("mom"));
+        assertFalse(index.contains("mom"));
+        assertEquals(List.of("dad"), parents(index, "me"));
+        assertTrue(index.partners("dad").isEmpty());
+        assertTrue(index.children("gp3").isEmpty());
+    }
+
+    @Test
+    void ignoresOtherRelationshipTypes() {
+        TreeAdjacencyIndex index = family();
+        index.addEdge("x", "KNOWS", "me", "sis");
+
+        assertTrue(index.partners("me").isEmpty());
+        assertEquals(Set.of("dad", "mom"), Set.copyOf(parents(index, "sis")));
+    }
+
+    @Test
+    void siblingsIncludeHalfSiblingsOnceAndExcludeThePerson() {
+        TreeAdjacencyIndex index = family();
+
+        List<String> siblings = index.siblings("me");
+        assertEquals(Set.of("sis", "half"), Set.copyOf(siblings));
+        assertEquals(2, siblings.size());
+        assertEquals(Set.of("me", "sis"), Set.copyOf(index.siblings("half")));
+        assertTrue(index.siblings("gp1").isEmpty());
+    }
+
+    @Test
+    void descendantsAndAncestorsStopAtDepthAndCap() {
+        TreeAdjacencyIndex index = family();
+
+        Selection descendants = index.descendants("gp1", TreeAdjacencyIndex.UNLIMITED, 100);
+        assertEquals(Set.of("gp1", "dad", "me", "sis", "half"), Set.copyOf(descendants.nodeIds()));
+        assertEquals(Set.of("c-gp1-dad", "c-dad-me", "c-dad-sis", "c-dad-half"), Set.copyOf(descendants.edgeIds()));
+        assertFalse(descendants.truncated());
+
+        assertEquals(Set.of("gp1", "dad"), Set.copyOf(index.descendants("gp1", 1, 100).nodeIds()));
+
+        Selection ancestors = index.ancestors("me", TreeAdjacencyIndex.UNLIMITED, 100);
+        assertEquals(Set.of("me", "dad", "mom", "gp1", "gp2", "gp3"), Set.copyOf(ancestors.nodeIds()));
+        assertEquals(6, ancestors.nodeIds().size());
+
+        Selection capped = index.ancestors("me", TreeAdjacencyIndex.UNLIMITED, 3);
+        assertEquals(Set.of("me", "dad", "mom"), Set.copyOf(capped.nodeIds()));
+        assertTrue(capped.truncated());
+    }
+
+    @Test
+    void ancestorsReachACollapsedPedigreeOnce() {
+        // Cousins' child: both parents descend from the same grandparents
+        TreeAdjacencyIndex index = new TreeAdjacencyIndex(1);
+        index.addEdge("1", Constants.PARENT_REL, "g", "a");
+        index.addEdge("2", Constants.PARENT_REL, "g", "b");
+        index.addEdge("3", Constants.PARENT_REL, "a", "x");
+        index.addEdge("4", Constants.PARENT_REL, "b", "y");
+        index.addEdge("5", Constants.PARENT_REL, "x", "child");
+        index.addEdge("6", Constants.PARENT_REL, "y", "child");
+
+        Selection ancestors = index.ancestors("child", TreeAdjacencyIndex.UNLIMITED, 100);
+        assertEquals(List.of("child", "x", "y", "a", "b", "g"), ancestors.nodeIds());
+        assertEquals(6, ancestors.edgeIds().size());
+    }
+
+    @Test
+    void pedigreeAddsSpousesOfAncestorsAndHousesButNotThePersonsSpouse() {
+        TreeAdjacencyIndex index = family();
+        index.addNode("wife", "Person");
+        index.addEdge("m-me-wife", Constants.MARRIED_REL, "me", "wife");
+
+        Selection pedigree = index.pedigree("me", 1, 100);
+        assertEquals(Set.of("me", "dad", "mom", "house"), Set.copyOf(pedigree.nodeIds()));
+        assertTrue(pedigree.edgeIds().contains("m-parents"));
+        assertFalse(pedigree.edgeIds().contains("m-me-wife"));
+        assertFalse(pedigree.truncated());
+
+        assertTrue(index.pedigree("me", TreeAdjacencyIndex.UNLIMITED, 2).truncated());
+    }
+
+    @Test
+    void familySelectsLineageSpousesAndHouses() {
+        TreeAdjacencyIndex index = family();
+
+        Selection family = index.family("dad", TreeAdjacencyIndex.UNLIMITED);
+        assertEquals(Set.of("dad", "me", "sis", "half", "mom", "house"), Set.copyOf(family.nodeIds()));
+        assertTrue(family.edgeIds().containsAll(List.of("m-parents", "b-me", "b-dad", "c-dad-me")));
+        assertFalse(family.edgeIds().contains("c-mom-me"));
+    }
+
+    @Test
+    void shortestPathNamesStepsBetweenRelatives() {
+        TreeAdjacencyIndex index = family();
+
+        KinshipPath path = index.shortestPath("me", "gp3", 10);
+        assertEquals(List.of("me", "mom", "gp3"), path.nodeIds());
+        assertEquals(List.of("c-mom-me", "c-gp3-mom"), path.edgeIds());
+        assertEquals(List.of(Step.PARENT, Step.PARENT), path.steps());
+
+        assertEquals(List.of(Step.SPOUSE), index.shortestPath("dad", "mom", 10).steps());
+        assertEquals(List.of("me"), index.shortestPath("me", "me", 0).nodeIds());
+        assertNull(index.shortestPath("me", "gp3", 1));
+        assertNull(index.shortestPath("me", "nobody", 10));
+    }
+
+    @Test
+    void shortestPathMatchesNaiveBreadthFirstSearch() {
+        Random random = new Random(42);
+        int persons = 300;
+        TreeAdjacencyIndex index = new TreeAdjacencyIndex(1);
+        Map<String, List<String>> undirected = new HashMap<>();
+        Map<String, String[]> edges = new HashMap<>();
+        for (int i = 0; i < persons; i++) {
+            index.addNode("p" + i, "Person");
+            undirected.put("p" + i, new ArrayList<>());
+        }
+        // Parents always come before their children, some persons stay disconnected
+        int edgeCount = 0;
+        for (int child = 5; child < persons; child++) {
+            for (int parents = random.nextInt(3); parents > 0; parents--) {
+                int parent = random.nextInt(child);
+                edgeCount = link(index, undirected, edges, edgeCount, Constants.PARENT_REL, "p" + parent, "p" + child);
+            }
+        }
+        for (int marriages = 0; marriages < persons / 4; marriages++) {
+            edgeCount = link(index, undirected, edges, edgeCount, Constants.MARRIED_REL,
+                    "p" + random.nextInt(persons), "p" + random.nextInt(persons));
+        }
+
+        int reachable = 0;
+        for (int pair = 0; pair < 500; pair++) {
+            String from = "p" + random.nextInt(persons);
+            String to = "p" + random.nextInt(persons);
+            int expected = naiveDistance(undirected, from, to);
+            KinshipPath path = index.shortestPath(from, to, 50);
+            if (expected < 0) {
+                assertNull(path, from + " -> " + to);
+                continue;
+            }
+            reachable++;
+            assertNotNull(path, from + " -> " + to);
+            assertEquals(expected, path.edgeIds().size(), from + " -> " + to);
+            assertValidPath(path, edges, from, to);
+            if (expected > 1) {
+                assertNull(index.shortestPath(from, to, expected - 1), from + " -> " + to + " within " + (expected - 1));
+            }
+        }
+        assertTrue(reachable > 100, "fixture should connect most pairs, got " + reachable);
+    }
+
+    private static List<String> parents(TreeAdjacencyIndex index, String elementId) {
+        List<String> lineage = index.ancestors(elementId, 1, TreeAdjacencyIndex.UNLIMITED).nodeIds();
+        return lineage.isEmpty() ? lineage : lineage.subList(1, lineage.size());
+    }
+
+    private static List<String> houses(TreeAdjacencyIndex index, String elementId) {
+        return index.family(elementId, 0).nodeIds().stream().filter(id -> "House".equals(index.typeOf(id))).toList();
+    }
+
+    private static int link(TreeAdjacencyIndex index, Map<String, List<String>> undirected, Map<String, String[]> edges,
+                            int edgeCount, String type, String source, String target) {
+        String id = "e" + edgeCount;
+        index.addEdge(id, type, source, target);
+        undirected.get(source).add(target);
+        undirected.get(target).add(source);
+        edges.put(id, new String[]{type, source, target});
+        return edgeCount + 1;
+    }
+
+    private static int naiveDistance(Map<String, List<String>> undirected, String from, String to) {
+        Map<String, Integer> distance = new HashMap<>();
+        ArrayDeque<String> queue = new ArrayDeque<>();
+        distance.put(from, 0);
+        queue.add(from);
+        while (!queue.isEmpty()) {
+            String node = queue.poll();
+            if (node.equals(to)) {
+                return distance.get(node);
+            }
+            for (String next : undirected.get(node)) {
+                if (!distance.containsKey(next)) {
+                    distance.put(next, distance.get(node) + 1);
+                    queue.add(next);
+                }
+            }
+        }
+        return -1;
+    }
+
+    // Every hop uses its edge in the direction its step claims
+    private static void assertValidPath(KinshipPath path, Map<String, String[]> edges, String from, String to) {
+        List<String> nodes = path.nodeIds();
+        assertEquals(from, nodes.get(0));
+        assertEquals(to, nodes.get(nodes.size() - 1));
+        assertEquals(nodes.size(), new HashSet<>(nodes).size());
+        for (int hop = 0; hop < path.edgeIds().size(); hop++) {
+            String[] edge = edges.get(path.edgeIds().get(hop));
+            String current = nodes.get(hop);
+            String next = nodes.get(hop + 1);
+            switch (path.steps().get(hop)) {
+                case CHILD -> assertTrue(edge[0].equals(Constants.PARENT_REL) && edge[1].equals(current) && edge[2].equals(next));
+                case PARENT -> assertTrue(edge[0].equals(Constants.PARENT_REL) && edge[1].equals(next) && edge[2].equals(current));
+                case SPOUSE -> assertTrue(edge[0].equals(Constants.MARRIED_REL)
+                        && Set.of(edge[1], edge[2]).equals(Set.of(current, next)));
+            }
+        }
+    }
+}
@@ -0,0 +1,57 @@
+package dev.anudeep.familytree.utils;
+
+import dev.anudeep.familytree.dto.TreeFacetsDTO;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TreeFacetsTest {
+
+    private static final TreeFacets.Profile MALE_HYD = new TreeFacets.Profile("male", "Hyderabad", null, null, null, "true");
+    private static final TreeFacets.Profile FEMALE_HYD = new TreeFacets.Profile("female", "Hyderabad", null, null, null, "true");
+
+    @Test
+    void sharesProfilesAndDropsThemWithTheirLastPerson() {
+        TreeFacets facets = new TreeFacets(1);
+        facets.putPerson("p1", MALE_HYD);
+        facets.putPerson("p2", new TreeFacets.Profile("male", "Hyderabad", null, null, null, "true"));
+        assertEquals(1, facets.profileCount());
+
+        facets.putPerson("p2", FEMALE_HYD);
+        assertEquals(2, facets.profileCount());
+
+        facets.removePerson("p1");
+        assertEquals(1, facets.profileCount());
+        facets.removePerson("p2");
+        assertEquals(0, facets.profileCount());
+        assertEquals(0, facets.toDTO().getPersons());
+    }
+
+    @Test
+    void countsValuesAndHouseMemberships() {
+        TreeFacets facets = new TreeFacets(3);
+        facets.putPerson("p1", MALE_HYD);
+        facets.putPerson("p2", MALE_HYD);
+        facets.putPerson("p3", FEMALE_HYD);
+        facets.putHouse("h1", "Stark");
+        facets.addMembership("b1", "p1", "h1");
+        facets.addMembership("b2", "p3", "h1");
+
+        TreeFacetsDTO dto = facets.toDTO();
+        assertEquals(3, dto.getVersion());
+        assertEquals(3, dto.getPersons());
+        assertEquals(List.of(new TreeFacetsDTO.FacetValue("male", "male", 2), new TreeFacetsDTO.FacetValue("female", "female", 1)),
+                dto.getFacets().get(TreeFacets.GENDER));
+        assertEquals(List.of(new TreeFacetsDTO.FacetValue("Hyderabad", "Hyderabad", 3)), dto.getFacets().get(TreeFacets.LOCATION));
+        assertTrue(dto.getFacets().get(TreeFacets.JOB_TYPE).isEmpty());
+        assertEquals(List.of(new TreeFacetsDTO.FacetValue("h1", "Stark", 2)), dto.getFacets().get(TreeFacets.HOUSE));
+
+        facets.removePerson("p1");
+        assertEquals(List.of(new TreeFacetsDTO.FacetValue("female", "female", 1), new TreeFacetsDTO.FacetValue("male", "male", 1)),
+                facets.toDTO().getFacets().get(TreeFacets.GENDER));
+        assertEquals(List.of(new TreeFacetsDTO.FacetValue("h1", "Stark", 1)), facets.toDTO().getFacets().get(TreeFacets.HOUSE));
+    }
+}